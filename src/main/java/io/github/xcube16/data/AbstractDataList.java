@@ -57,15 +57,30 @@ public abstract class AbstractDataList extends AbstractDataView<Integer> impleme
      * ===========================
      */
 
-    private static final Integer INVALID_KEY = -1;
+    private static final int INVALID_KEY = -1;
 
     @Override
     public Integer key(String key) {
-        try {
-            return Integer.valueOf(key);
-        } catch (NumberFormatException e) {
+        return parseIndex(key);
+    }
+
+    /**
+     * Parses a list index without throwing, invalid and negative indices are {@code -1}.
+     */
+    static int parseIndex(String key) {
+        int length = key.length();
+        if (length == 0 || length > 10) {
             return INVALID_KEY;
         }
+        long index = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = key.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_KEY;
+            }
+            index = index * 10 + digit;
+        }
+        return index > Integer.MAX_VALUE ? INVALID_KEY : (int) index;
     }
 
     @Override
@@ -24,9 +24,12 @@
  */
 package io.github.xcube16.data;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -50,66 +53,105 @@ public abstract class AbstractDataView<K> implements DataView<K> {
         checkNotNull(key, "key");
         checkNotNull(value, "value");
 
-        if (isPrimitive(value) || isPrimitiveArray(value)) { // Primitive Allowed Types or Array Allowed Types
+        DataType type = DataType.of(value);
+        if (type.isRaw()) { // Primitive Allowed Types or Array Allowed Types
             this.setRaw(key, value);
+            return this;
+        }
 
-        } else if (value instanceof DataMap) { // Structure Allowed Types
-            checkArgument(!value.equals(this), "Cannot insert self-referencing Objects!");
-            copyDataMap(this.createMap(key), (DataMap) value);
-        } else if (value instanceof DataList) { // Structure Allowed Types
-            checkArgument(!value.equals(this), "Cannot insert self-referencing Objects!");
-            copyDataList(this.createList(key), (DataList) value);
-        } else if (value instanceof DataValue) { // Structure Allowed Types
-            ((DataValue) value).get().ifPresent(v -> this.set(key, v));
-
-        } else if (value instanceof DataSerializable) { // Serializable Object
-            DataValue dataValue = new MemoryDataValue();
-            ((DataSerializable) value).toContainer(dataValue);
-            /* We don't need to clone any DataViews that are inside the MemoryDataValue
-            as it is the only one that could have created them. */
-            dataValue.get().ifPresent(v -> this.setRaw(key, v));
-
-        } else if (value instanceof Enum) { // common java stuff
-            this.setRaw(key, ((Enum) value).name());
-        } else if (value instanceof Map) { // common java stuff
-            copyMap(this.createMap(key), (Map) value);
-        } else if (value instanceof Collection) { // common java stuff
-            copyCollection(this.createList(key), (Collection) value);
-
-        } else {
-            // nope, KU-BOOM!
-            throw new IllegalArgumentException(value.getClass() + " can not be serialized");
+        switch (type) {
+            case DATA_MAP: // Structure Allowed Types
+                checkArgument(value != this, "Cannot insert self-referencing Objects!");
+                copyDataMap(this.createMap(key), (DataMap) value);
+                break;
+            case DATA_LIST: // Structure Allowed Types
+                checkArgument(value != this, "Cannot insert self-referencing Objects!");
+                copyDataList(this.createList(key), (DataList) value);
+                break;
+            case DATA_VALUE: // Structure Allowed Types
+                ((DataValue) value).get().ifPresent(v -> this.set(key, v));
+                break;
+
+            case SERIALIZABLE: // Serializable Object
+                DataValue dataValue = new MemoryDataValue();
+                ((DataSerializable) value).toContainer(dataValue);
+                /* We don't need to clone any DataViews that are inside the MemoryDataValue
+                as it is the only one that could have created them. */
+                dataValue.get().ifPresent(v -> this.setRaw(key, v));
+                break;
+
+            case ENUM: // common java stuff
+                this.setRaw(key, ((Enum) value).name());
+                break;
+            case JAVA_MAP: // common java stuff
+                copyMap(this.createMap(key), (Map) value);
+                break;
+            case COLLECTION: // common java stuff
+                copyCollection(this.createList(key), (Collection) value);
+                break;
+
+            default:
+                // nope, KU-BOOM!
+                throw new IllegalArgumentException(value.getClass() + " can not be serialized");
         }
         return this;
     }
 
     /**
-     * is a Primitive Allowed Type
+     * Forgets the cached hash code of an in-memory view and of every view above it.
+     * A view without a cached hash never has a parent with one, so this stops there.
+     */
+    static void invalidateHash(@Nullable Object view) {
+        while (true) {
+            if (view instanceof MemoryDataMap) {
+                MemoryDataMap map = (MemoryDataMap) view;
+                if (!map.hashed) {
+                    return;
+                }
+                map.hashed = false;
+                view = map.owner;
+            } else if (view instanceof MemoryDataList) {
+                MemoryDataList list = (MemoryDataList) view;
+                if (!list.hashed) {
+                    return;
+                }
+                list.hashed = false;
+                view = list.owner;
+            } else {
+                return; // detached, or owned by a MemoryDataValue or another kind of view
+            }
+        }
+    }
+
+    /**
+     * Hash code of a stored value, arrays are hashed by content
      */
-    static boolean isPrimitive(Object value) {
-        return value instanceof Boolean ||
-                value instanceof Byte ||
-                value instanceof Character ||
-                value instanceof Short ||
-                value instanceof Integer ||
-                value instanceof Long ||
-                value instanceof Float ||
-                value instanceof Double ||
-                value instanceof String;
+    static int valueHash(Object value) {
+        switch (DataType.of(value)) {
+            case BOOLEAN_ARRAY:
+                return Arrays.hashCode((boolean[]) value);
+            case BYTE_ARRAY:
+                return Arrays.hashCode((byte[]) value);
+            case SHORT_ARRAY:
+                return Arrays.hashCode((short[]) value);
+            case INT_ARRAY:
+                return Arrays.hashCode((int[]) value);
+            case LONG_ARRAY:
+                return Arrays.hashCode((long[]) value);
+            case FLOAT_ARRAY:
+                return Arrays.hashCode((float[]) value);
+            case DOUBLE_ARRAY:
+                return Arrays.hashCode((double[]) value);
+            default:
+                return value.hashCode();
+        }
     }
 
     /**
-     * is an Array Allowed Type
+     * Equality of stored values, arrays are compared by content
      */
-    static boolean isPrimitiveArray(Object value) {
-        return value instanceof boolean[] ||
-                value instanceof byte[] ||
-                value instanceof String ||
-                value instanceof short[] ||
-                value instanceof int[] ||
-                value instanceof long[] ||
-                value instanceof float[] ||
-                value instanceof double[];
+    static boolean valueEquals(Object a, Object b) {
+        return a == b || Objects.deepEquals(a, b);
     }
 
     /**
@@ -153,6 +195,77 @@ public abstract class AbstractDataView<K> implements DataView<K> {
         }
     }
 
+    /*
+     * Ownership of in-memory views, used by adopt()
+     */
+
+    /**
+     * Gets the {@link MemoryDataMap}, {@link MemoryDataList} or {@link MemoryDataValue}
+     * that {@code value} is attached to. Other views that store in-memory views
+     * ({@link ShapedDataMap}) attach them too, so they can't be adopted somewhere else.
+     *
+     * @return The owner, or null if {@code value} is detached or can not be owned
+     */
+    @Nullable
+    static Object ownerOf(Object value) {
+        if (value instanceof MemoryDataMap) {
+            return ((MemoryDataMap) value).owner;
+        } else if (value instanceof MemoryDataList) {
+            return ((MemoryDataList) value).owner;
+        }
+        return null;
+    }
+
+    /**
+     * Can {@code view} be adopted by an in-memory view without copying it
+     */
+    static boolean isAdoptable(DataView<?> view) {
+        return view instanceof MemoryDataMap || view instanceof MemoryDataList;
+    }
+
+    /**
+     * Makes sure adopting {@code view} into {@code container} will not alias or loop the tree.
+     * A view owned by a {@link MemoryDataValue} may be adopted, it is moved out of the value.
+     */
+    static void checkAdoptable(Object container, DataView<?> view) {
+        Object owner = ownerOf(view);
+        checkArgument(owner == null || owner instanceof MemoryDataValue,
+                "The view is already part of a DataView, use set() to copy it");
+        for (Object o = container; o != null; o = ownerOf(o)) {
+            checkArgument(o != view, "Cannot insert self-referencing Objects!");
+        }
+    }
+
+    /**
+     * Marks {@code value} as owned by {@code owner}, if it is an in-memory view.
+     * If a {@link MemoryDataValue} owned it before, the value is emptied.
+     */
+    static void attach(Object value, Object owner) {
+        Object previous = ownerOf(value);
+        if (previous == owner) {
+            return;
+        }
+        if (previous instanceof MemoryDataValue) {
+            ((MemoryDataValue) previous).release(value);
+        }
+        if (value instanceof MemoryDataMap) {
+            ((MemoryDataMap) value).owner = owner;
+        } else if (value instanceof MemoryDataList) {
+            ((MemoryDataList) value).owner = owner;
+        }
+    }
+
+    /**
+     * Marks {@code value} as detached if it is owned by {@code owner}.
+     */
+    static void detach(@Nullable Object value, Object owner) {
+        if (value instanceof MemoryDataMap && ((MemoryDataMap) value).owner == owner) {
+            ((MemoryDataMap) value).owner = null;
+        } else if (value instanceof MemoryDataList && ((MemoryDataList) value).owner == owner) {
+            ((MemoryDataList) value).owner = null;
+        }
+    }
+
     /*
      * ===========================
      * ==== queryable methods ====
@@ -188,6 +301,10 @@ public abstract class AbstractDataView<K> implements DataView<K> {
     private DataView getOrCreateHolder(List<String> parts) {
         DataView view = this;
         for (int i = 0; i < parts.size() - 1; i++) {
+            if (view instanceof AbstractDataView) {
+                view = getOrCreateView((AbstractDataView<?>) view, parts.get(i));
+                continue;
+            }
             Optional<Object> opt = get(view, parts.get(i));
             if (opt.isPresent() && opt.get() instanceof DataView) {
                 view = (DataView) opt.get();
@@ -198,6 +315,21 @@ public abstract class AbstractDataView<K> implements DataView<K> {
         return view;
     }
 
+    /**
+     * Gets the {@link DataView} at {@code key}, replacing whatever is there with a new
+     * {@link DataMap} if it is not a {@link DataView}. Used to walk (and build) the path of a query.
+     *
+     * <p>Thread safe views override this to do it atomically, so two threads setting
+     * different paths under the same new key end up in the same {@link DataMap}.</p>
+     *
+     * @param key The key
+     * @return The view at {@code key}
+     */
+    protected DataView<?> getOrCreateView(K key) {
+        Object value = this.getOrNull(key);
+        return value instanceof DataView ? (DataView<?>) value : this.createMap(key);
+    }
+
     /**
      * A lot like {@link DataView#get(Object)} but takes a query instead.
      *
@@ -212,7 +344,7 @@ public abstract class AbstractDataView<K> implements DataView<K> {
             return Optional.of(this);
         }
 
-        return getHolder(parts).map(v -> get(v, parts.get(parts.size() - 1)));
+        return getHolder(parts).flatMap(v -> get(v, parts.get(parts.size() - 1)));
     }
 
     @Override
@@ -220,7 +352,7 @@ public abstract class AbstractDataView<K> implements DataView<K> {
         checkNotNull(path, "path");
         checkNotNull(value, "value");
         List<String> parts = path.getParts();
-        checkArgument(parts.isEmpty(), "The query not be empty");
+        checkArgument(!parts.isEmpty(), "The query can not be empty");
 
         set(getOrCreateHolder(parts), parts.get(parts.size() - 1), value);
         return this;
@@ -230,7 +362,7 @@ public abstract class AbstractDataView<K> implements DataView<K> {
     public DataView<K> remove(DataQuery path) {
         checkNotNull(path, "path");
         List<String> parts = path.getParts();
-        checkArgument(parts.isEmpty(), "The query can not be empty");
+        checkArgument(!parts.isEmpty(), "The query can not be empty");
 
         getHolder(parts).ifPresent(v -> remove(v, parts.get(parts.size() - 1)));
         return this;
@@ -240,7 +372,7 @@ public abstract class AbstractDataView<K> implements DataView<K> {
     public DataMap createMap(DataQuery path) {
         checkNotNull(path, "path");
         List<String> parts = path.getParts();
-        checkArgument(parts.isEmpty(), "The query not be empty");
+        checkArgument(!parts.isEmpty(), "The query can not be empty");
 
         return createMap(getOrCreateHolder(parts), parts.get(parts.size() - 1));
     }
@@ -249,7 +381,7 @@ public abstract class AbstractDataView<K> implements DataView<K> {
     public DataList createList(DataQuery path) {
         checkNotNull(path, "path");
         List<String> parts = path.getParts();
-        checkArgument(parts.isEmpty(), "The query not be empty");
+        checkArgument(!parts.isEmpty(), "The query can not be empty");
 
         return createList(getOrCreateHolder(parts), parts.get(parts.size() - 1));
     }
@@ -261,7 +393,7 @@ public abstract class AbstractDataView<K> implements DataView<K> {
 
     @Override
     public Optional<DataList> getList(DataQuery path) {
-        return this.get(path).flatMap(o -> Coerce2.asDataList(o, path, this::createList));
+        return this.get(path).flatMap(o -> Coerce2.asDataList(o, path, p -> this.get(p).orElse(null), this::createList));
     }
 
     @Override
@@ -356,6 +488,9 @@ public abstract class AbstractDataView<K> implements DataView<K> {
     private static void set(DataView view, String key, Object value) {
         view.set(view.key(key), value);
     }
+    private static <T> DataView<?> getOrCreateView(AbstractDataView<T> view, String key) {
+        return view.getOrCreateView(view.key(key));
+    }
     @SuppressWarnings("unchecked")
     private static DataMap createMap(DataView view, String key) {
         return view.createMap(view.key(key));
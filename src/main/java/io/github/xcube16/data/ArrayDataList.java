@@ -0,0 +1,363 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A read-through {@link DataList} view of an Array Allowed Type (a primitive array or a {@link String}).
+ *
+ * <p>Creating the view is O(1) and reading it does not copy the array. The array is left
+ * where it is until the view is first modified, then the elements are copied into
+ * a real list that replaces the array in the parent view, and the view forwards
+ * everything to that list from then on.</p>
+ *
+ * <p>Before its first modification the view checks what the parent holds at the key. If
+ * the array has been replaced by a list (another view of the same array was modified
+ * first), the view forwards to that list instead of making its own copy. If the parent
+ * replaced the array with anything else, modifying the view will overwrite it. Reads do
+ * not look at the parent, so a view that has not been modified keeps reading the array
+ * it was created with.</p>
+ */
+final class ArrayDataList extends AbstractDataList {
+
+    private final Object array;
+    private final DataType type;
+    private final int length;
+
+    /**
+     * Gets what the parent currently holds at the key, unused once there is a real list.
+     */
+    @Nullable
+    private Supplier<Object> current;
+
+    /**
+     * Creates the replacement list in the parent, only called once.
+     */
+    @Nullable
+    private Supplier<DataList> create;
+
+    /**
+     * The real list, once this view has been modified.
+     */
+    @Nullable
+    private DataList delegate;
+
+    ArrayDataList(Object array, Supplier<Object> current, Supplier<DataList> create) {
+        this.array = array;
+        this.type = DataType.of(array);
+        this.length = this.type == DataType.STRING ? ((String) array).length() : Array.getLength(array);
+        this.current = current;
+        this.create = create;
+    }
+
+    /**
+     * Gets the backing array, or the real list if the array has been replaced by one.
+     */
+    Object unwrap() {
+        return this.delegate != null ? this.delegate : this.array;
+    }
+
+    /**
+     * Gets the real list, if this view or another view of the same array has been modified.
+     * Looking at the parent may walk a path, so this is only done before writing.
+     */
+    @Nullable
+    private DataList delegate() {
+        if (this.delegate == null) {
+            Object current = this.current.get();
+            if (current != this.array && current instanceof DataList) {
+                this.bind((DataList) current);
+            }
+        }
+        return this.delegate;
+    }
+
+    private DataList materialize() {
+        if (this.delegate() == null) {
+            DataList list = this.create.get();
+            for (int i = 0; i < this.length; i++) {
+                list.add(this.element(i));
+            }
+            this.bind(list);
+        }
+        return this.delegate;
+    }
+
+    private void bind(DataList list) {
+        this.delegate = list;
+        this.current = null;
+        this.create = null;
+    }
+
+    private Object element(int index) {
+        switch (this.type) {
+            case BOOLEAN_ARRAY:
+                return ((boolean[]) this.array)[index];
+            case BYTE_ARRAY:
+                return ((byte[]) this.array)[index];
+            case STRING:
+                return ((String) this.array).charAt(index);
+            case SHORT_ARRAY:
+                return ((short[]) this.array)[index];
+            case INT_ARRAY:
+                return ((int[]) this.array)[index];
+            case LONG_ARRAY:
+                return ((long[]) this.array)[index];
+            case FLOAT_ARRAY:
+                return ((float[]) this.array)[index];
+            case DOUBLE_ARRAY:
+                return ((double[]) this.array)[index];
+            default:
+                throw new IllegalStateException("Not an array: " + this.type);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.delegate != null ? this.delegate.size() : this.length;
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+        if (this.delegate != null) {
+            return this.delegate.get(key);
+        }
+        return key >= 0 && key < this.length ? Optional.of(this.element(key)) : Optional.empty();
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        if (this.delegate != null) {
+            return this.delegate.getOrNull(index);
+        }
+        return index >= 0 && index < this.length ? this.element(index) : null;
+    }
+
+    @Override
+    public int getInt(int index, int def) {
+        if (this.delegate == null && index >= 0 && index < this.length) {
+            switch (this.type) { // read straight from the array, no boxing
+                case BYTE_ARRAY:
+                    return ((byte[]) this.array)[index];
+                case SHORT_ARRAY:
+                    return ((short[]) this.array)[index];
+                case INT_ARRAY:
+                    return ((int[]) this.array)[index];
+                case LONG_ARRAY:
+                    return (int) ((long[]) this.array)[index];
+                case FLOAT_ARRAY:
+                    return (int) ((float[]) this.array)[index];
+                case DOUBLE_ARRAY:
+                    return (int) ((double[]) this.array)[index];
+            }
+        }
+        return super.getInt(index, def);
+    }
+
+    @Override
+    public long getLong(int index, long def) {
+        if (this.delegate == null && index >= 0 && index < this.length) {
+            switch (this.type) { // read straight from the array, no boxing
+                case BYTE_ARRAY:
+                    return ((byte[]) this.array)[index];
+                case SHORT_ARRAY:
+                    return ((short[]) this.array)[index];
+                case INT_ARRAY:
+                    return ((int[]) this.array)[index];
+                case LONG_ARRAY:
+                    return ((long[]) this.array)[index];
+                case FLOAT_ARRAY:
+                    return (long) ((float[]) this.array)[index];
+                case DOUBLE_ARRAY:
+                    return (long) ((double[]) this.array)[index];
+            }
+        }
+        return super.getLong(index, def);
+    }
+
+    @Override
+    public double getDouble(int index, double def) {
+        if (this.delegate == null && index >= 0 && index < this.length) {
+            switch (this.type) { // read straight from the array, no boxing
+                case BYTE_ARRAY:
+                    return ((byte[]) this.array)[index];
+                case SHORT_ARRAY:
+                    return ((short[]) this.array)[index];
+                case INT_ARRAY:
+                    return ((int[]) this.array)[index];
+                case LONG_ARRAY:
+                    return ((long[]) this.array)[index];
+                case FLOAT_ARRAY:
+                    return ((float[]) this.array)[index];
+                case DOUBLE_ARRAY:
+                    return ((double[]) this.array)[index];
+            }
+        }
+        return super.getDouble(index, def);
+    }
+
+    /*
+     * Everything below modifies the list, so it goes to the real list
+     */
+
+    @Override
+    public DataList set(Integer key, Object value) {
+        this.materialize().set(key, value);
+        return this;
+    }
+
+    @Override
+    protected void setRaw(Integer key, Object value) {
+        this.materialize().set(key, value);
+    }
+
+    @Override
+    protected void addRaw(Object value) {
+        this.materialize().add(value);
+    }
+
+    @Override
+    public DataList add(Object value) {
+        this.materialize().add(value);
+        return this;
+    }
+
+    @Override
+    public DataList adopt(DataView<?> view) {
+        this.materialize().adopt(view);
+        return this;
+    }
+
+    @Override
+    public DataList adopt(Integer key, DataView<?> view) {
+        this.materialize().adopt(key, view);
+        return this;
+    }
+
+    @Override
+    public DataList remove(Integer key) {
+        this.materialize().remove(key);
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        return this.materialize().createMap(key);
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        return this.materialize().createList(key);
+    }
+
+    @Override
+    public DataMap addMap() {
+        return this.materialize().addMap();
+    }
+
+    @Override
+    public DataList addList() {
+        return this.materialize().addList();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        this.materialize().clear();
+    }
+
+    @Override
+    public int hashCode() {
+        if (this.delegate != null) {
+            return this.delegate.hashCode();
+        }
+        // same result as List.hashCode()
+        int hash = 1;
+        for (int i = 0; i < this.length; i++) {
+            hash = 31 * hash + this.element(i).hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ArrayDataList other = (ArrayDataList) obj;
+        int size = this.size();
+        if (size != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!Objects.equals(this.getOrNull(i), other.getOrNull(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        if (this.delegate != null) {
+            return helper.add("list", this.delegate).toString();
+        }
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < this.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.element(i));
+        }
+        return helper.add("array", builder.append(']')).toString();
+    }
+}
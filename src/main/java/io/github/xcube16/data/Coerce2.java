@@ -24,8 +24,12 @@
  */
 package io.github.xcube16.data;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.Array;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.function.Function;
 
 /**
@@ -47,27 +51,12 @@ public final class Coerce2 {
     public static Optional<Boolean> asBoolean(Object obj) {
         if (obj instanceof Boolean) {
             return Optional.of((Boolean) obj);
+        } else if (obj instanceof Number) {
+            return Optional.of(((Number) obj).intValue() != 0);
         }
 
-        Optional<Integer> optional = asInteger(obj);
-        if (optional.isPresent()) {
-            return optional.map(i -> i != 0); // 0 = false, anything else = true (just like C)
-        }
-
-        String str = obj.toString().trim();
-        if (str.equalsIgnoreCase("true")
-                || str.equalsIgnoreCase("yes")
-                || str.equalsIgnoreCase("t")
-                || str.equalsIgnoreCase("y")) {
-            return Optional.of(true);
-        }
-        if (str.equalsIgnoreCase("false")
-                || str.equalsIgnoreCase("no")
-                || str.equalsIgnoreCase("f")
-                || str.equalsIgnoreCase("n")) {
-            return Optional.of(false);
-        }
-        return Optional.empty();
+        int bool = Coerce2.parseBoolean(Coerce2.chars(obj));
+        return bool < 0 ? Optional.empty() : Optional.of(bool != 0);
     }
 
     /**
@@ -83,11 +72,14 @@ public final class Coerce2 {
             return Optional.of(((Number) obj).byteValue());
         }
 
-        try {
-            return Optional.of(Byte.valueOf(Coerce2.sanitiseNumber(obj)));
-        } catch (NumberFormatException e) {
-            return Optional.empty();
+        CharSequence str = Coerce2.chars(obj);
+        if (NumberScanner.scan(str) == NumberScanner.LONG) {
+            long value = NumberScanner.toLong(str);
+            if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                return Optional.of((byte) value);
+            }
         }
+        return Optional.empty();
     }
 
     /**
@@ -122,12 +114,12 @@ public final class Coerce2 {
             return Optional.of(((Number) obj).shortValue());
         }
 
-        try {
-            // use parseFloat() so dots don't cause it to fail
-            return Optional.of((short) Float.parseFloat(Coerce2.sanitiseNumber(obj)));
-        } catch (NumberFormatException e) {
+        // go through float so dots don't cause it to fail
+        CharSequence str = Coerce2.chars(obj);
+        if (NumberScanner.scan(str) == NumberScanner.INVALID) {
             return Optional.empty();
         }
+        return Optional.of((short) NumberScanner.toFloat(str));
     }
 
     /**
@@ -143,12 +135,12 @@ public final class Coerce2 {
             return Optional.of(((Number) obj).intValue());
         }
 
-        try {
-            // use parseDouble() so dots don't cause it to fail
-            return Optional.of((int) Double.parseDouble(Coerce2.sanitiseNumber(obj)));
-        } catch (NumberFormatException e) {
+        // go through double so dots don't cause it to fail
+        CharSequence str = Coerce2.chars(obj);
+        if (NumberScanner.scan(str) == NumberScanner.INVALID) {
             return Optional.empty();
         }
+        return Optional.of((int) NumberScanner.toDouble(str));
     }
 
     /**
@@ -164,16 +156,14 @@ public final class Coerce2 {
             return Optional.of(((Number) obj).longValue());
         }
 
-        String str = Coerce2.sanitiseNumber(obj);
-
-        try {
-            return Optional.of(Long.valueOf(str));
-        } catch (NumberFormatException e) {
-            try {
-                return Optional.of((long) Double.parseDouble(str));
-            } catch (NumberFormatException e2) {
+        CharSequence str = Coerce2.chars(obj);
+        switch (NumberScanner.scan(str)) {
+            case NumberScanner.LONG:
+                return Optional.of(NumberScanner.toLong(str));
+            case NumberScanner.DECIMAL:
+                return Optional.of((long) NumberScanner.toDouble(str));
+            default:
                 return Optional.empty();
-            }
         }
     }
 
@@ -190,11 +180,11 @@ public final class Coerce2 {
             return Optional.of(((Number) obj).floatValue());
         }
 
-        try {
-            return Optional.of(Float.valueOf(Coerce2.sanitiseNumber(obj)));
-        } catch (NumberFormatException e) {
+        CharSequence str = Coerce2.chars(obj);
+        if (NumberScanner.scan(str) == NumberScanner.INVALID) {
             return Optional.empty();
         }
+        return Optional.of(NumberScanner.toFloat(str));
     }
 
     /**
@@ -210,11 +200,153 @@ public final class Coerce2 {
             return Optional.of(((Number) obj).doubleValue());
         }
 
-        try {
-            return Optional.of(Double.valueOf(Coerce2.sanitiseNumber(obj)));
-        } catch (NumberFormatException e) {
+        CharSequence str = Coerce2.chars(obj);
+        if (NumberScanner.scan(str) == NumberScanner.INVALID) {
             return Optional.empty();
         }
+        return Optional.of(NumberScanner.toDouble(str));
+    }
+
+    /*
+     * Primitive versions of the above, these don't box or allocate when obj is already a number
+     */
+
+    /**
+     * Gets the given object as a boolean, or {@code def} if it can not be coerced.
+     *
+     * @param obj The object to translate, may be null
+     * @param def The default value
+     * @return The boolean value
+     */
+    public static boolean asBoolean(@Nullable Object obj, boolean def) {
+        if (obj instanceof Boolean) {
+            return (Boolean) obj;
+        } else if (obj instanceof Number) {
+            return ((Number) obj).intValue() != 0;
+        } else if (obj == null) {
+            return def;
+        }
+        int bool = Coerce2.parseBoolean(Coerce2.chars(obj));
+        return bool < 0 ? def : bool != 0;
+    }
+
+    /**
+     * Gets the given object as an int, or {@code def} if it can not be coerced.
+     *
+     * @param obj The object to translate, may be null
+     * @param def The default value
+     * @return The int value
+     */
+    public static int asInt(@Nullable Object obj, int def) {
+        if (obj instanceof Number) {
+            return ((Number) obj).intValue();
+        } else if (obj == null) {
+            return def;
+        }
+        CharSequence str = Coerce2.chars(obj);
+        return NumberScanner.scan(str) == NumberScanner.INVALID ? def : (int) NumberScanner.toDouble(str);
+    }
+
+    /**
+     * Gets the given object as a long, or {@code def} if it can not be coerced.
+     *
+     * @param obj The object to translate, may be null
+     * @param def The default value
+     * @return The long value
+     */
+    public static long asLong(@Nullable Object obj, long def) {
+        if (obj instanceof Number) {
+            return ((Number) obj).longValue();
+        } else if (obj == null) {
+            return def;
+        }
+        CharSequence str = Coerce2.chars(obj);
+        switch (NumberScanner.scan(str)) {
+            case NumberScanner.LONG:
+                return NumberScanner.toLong(str);
+            case NumberScanner.DECIMAL:
+                return (long) NumberScanner.toDouble(str);
+            default:
+                return def;
+        }
+    }
+
+    /**
+     * Gets the given object as a double, or {@code def} if it can not be coerced.
+     *
+     * @param obj The object to translate, may be null
+     * @param def The default value
+     * @return The double value
+     */
+    public static double asDouble(@Nullable Object obj, double def) {
+        if (obj instanceof Number) {
+            return ((Number) obj).doubleValue();
+        } else if (obj == null) {
+            return def;
+        }
+        CharSequence str = Coerce2.chars(obj);
+        return NumberScanner.scan(str) == NumberScanner.INVALID ? def : NumberScanner.toDouble(str);
+    }
+
+    /**
+     * Gets the given object as an {@link OptionalInt}.
+     *
+     * @param obj The object to translate, may be null
+     * @return The int value, if available
+     */
+    public static OptionalInt asOptionalInt(@Nullable Object obj) {
+        if (obj instanceof Number) {
+            return OptionalInt.of(((Number) obj).intValue());
+        } else if (obj == null) {
+            return OptionalInt.empty();
+        }
+        CharSequence str = Coerce2.chars(obj);
+        if (NumberScanner.scan(str) == NumberScanner.INVALID) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of((int) NumberScanner.toDouble(str));
+    }
+
+    /**
+     * Gets the given object as an {@link OptionalLong}.
+     *
+     * @param obj The object to translate, may be null
+     * @return The long value, if available
+     */
+    public static OptionalLong asOptionalLong(@Nullable Object obj) {
+        if (obj instanceof Number) {
+            return OptionalLong.of(((Number) obj).longValue());
+        } else if (obj == null) {
+            return OptionalLong.empty();
+        }
+        CharSequence str = Coerce2.chars(obj);
+        switch (NumberScanner.scan(str)) {
+            case NumberScanner.LONG:
+                return OptionalLong.of(NumberScanner.toLong(str));
+            case NumberScanner.DECIMAL:
+                return OptionalLong.of((long) NumberScanner.toDouble(str));
+            default:
+                return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Gets the given object as an {@link OptionalDouble}.
+     *
+     * @param obj The object to translate, may be null
+     * @return The double value, if available
+     */
+    public static OptionalDouble asOptionalDouble(@Nullable Object obj) {
+        if (obj instanceof Number) {
+            return OptionalDouble.of(((Number) obj).doubleValue());
+        } else if (obj == null) {
+            return OptionalDouble.empty();
+        }
+        CharSequence str = Coerce2.chars(obj);
+        if (NumberScanner.scan(str) == NumberScanner.INVALID) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(NumberScanner.toDouble(str));
     }
 
     /**
@@ -224,6 +356,7 @@ public final class Coerce2 {
      * @return The boolean[], if available
      */
     public static Optional<boolean[]> asBooleanArray(Object obj) {
+        obj = Coerce2.unwrap(obj);
         if (obj instanceof boolean[]) {
             return Optional.of((boolean[]) obj); // fast path
         }
@@ -263,6 +396,7 @@ public final class Coerce2 {
      * @return The byte[], if available
      */
     public static Optional<byte[]> asByteArray(Object obj) {
+        obj = Coerce2.unwrap(obj);
         if (obj instanceof byte[]) {
             return Optional.of((byte[]) obj); // fast path
         }
@@ -327,6 +461,7 @@ public final class Coerce2 {
      * @return The short[], if available
      */
     public static Optional<short[]> asShortArray(Object obj) {
+        obj = Coerce2.unwrap(obj);
         if (obj instanceof short[]) {
             return Optional.of((short[]) obj); // fast path
         }
@@ -363,9 +498,22 @@ public final class Coerce2 {
      * @return The int[], if available
      */
     public static Optional<int[]> asIntArray(Object obj) {
+        obj = Coerce2.unwrap(obj);
         if (obj instanceof int[]) {
             return Optional.of((int[]) obj); // fast path
         }
+        if (obj instanceof MemoryDataList) {
+            int[] ints = ((MemoryDataList) obj).toIntArray();
+            if (ints != null) {
+                return Optional.of(ints); // fast path, no boxing
+            }
+        }
+        if (obj instanceof FrozenDataList) {
+            int[] ints = ((FrozenDataList) obj).toIntArray();
+            if (ints != null) {
+                return Optional.of(ints); // fast path, no boxing
+            }
+        }
 
         Optional<NumArray> numsOpt = wrapNumArray(obj);
         if (numsOpt.isPresent()) {
@@ -399,9 +547,22 @@ public final class Coerce2 {
      * @return The long[], if available
      */
     public static Optional<long[]> asLongArray(Object obj) {
+        obj = Coerce2.unwrap(obj);
         if (obj instanceof long[]) {
             return Optional.of((long[]) obj); // fast path
         }
+        if (obj instanceof MemoryDataList) {
+            long[] longs = ((MemoryDataList) obj).toLongArray();
+            if (longs != null) {
+                return Optional.of(longs); // fast path, no boxing
+            }
+        }
+        if (obj instanceof FrozenDataList) {
+            long[] longs = ((FrozenDataList) obj).toLongArray();
+            if (longs != null) {
+                return Optional.of(longs); // fast path, no boxing
+            }
+        }
 
         Optional<NumArray> numsOpt = wrapNumArray(obj);
         if (numsOpt.isPresent()) {
@@ -435,6 +596,7 @@ public final class Coerce2 {
      * @return The float[], if available
      */
     public static Optional<float[]> asFloatArray(Object obj) {
+        obj = Coerce2.unwrap(obj);
         if (obj instanceof float[]) {
             return Optional.of((float[]) obj); // fast path
         }
@@ -471,9 +633,22 @@ public final class Coerce2 {
      * @return The double[], if available
      */
     public static Optional<double[]> asDoubleArray(Object obj) {
+        obj = Coerce2.unwrap(obj);
         if (obj instanceof double[]) {
             return Optional.of((double[]) obj); // fast path
         }
+        if (obj instanceof MemoryDataList) {
+            double[] doubles = ((MemoryDataList) obj).toDoubleArray();
+            if (doubles != null) {
+                return Optional.of(doubles); // fast path, no boxing
+            }
+        }
+        if (obj instanceof FrozenDataList) {
+            double[] doubles = ((FrozenDataList) obj).toDoubleArray();
+            if (doubles != null) {
+                return Optional.of(doubles); // fast path, no boxing
+            }
+        }
 
         Optional<NumArray> numsOpt = wrapNumArray(obj);
         if (numsOpt.isPresent()) {
@@ -507,25 +682,59 @@ public final class Coerce2 {
         return Optional.empty();
     }
 
+    /**
+     * Gets the given object as a {@link DataList}.
+     *
+     * <p>Array Allowed Types are copied into a new list made by {@code create}, replacing
+     * the array in the parent.</p>
+     *
+     * @param obj The object to translate
+     * @param key The key of the object in its parent
+     * @param create Creates an empty list at {@code key} in the parent
+     * @param <K> The key type
+     * @return The list, if available
+     */
     public static <K> Optional<DataList> asDataList(Object obj, K key, Function<K, DataList> create) {
         if (obj instanceof DataList) {
             return Optional.of((DataList) obj);
-        } else if (obj instanceof String) {
-            String str = (String) obj;
-
+        } else if (DataType.of(obj).isPrimitiveArray()) {
             DataList list = create.apply(key);
-            for (int i = 0; i < str.length(); i++) {
-                list.add(str.charAt(i));
+            if (obj instanceof String) {
+                String str = (String) obj;
+                for (int i = 0; i < str.length(); i++) {
+                    list.add(str.charAt(i));
+                }
+            } else {
+                int len = Array.getLength(obj);
+                for (int i = 0; i < len; i++) {
+                    list.add(Array.get(obj, i));
+                }
             }
             return Optional.of(list);
-        } else if (obj.getClass().isArray()) {
-            int len = Array.getLength(obj);
+        }
 
-            DataList list = create.apply(key);
-            for (int i = 0; i < len; i++) {
-                list.add(Array.get(obj, i));
-            }
-            return Optional.of(list);
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the given object as a {@link DataList}.
+     *
+     * <p>Array Allowed Types are wrapped in a read-through view. The first time the view
+     * is modified {@code create} is used to replace the array with a real list. Views of the
+     * same array use {@code lookup} to find that list, so they all modify the same one.</p>
+     *
+     * @param obj The object to translate
+     * @param key The key of the object in its parent
+     * @param lookup Gets whatever the parent currently holds at {@code key}
+     * @param create Creates an empty list at {@code key} in the parent
+     * @param <K> The key type
+     * @return The list, if available
+     */
+    public static <K> Optional<DataList> asDataList(Object obj, K key, Function<K, Object> lookup, Function<K, DataList> create) {
+        if (obj instanceof DataList) {
+            return Optional.of((DataList) obj);
+        } else if (DataType.of(obj).isPrimitiveArray()) {
+            return Optional.of(new ArrayDataList(obj, () -> lookup.apply(key), () -> create.apply(key)));
         }
 
         return Optional.empty();
@@ -544,52 +753,106 @@ public final class Coerce2 {
      */
     @SuppressWarnings("unchecked") // everything should be safe
     public static <T> Optional<T> asObject(Object obj, Class<T> type) {
-        if (type == DataMap.class && obj instanceof DataMap) {
-            return Optional.of((T) obj);
-        } else if (type == DataList.class && obj instanceof DataList) {
-            return Optional.of((T) obj);
-        } else if (type == Boolean.class) {
-            return (Optional<T>) Coerce2.asBoolean(obj);
-        } else if (type == Byte.class) {
-            return (Optional<T>) Coerce2.asByte(obj);
-        } else if (type == Character.class) {
-            return (Optional<T>) Coerce2.asChar(obj);
-        } else if (type == Short.class) {
-            return (Optional<T>) Coerce2.asShort(obj);
-        } else if (type == Integer.class) {
-            return (Optional<T>) Coerce2.asInteger(obj);
-        } else if (type == Long.class) {
-            return (Optional<T>) Coerce2.asLong(obj);
-        } else if (type == Float.class) {
-            return (Optional<T>) Coerce2.asFloat(obj);
-        } else if (type == Double.class) {
-            return (Optional<T>) Coerce2.asDouble(obj);
-        } else if (type == boolean[].class) {
-            return (Optional<T>) Coerce2.asBooleanArray(obj);
-        } else if (type == byte[].class) {
-            return (Optional<T>) Coerce2.asByteArray(obj);
-        } else if (type == String.class) {
-            return (Optional<T>) Coerce2.asString(obj);
-        } else if (type == short[].class) {
-            return (Optional<T>) Coerce2.asShortArray(obj);
-        } else if (type == int[].class) {
-            return (Optional<T>) Coerce2.asIntArray(obj);
-        } else if (type == long[].class) {
-            return (Optional<T>) Coerce2.asLongArray(obj);
-        } else if (type == float[].class) {
-            return (Optional<T>) Coerce2.asFloatArray(obj);
-        } else if (type == double[].class) {
-            return (Optional<T>) Coerce2.asDoubleArray(obj);
-        }
-
-        if (Enum.class.isAssignableFrom(type)) {
-            return Coerce2.asString(obj).map(s -> (T) Enum.valueOf((Class<? extends Enum>) type, s));
+        switch (DataType.of(type)) {
+            case DATA_MAP:
+                return type == DataMap.class && obj instanceof DataMap ? Optional.of((T) obj) : Optional.empty();
+            case DATA_LIST:
+                return type == DataList.class && obj instanceof DataList ? Optional.of((T) obj) : Optional.empty();
+            case BOOLEAN:
+                return (Optional<T>) Coerce2.asBoolean(obj);
+            case BYTE:
+                return (Optional<T>) Coerce2.asByte(obj);
+            case CHARACTER:
+                return (Optional<T>) Coerce2.asChar(obj);
+            case SHORT:
+                return (Optional<T>) Coerce2.asShort(obj);
+            case INTEGER:
+                return (Optional<T>) Coerce2.asInteger(obj);
+            case LONG:
+                return (Optional<T>) Coerce2.asLong(obj);
+            case FLOAT:
+                return (Optional<T>) Coerce2.asFloat(obj);
+            case DOUBLE:
+                return (Optional<T>) Coerce2.asDouble(obj);
+            case BOOLEAN_ARRAY:
+                return (Optional<T>) Coerce2.asBooleanArray(obj);
+            case BYTE_ARRAY:
+                return (Optional<T>) Coerce2.asByteArray(obj);
+            case STRING:
+                return (Optional<T>) Coerce2.asString(obj);
+            case SHORT_ARRAY:
+                return (Optional<T>) Coerce2.asShortArray(obj);
+            case INT_ARRAY:
+                return (Optional<T>) Coerce2.asIntArray(obj);
+            case LONG_ARRAY:
+                return (Optional<T>) Coerce2.asLongArray(obj);
+            case FLOAT_ARRAY:
+                return (Optional<T>) Coerce2.asFloatArray(obj);
+            case DOUBLE_ARRAY:
+                return (Optional<T>) Coerce2.asDoubleArray(obj);
+            default:
+                // usually ENUM, but an enum could be classified as something else first (like SERIALIZABLE)
+                if (Enum.class.isAssignableFrom(type)) {
+                    return Coerce2.asString(obj).map(s -> (T) Enum.valueOf((Class<? extends Enum>) type, s));
+                }
+                return Optional.empty();
         }
-        return Optional.empty();
     }
 
-    private static String sanitiseNumber(Object obj) {
-        return obj.toString().trim();
+    /**
+     * Looks through an {@link ArrayDataList} view to whatever is behind it.
+     */
+    private static Object unwrap(Object obj) {
+        return obj instanceof ArrayDataList ? ((ArrayDataList) obj).unwrap() : obj;
+    }
+
+    /**
+     * Gets the text of an object without copying it if it is already text.
+     */
+    private static CharSequence chars(Object obj) {
+        return obj instanceof CharSequence ? (CharSequence) obj : obj.toString();
+    }
+
+    /**
+     * Parses a boolean keyword or number.
+     *
+     * @return 1 for true, 0 for false, -1 if the text is not a boolean
+     */
+    private static int parseBoolean(CharSequence str) {
+        int start = NumberScanner.trimStart(str);
+        int end = NumberScanner.trimEnd(str, start);
+        // keywords first, they are cheaper to reject than a number
+        if (Coerce2.isWord(str, start, end, "true")
+                || Coerce2.isWord(str, start, end, "yes")
+                || Coerce2.isWord(str, start, end, "t")
+                || Coerce2.isWord(str, start, end, "y")) {
+            return 1;
+        }
+        if (Coerce2.isWord(str, start, end, "false")
+                || Coerce2.isWord(str, start, end, "no")
+                || Coerce2.isWord(str, start, end, "f")
+                || Coerce2.isWord(str, start, end, "n")) {
+            return 0;
+        }
+        if (NumberScanner.scan(str) != NumberScanner.INVALID) {
+            return (int) NumberScanner.toDouble(str) != 0 ? 1 : 0; // 0 = false, anything else = true (just like C)
+        }
+        return -1;
+    }
+
+    /**
+     * Case insensitive match of a lower case ASCII word against a region of text.
+     */
+    private static boolean isWord(CharSequence str, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(str.charAt(start + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
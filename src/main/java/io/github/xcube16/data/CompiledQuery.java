@@ -0,0 +1,249 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataQuery} prepared for fast repeated reads.
+ *
+ * <p>List indices are parsed once up front, and the tree is walked with
+ * {@link DataView#getOrNull(Object)} so no {@link Optional}s or boxed indices
+ * are created on the way down. The primitive getters read the last element
+ * without boxing it when the holder is a {@link DataList}.</p>
+ *
+ * <p>Compiled queries are immutable and can be shared between threads. Get one with
+ * {@link DataQuery#compile()}, which caches it on the query.</p>
+ */
+public final class CompiledQuery {
+
+    private final DataQuery query;
+    private final String[] keys;
+
+    /**
+     * Pre-parsed list indices of {@link #keys}, {@code -1} if a key is not an index.
+     */
+    private final int[] indices;
+
+    CompiledQuery(DataQuery query) {
+        List<String> parts = query.getParts();
+        this.query = query;
+        this.keys = parts.toArray(new String[parts.size()]);
+        this.indices = new int[this.keys.length];
+        for (int i = 0; i < this.keys.length; i++) {
+            this.indices[i] = AbstractDataList.parseIndex(this.keys[i]);
+        }
+    }
+
+    /**
+     * Gets the query this was compiled from.
+     *
+     * @return The query
+     */
+    public DataQuery getQuery() {
+        return this.query;
+    }
+
+    /**
+     * Gets the value at this query in {@code root}, or null if there is none.
+     * The empty query resolves to {@code root} itself.
+     *
+     * @param root The view to start at
+     * @return The value, or null
+     */
+    @Nullable
+    public Object getOrNull(DataView<?> root) {
+        checkNotNull(root, "root");
+        if (this.keys.length == 0) {
+            return root;
+        }
+        DataView<?> holder = this.holder(root);
+        return holder == null ? null : this.step(holder, this.keys.length - 1);
+    }
+
+    /**
+     * Gets the value at this query in {@code root}, if available.
+     *
+     * @param root The view to start at
+     * @return The value, if available
+     */
+    public Optional<Object> get(DataView<?> root) {
+        return Optional.ofNullable(this.getOrNull(root));
+    }
+
+    /**
+     * Gets a boolean at this query in {@code root}, or {@code def} if not available.
+     *
+     * @param root The view to start at
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The boolean
+     */
+    public boolean getBoolean(DataView<?> root, boolean def) {
+        return Coerce2.asBoolean(this.getOrNull(root), def);
+    }
+
+    /**
+     * Gets an int at this query in {@code root}, or {@code def} if not available.
+     *
+     * @param root The view to start at
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The int
+     */
+    public int getInt(DataView<?> root, int def) {
+        checkNotNull(root, "root");
+        int last = this.keys.length - 1;
+        DataView<?> holder = last < 0 ? null : this.holder(root);
+        DataList list = asList(holder);
+        if (list != null) {
+            return this.indices[last] < 0 ? def : list.getInt(this.indices[last], def);
+        }
+        return holder == null ? def : Coerce2.asInt(this.step(holder, last), def);
+    }
+
+    /**
+     * Gets a long at this query in {@code root}, or {@code def} if not available.
+     *
+     * @param root The view to start at
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The long
+     */
+    public long getLong(DataView<?> root, long def) {
+        checkNotNull(root, "root");
+        int last = this.keys.length - 1;
+        DataView<?> holder = last < 0 ? null : this.holder(root);
+        DataList list = asList(holder);
+        if (list != null) {
+            return this.indices[last] < 0 ? def : list.getLong(this.indices[last], def);
+        }
+        return holder == null ? def : Coerce2.asLong(this.step(holder, last), def);
+    }
+
+    /**
+     * Gets a double at this query in {@code root}, or {@code def} if not available.
+     *
+     * @param root The view to start at
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The double
+     */
+    public double getDouble(DataView<?> root, double def) {
+        checkNotNull(root, "root");
+        int last = this.keys.length - 1;
+        DataView<?> holder = last < 0 ? null : this.holder(root);
+        DataList list = asList(holder);
+        if (list != null) {
+            return this.indices[last] < 0 ? def : list.getDouble(this.indices[last], def);
+        }
+        return holder == null ? def : Coerce2.asDouble(this.step(holder, last), def);
+    }
+
+    /**
+     * Gets a {@link String} at this query in {@code root}, if available.
+     *
+     * @param root The view to start at
+     * @return The string, if available
+     */
+    public Optional<String> getString(DataView<?> root) {
+        Object value = this.getOrNull(root);
+        return value == null ? Optional.empty() : Coerce2.asString(value);
+    }
+
+    /**
+     * Walks down to the view holding the last key.
+     */
+    @Nullable
+    private DataView<?> holder(DataView<?> root) {
+        DataView<?> view = root;
+        for (int i = 0; i < this.keys.length - 1; i++) {
+            Object next = this.step(view, i);
+            if (!(next instanceof DataView)) {
+                return null;
+            }
+            view = (DataView<?>) next;
+        }
+        return view;
+    }
+
+    @Nullable
+    private Object step(DataView<?> view, int i) {
+        return step(view, this.keys[i], this.indices[i]);
+    }
+
+    /**
+     * Gets the value at {@code key} in {@code view}, {@code index} is the key pre-parsed
+     * with {@link AbstractDataList#parseIndex(String)}.
+     */
+    @Nullable
+    static Object step(DataView<?> view, String key, int index) {
+        // check and cast to the abstract classes first, that is a constant time check while
+        // flipping between interfaces keeps missing the JVM's per class lookup cache
+        if (view instanceof AbstractDataMap) {
+            return ((AbstractDataMap) view).getOrNull(key);
+        } else if (view instanceof AbstractDataList) {
+            return index < 0 ? null : ((AbstractDataList) view).getOrNull(index);
+        } else if (view instanceof DataList) {
+            return index < 0 ? null : ((DataList) view).getOrNull(index);
+        }
+        return getOrNull(view, key);
+    }
+
+    /**
+     * Gets the holder as a list if it is one, so the last element can be read without boxing.
+     */
+    @Nullable
+    private static DataList asList(@Nullable DataView<?> holder) {
+        if (holder instanceof AbstractDataList) {
+            return (AbstractDataList) holder;
+        }
+        return holder instanceof AbstractDataMap || !(holder instanceof DataList) ? null : (DataList) holder;
+    }
+
+    @Nullable
+    private static <K> Object getOrNull(DataView<K> view, String key) {
+        return view.getOrNull(view.key(key));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.query.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof CompiledQuery && this.query.equals(((CompiledQuery) obj).query);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("query", this.query)
+                .toString();
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A thread safe, copy-on-write {@link DataList}.
+ *
+ * <p>Reads never lock and see a consistent snapshot of the list, writes take a lock
+ * and copy the backing array, so they are O(n). This suits lists that are read far more
+ * often than they are changed. See {@link ConcurrentDataMap} for how nested structures
+ * are handled.</p>
+ */
+public class ConcurrentDataList extends AbstractDataList {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Object[] array = EMPTY;
+
+    public ConcurrentDataList() {}
+
+    @Override
+    public int size() {
+        return this.array.length;
+    }
+
+    @Override
+    public Spliterator<Object> spliterator() {
+        // streams see the snapshot the list had when they were created
+        Object[] array = this.array;
+        return Spliterators.spliterator(array, 0, array.length, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+
+        return Optional.ofNullable(this.getOrNull((int) key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        Object[] array = this.array;
+        return index >= 0 && index < array.length ? array[index] : null;
+    }
+
+    @Override
+    public DataList set(Integer key, Object value) {
+        checkNotNull(key, "key");
+        checkNotNull(value, "value");
+
+        Object built = this.build(value);
+        if (built != null) {
+            this.setRaw(key, built);
+        }
+        return this;
+    }
+
+    @Override
+    public DataList add(Object value) {
+        checkNotNull(value, "value");
+
+        Object built = this.build(value);
+        if (built != null) {
+            this.addRaw(built);
+        }
+        return this;
+    }
+
+    @Nullable
+    private Object build(Object value) {
+        if (DataType.of(value).isRaw()) {
+            return value;
+        }
+        checkArgument(value != this, "Cannot insert self-referencing Objects!");
+        return ConcurrentDataMap.build(value);
+    }
+
+    @Override
+    protected synchronized void setRaw(Integer key, Object value) {
+        Object[] array = this.array;
+        if (key == array.length) {
+            this.addRaw(value);
+            return;
+        }
+        if (key < 0 || key >= array.length) {
+            throw new IndexOutOfBoundsException("Index: " + key + ", Size: " + array.length);
+        }
+        array = array.clone();
+        array[key] = value;
+        this.array = array;
+    }
+
+    @Override
+    protected synchronized void addRaw(Object value) {
+        Object[] array = Arrays.copyOf(this.array, this.array.length + 1);
+        array[array.length - 1] = value;
+        this.array = array;
+    }
+
+    @Override
+    public synchronized DataList remove(Integer key) {
+        checkNotNull(key, "key");
+
+        Object[] array = this.array;
+        if (key >= 0 && key < array.length) {
+            Object[] removed = new Object[array.length - 1];
+            System.arraycopy(array, 0, removed, 0, key);
+            System.arraycopy(array, key + 1, removed, key, removed.length - key);
+            this.array = removed;
+        }
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        checkNotNull(key, "key");
+
+        DataMap result = new ConcurrentDataMap();
+        this.setRaw(key, result);
+        return result;
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        checkNotNull(key, "key");
+
+        DataList result = new ConcurrentDataList();
+        this.setRaw(key, result);
+        return result;
+    }
+
+    @Override
+    protected DataView<?> getOrCreateView(Integer key) {
+        Object value = this.getOrNull((int) key);
+        if (value instanceof DataView) {
+            return (DataView<?>) value;
+        }
+        synchronized (this) {
+            value = this.getOrNull((int) key);
+            if (value instanceof DataView) {
+                return (DataView<?>) value;
+            }
+            DataMap result = new ConcurrentDataMap();
+            this.setRaw(key, result);
+            return result;
+        }
+    }
+
+    @Override
+    public DataMap addMap() {
+        DataMap result = new ConcurrentDataMap();
+        this.addRaw(result);
+        return result;
+    }
+
+    @Override
+    public DataList addList() {
+        DataList result = new ConcurrentDataList();
+        this.addRaw(result);
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.array.length == 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.array = EMPTY;
+    }
+
+    @Override
+    public int hashCode() {
+        // same result as List.hashCode(), except that arrays are hashed by content
+        Object[] array = this.array;
+        int hash = 1;
+        for (Object element : array) {
+            hash = 31 * hash + valueHash(element);
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ConcurrentDataList other = (ConcurrentDataList) obj;
+
+        Object[] array = this.array;
+        Object[] otherArray = other.array;
+        if (array.length != otherArray.length) {
+            return false;
+        }
+        for (int i = 0; i < array.length; i++) {
+            if (!valueEquals(array[i], otherArray[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        return helper.add("list", Arrays.toString(this.array)).toString();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A thread safe {@link DataMap} backed by a {@link ConcurrentHashMap}.
+ *
+ * <p>Reads never lock. Maps and lists created inside of it are a {@link ConcurrentDataMap}
+ * and {@link ConcurrentDataList}. Maps, lists and other structures passed to
+ * {@link #set(String, Object)} are copied off to the side first, so other threads
+ * never see them half filled.</p>
+ *
+ * <p>The iteration order of the keys is unspecified, and iteration is weakly consistent:
+ * it never throws {@link java.util.ConcurrentModificationException} and reflects some,
+ * all or none of the changes made while iterating.</p>
+ */
+public class ConcurrentDataMap extends AbstractDataMap {
+
+    private static final String STAGING_KEY = "";
+
+    private final ConcurrentHashMap<String, Object> map = new ConcurrentHashMap<>();
+
+    public ConcurrentDataMap() {}
+
+    @Override
+    public int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return this.map.keySet();
+    }
+
+    @Override
+    public Spliterator<Map.Entry<String, Object>> spliterator() {
+        return DataSpliterators.entries(this.map.entrySet().spliterator());
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> consumer) {
+        this.map.keySet().forEach(consumer);
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        checkNotNull(key, "key");
+
+        return Optional.ofNullable(this.map.get(key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(String key) {
+        checkNotNull(key, "key");
+
+        return this.map.get(key);
+    }
+
+    @Override
+    public DataMap set(String key, Object value) {
+        checkNotNull(key, "key");
+        checkNotNull(value, "value");
+
+        if (DataType.of(value).isRaw()) {
+            this.setRaw(key, value);
+        } else {
+            checkArgument(value != this, "Cannot insert self-referencing Objects!");
+            Object built = ConcurrentDataMap.build(value);
+            if (built != null) {
+                this.setRaw(key, built);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected void setRaw(String key, Object value) {
+        this.map.put(key, value);
+    }
+
+    /**
+     * Turns a value that is not a Primitive or Array Allowed Type into what a concurrent view
+     * would store for it, without publishing anything.
+     *
+     * @return The value to store, or null if there is nothing to store (an empty {@link DataValue})
+     */
+    @Nullable
+    static Object build(Object value) {
+        ConcurrentDataMap staging = new ConcurrentDataMap();
+        staging.stage(value);
+        Object built = staging.map.get(STAGING_KEY);
+        if (built instanceof DataView && !(built instanceof ConcurrentDataMap || built instanceof ConcurrentDataList)) {
+            // a DataSerializable serializes into memory views, copy them into concurrent ones
+            return ConcurrentDataMap.build(built);
+        }
+        return built;
+    }
+
+    private void stage(Object value) {
+        super.set(STAGING_KEY, value);
+    }
+
+    @Override
+    public DataMap remove(String key) {
+        checkNotNull(key, "key");
+
+        this.map.remove(key);
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(String key) {
+        checkNotNull(key, "key");
+
+        DataMap result = new ConcurrentDataMap();
+        this.setRaw(key, result);
+        return result;
+    }
+
+    @Override
+    public DataList createList(String key) {
+        checkNotNull(key, "key");
+
+        DataList result = new ConcurrentDataList();
+        this.setRaw(key, result);
+        return result;
+    }
+
+    @Override
+    protected DataView<?> getOrCreateView(String key) {
+        Object value = this.map.get(key);
+        if (value instanceof DataView) {
+            return (DataView<?>) value;
+        }
+        return (DataView<?>) this.map.compute(key, (k, v) -> v instanceof DataView ? v : new ConcurrentDataMap());
+    }
+
+    @Override
+    public DataMap copy() {
+        ConcurrentDataMap copy = new ConcurrentDataMap();
+        this.map.forEach(copy::set);
+        return copy;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        this.map.clear();
+    }
+
+    @Override
+    public int hashCode() {
+        // same result as Map.hashCode(), except that arrays are hashed by content
+        int hash = 0;
+        for (Map.Entry<String, Object> entry : this.map.entrySet()) {
+            hash += entry.getKey().hashCode() ^ valueHash(entry.getValue());
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ConcurrentDataMap other = (ConcurrentDataMap) obj;
+
+        if (this.map.size() != other.map.size()) {
+            return false;
+        }
+        for (Map.Entry<String, Object> entry : this.map.entrySet()) {
+            Object value = other.map.get(entry.getKey());
+            if (value == null || !valueEquals(entry.getValue(), value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        return helper.add("map", this.map).toString();
+    }
+}
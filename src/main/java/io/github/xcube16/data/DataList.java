@@ -24,13 +24,24 @@
  */
 package io.github.xcube16.data;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@link DataView} that stores values like a {@link List}.
+ *
+ * <p>Array elements are hashed and compared by content, so lists holding
+ * equal arrays are equal.</p>
  */
 public interface DataList extends DataView<Integer> {
 
@@ -50,6 +61,32 @@ public interface DataList extends DataView<Integer> {
      */
     DataList add(Object element);
 
+    /**
+     * Attaches a detached {@link DataMap} or {@link DataList} to the end of the list without copying it.
+     *
+     * @param view The detached view
+     * @return This list, for chaining
+     * @throws IllegalArgumentException thrown when {@code view} is already part of another
+     *         {@link DataView}, or if {@code view} is this list or one of its parents
+     * @see DataView#adopt(Object, DataView)
+     */
+    default DataList adopt(DataView<?> view) {
+        return this.adopt(this.size(), view);
+    }
+
+    /**
+     * Creates an immutable snapshot of this {@link DataList} and everything in it.
+     *
+     * <p>The snapshot can be shared between threads without synchronization,
+     * trying to modify it throws {@link UnsupportedOperationException}.
+     * Freezing a frozen list returns the same list.</p>
+     *
+     * @return The frozen list
+     */
+    default DataList freeze() {
+        return FrozenDataList.of(this);
+    }
+
     /**
      * Creates a new {@link DataMap} and adds it to the end of the list.
      *
@@ -64,6 +101,125 @@ public interface DataList extends DataView<Integer> {
      */
     DataList addList();
 
+    /**
+     * Gets the element at {@code index}, or null if there is none.
+     *
+     * <p>Same as {@link #getOrNull(Object)}, but without boxing the index.</p>
+     *
+     * @param index The index of the element
+     * @return The element, or null
+     */
+    @Nullable
+    default Object getOrNull(int index) {
+        return this.getOrNull((Integer) index);
+    }
+
+    /**
+     * Gets an int at {@code index}, or {@code def} if not available.
+     *
+     * <p>Same as {@link #getInt(Object, int)}, but without boxing the index.</p>
+     *
+     * @param index The index of the element
+     * @param def The value to return if the element is absent or can not be coerced
+     * @return The int
+     */
+    default int getInt(int index, int def) {
+        return Coerce2.asInt(this.getOrNull(index), def);
+    }
+
+    /**
+     * Gets a long at {@code index}, or {@code def} if not available.
+     *
+     * <p>Same as {@link #getLong(Object, long)}, but without boxing the index.</p>
+     *
+     * @param index The index of the element
+     * @param def The value to return if the element is absent or can not be coerced
+     * @return The long
+     */
+    default long getLong(int index, long def) {
+        return Coerce2.asLong(this.getOrNull(index), def);
+    }
+
+    /**
+     * Gets a double at {@code index}, or {@code def} if not available.
+     *
+     * <p>Same as {@link #getDouble(Object, double)}, but without boxing the index.</p>
+     *
+     * @param index The index of the element
+     * @param def The value to return if the element is absent or can not be coerced
+     * @return The double
+     */
+    default double getDouble(int index, double def) {
+        return Coerce2.asDouble(this.getOrNull(index), def);
+    }
+
+    /**
+     * Creates a {@link Spliterator} over the elements of this list.
+     *
+     * <p>The spliterator is {@link Spliterator#ORDERED}, {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED} and {@link Spliterator#NONNULL}, and splits in half,
+     * so parallel streams divide the list evenly. The list must not be changed while
+     * the spliterator is in use.</p>
+     *
+     * @return The spliterator
+     */
+    default Spliterator<Object> spliterator() {
+        return DataSpliterators.of(this);
+    }
+
+    /**
+     * Creates a sequential {@link Stream} of the elements of this list.
+     *
+     * @return The stream
+     * @see #spliterator()
+     */
+    default Stream<Object> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    /**
+     * Creates a parallel {@link Stream} of the elements of this list.
+     *
+     * @return The stream
+     * @see #spliterator()
+     */
+    default Stream<Object> parallelStream() {
+        return StreamSupport.stream(this.spliterator(), true);
+    }
+
+    /**
+     * Creates a sequential {@link IntStream} of the elements of this list, coerced like
+     * {@link #getIntOrThrow(Object)}. Use {@link IntStream#parallel()} to process it in parallel.
+     *
+     * @return The stream, it throws {@link NoSuchElementException} when it reaches an element
+     *         that can not be coerced into an int
+     */
+    default IntStream intStream() {
+        return StreamSupport.intStream(DataSpliterators.ints(this), false);
+    }
+
+    /**
+     * Creates a sequential {@link LongStream} of the elements of this list, coerced like
+     * {@link #getLongOrThrow(Object)}. Use {@link LongStream#parallel()} to process it in parallel.
+     *
+     * @return The stream, it throws {@link NoSuchElementException} when it reaches an element
+     *         that can not be coerced into a long
+     */
+    default LongStream longStream() {
+        return StreamSupport.longStream(DataSpliterators.longs(this), false);
+    }
+
+    /**
+     * Creates a sequential {@link DoubleStream} of the elements of this list, coerced like
+     * {@link #getDoubleOrThrow(Object)}. Use {@link DoubleStream#parallel()} to process it in parallel.
+     *
+     * @return The stream, it throws {@link NoSuchElementException} when it reaches an element
+     *         that can not be coerced into a double
+     */
+    default DoubleStream doubleStream() {
+        return StreamSupport.doubleStream(DataSpliterators.doubles(this), false);
+    }
+
     @Override
     DataList set(Integer index, Object element);
 
@@ -73,6 +229,11 @@ public interface DataList extends DataView<Integer> {
     @Override
     DataList remove(Integer index);
 
+    @Override
+    default DataList adopt(Integer index, DataView<?> view) {
+        return this.set(index, view);
+    }
+
     @Override
     DataList remove(DataQuery path);
 
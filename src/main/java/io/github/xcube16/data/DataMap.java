@@ -26,10 +26,16 @@ package io.github.xcube16.data;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@link DataView} that stores values like a {@link Map}.
+ *
+ * <p>Array values are hashed and compared by content, so maps holding
+ * equal arrays are equal.</p>
  */
 public interface DataMap extends DataView<String> {
 
@@ -52,6 +58,52 @@ public interface DataMap extends DataView<String> {
      */
     DataMap copy();
 
+    /**
+     * Creates an immutable snapshot of this {@link DataMap} and everything in it.
+     *
+     * <p>The snapshot can be shared between threads without synchronization,
+     * trying to modify it throws {@link UnsupportedOperationException}.
+     * Freezing a frozen map returns the same map.</p>
+     *
+     * @return The frozen map
+     */
+    default DataMap freeze() {
+        return FrozenDataMap.of(this);
+    }
+
+    /**
+     * Creates a {@link Spliterator} over the entries of this map.
+     *
+     * <p>The entries are snapshots, {@link Map.Entry#setValue(Object)} is not supported.
+     * The spliterator splits as well as the key set of the map does. Unless the map is
+     * a concurrent one it must not be changed while the spliterator is in use.</p>
+     *
+     * @return The spliterator
+     */
+    default Spliterator<Map.Entry<String, Object>> spliterator() {
+        return DataSpliterators.entries(this);
+    }
+
+    /**
+     * Creates a sequential {@link Stream} of the entries of this map.
+     *
+     * @return The stream
+     * @see #spliterator()
+     */
+    default Stream<Map.Entry<String, Object>> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    /**
+     * Creates a parallel {@link Stream} of the entries of this map.
+     *
+     * @return The stream
+     * @see #spliterator()
+     */
+    default Stream<Map.Entry<String, Object>> parallelStream() {
+        return StreamSupport.stream(this.spliterator(), true);
+    }
+
     @Override
     DataMap set(String key, Object element);
 
@@ -61,6 +113,11 @@ public interface DataMap extends DataView<String> {
     @Override
     DataMap remove(String key);
 
+    @Override
+    default DataMap adopt(String key, DataView<?> view) {
+        return this.set(key, view);
+    }
+
     @Override
     DataMap remove(DataQuery path);
 
@@ -25,57 +25,66 @@
 package io.github.xcube16.data;
 
 import com.google.common.base.Joiner;
-import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
+import javax.annotation.Nullable;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Represents a query that can be done on views. Queries do not depend on
  * their separator, it is just a way to construct them.
+ *
+ * <p>A query is stored as its last part plus a link to its parent query, so
+ * {@link #then(String)} and {@link #pop()} share everything but the last part
+ * and take constant time. The parts list is built on first use.</p>
  */
 public final class DataQuery {
 
     private static final DataQuery EMPTY = new DataQuery();
 
+    private static final Interner<DataQuery> INTERNER = Interners.newWeakInterner();
+
     /**
-     * The parts that make up this query.
+     * The query without the last part, null for the empty query.
      */
-    private final ImmutableList<String> parts;
-
-    private ImmutableList<DataQuery> queryParts; //lazy loaded
+    @Nullable
+    private final DataQuery parent;
 
     /**
-     * Constructs a query using the given separator character and path.
-     *
-     * <p>As an example, {@code new DataQuery('/', "a/b/c")} and
-     * {@code new DataQuery('.', "a.b.c")} represent the same path but are
-     * constructed using different separators.</p>
-     *
-     * @param separator The separator
-     * @param path The path
+     * The last part, null for the empty query.
      */
-    private DataQuery(char separator, String path) {
-        this(path.split(Pattern.quote(String.valueOf(separator))));
-    }
+    @Nullable
+    private final String part;
+
+    private final int size;
 
     /**
-     * Constructs a query using the given parts.
-     *
-     * @param parts The parts
+     * Same as {@link List#hashCode()} of the parts.
      */
-    private DataQuery(String... parts) {
-        this.parts = ImmutableList.copyOf(parts);
+    private final int hash;
+
+    private ImmutableList<String> parts; //lazy loaded
+
+    private CompiledQuery compiled; //lazy loaded
+
+    private DataQuery() {
+        this.parent = null;
+        this.part = null;
+        this.size = 0;
+        this.hash = 1;
     }
 
-    /**
-     * Constructs a query using the given parts.
-     *
-     * @param parts The parts
-     */
-    private DataQuery(List<String> parts) {
-        this.parts = ImmutableList.copyOf(parts);
+    private DataQuery(DataQuery parent, String part) {
+        this.parent = parent;
+        this.part = checkNotNull(part, "part");
+        this.size = parent.size + 1;
+        this.hash = 31 * parent.hash + part.hashCode();
     }
 
     /**
@@ -96,12 +105,34 @@ public final class DataQuery {
      * {@code new DataQuery('.', "a.b.c")} represent the same path but are
      * constructed using different separators.</p>
      *
+     * <p>The path is split like {@link String#split(String)} would, so empty parts
+     * are kept except at the end.</p>
+     *
      * @param separator The separator
      * @param path The path
      * @return The newly constructed {@link DataQuery}
      */
     public static DataQuery of(char separator, String path) {
-        return new DataQuery(separator, path);
+        int next = path.indexOf(separator);
+        if (next < 0) {
+            return new DataQuery(EMPTY, path);
+        }
+        int end = path.length();
+        while (end > 0 && path.charAt(end - 1) == separator) {
+            end--;
+        }
+
+        DataQuery query = EMPTY;
+        int start = 0;
+        while (start < end) {
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            query = new DataQuery(query, path.substring(start, next));
+            start = next + 1;
+            next = path.indexOf(separator, start);
+        }
+        return query;
     }
 
     /**
@@ -111,10 +142,11 @@ public final class DataQuery {
      * @return The newly constructed {@link DataQuery}
      */
     public static DataQuery of(String... parts) {
-        if (parts.length == 0) {
-            return DataQuery.EMPTY;
+        DataQuery query = EMPTY;
+        for (String part : parts) {
+            query = new DataQuery(query, part);
         }
-        return new DataQuery(parts);
+        return query;
     }
 
     /**
@@ -124,10 +156,11 @@ public final class DataQuery {
      * @return The newly constructed {@link DataQuery}
      */
     public static DataQuery of(List<String> parts) {
-        if (parts.isEmpty()) {
-            return DataQuery.EMPTY;
+        DataQuery query = EMPTY;
+        for (String part : parts) {
+            query = new DataQuery(query, part);
         }
-        return new DataQuery(parts);
+        return query;
     }
 
     /**
@@ -136,7 +169,25 @@ public final class DataQuery {
      * @return The parts of this query
      */
     public List<String> getParts() {
-        return this.parts;
+        ImmutableList<String> parts = this.parts;
+        if (parts == null) {
+            String[] array = new String[this.size];
+            for (DataQuery query = this; query.parent != null; query = query.parent) {
+                array[query.size - 1] = query.part;
+            }
+            parts = ImmutableList.copyOf(array);
+            this.parts = parts;
+        }
+        return parts;
+    }
+
+    /**
+     * Gets the number of parts in this query.
+     *
+     * @return The number of parts
+     */
+    public int size() {
+        return this.size;
     }
 
     /**
@@ -147,13 +198,14 @@ public final class DataQuery {
      * @return The constructed query
      */
     public DataQuery then(DataQuery that) {
-        ImmutableList.Builder<String> builder =
-            new ImmutableList.Builder<>();
-
-        builder.addAll(this.parts);
-        builder.addAll(that.parts);
-
-        return new DataQuery(builder.build());
+        if (this.size == 0) {
+            return that;
+        }
+        DataQuery query = this;
+        for (String part : that.getParts()) {
+            query = new DataQuery(query, part);
+        }
+        return query;
     }
 
     /**
@@ -164,30 +216,30 @@ public final class DataQuery {
      * @return The constructed query
      */
     public DataQuery then(String that) {
-        ImmutableList.Builder<String> builder =
-            new ImmutableList.Builder<>();
-
-        builder.addAll(this.parts);
-        builder.add(that);
-
-        return new DataQuery(builder.build());
+        return new DataQuery(this, that);
     }
 
     /**
      * Returns the parts of this query as individual queries. The returned list
-     * is immutable.
+     * is immutable, the queries are created as they are requested.
      *
      * @return The constructed queries
      */
     public List<DataQuery> getQueryParts() {
-        if (this.queryParts == null) {
-            ImmutableList.Builder<DataQuery> builder = ImmutableList.builder();
-            for (String part : getParts()) {
-                builder.add(new DataQuery(part));
+        List<String> parts = this.getParts();
+        return new AbstractList<DataQuery>() {
+
+            @Override
+            public DataQuery get(int index) {
+                checkElementIndex(index, parts.size());
+                return new DataQuery(EMPTY, parts.get(index));
             }
-            this.queryParts = builder.build();
-        }
-        return this.queryParts;
+
+            @Override
+            public int size() {
+                return parts.size();
+            }
+        };
     }
 
     /**
@@ -198,14 +250,7 @@ public final class DataQuery {
      * @return The next level query
      */
     public DataQuery pop() {
-        if (this.parts.size() <= 1) {
-            return of();
-        }
-        ImmutableList.Builder<String> builder = ImmutableList.builder();
-        for (int i = 0; i < this.parts.size() - 1; i++) {
-            builder.add(this.parts.get(i));
-        }
-        return new DataQuery(builder.build());
+        return this.parent == null ? EMPTY : this.parent;
     }
 
     /**
@@ -213,17 +258,16 @@ public final class DataQuery {
      * query is already the top level query, then the {@link DataQuery#of()} is
      * returned.
      *
+     * <p>Unlike {@link #pop()} this has to rebuild the query.</p>
+     *
      * @return The next level query
      */
     public DataQuery popFirst() {
-        if (this.parts.size() <= 1) {
-            return of();
+        if (this.size <= 1) {
+            return EMPTY;
         }
-        ImmutableList.Builder<String> builder = ImmutableList.builder();
-        for (int i = 1; i < this.parts.size(); i++) {
-            builder.add(this.parts.get(i));
-        }
-        return new DataQuery(builder.build());
+        List<String> parts = this.getParts();
+        return of(parts.subList(1, parts.size()));
     }
 
     /**
@@ -233,10 +277,38 @@ public final class DataQuery {
      * @return The last entry as a data query, if not already last
      */
     public DataQuery last() {
-        if (this.parts.size() <= 1) {
+        if (this.size <= 1) {
             return this;
         }
-        return new DataQuery(this.parts.get(this.parts.size() - 1));
+        return new DataQuery(EMPTY, this.part);
+    }
+
+    /**
+     * Gets the canonical instance of this query. Equal queries intern to the same
+     * instance, so its {@link #compile() compiled form} is shared as well and
+     * equality checks against it are identity checks. Interned queries are held
+     * weakly and are dropped once they are no longer used.
+     *
+     * @return The canonical instance
+     */
+    public DataQuery intern() {
+        return this.size == 0 ? EMPTY : INTERNER.intern(this);
+    }
+
+    /**
+     * Gets this query prepared for fast repeated reads. The result is cached, so
+     * keeping a query in a constant and calling this each time is cheap.
+     *
+     * @return The compiled query
+     */
+    public CompiledQuery compile() {
+        CompiledQuery compiled = this.compiled;
+        if (compiled == null) {
+            // racing threads build equal objects, any of them will do
+            compiled = new CompiledQuery(this);
+            this.compiled = compiled;
+        }
+        return compiled;
     }
 
     /**
@@ -246,7 +318,7 @@ public final class DataQuery {
      * @return This query as a string
      */
     public String asString(String separator) {
-        return Joiner.on(separator).join(this.parts);
+        return Joiner.on(separator).join(this.getParts());
     }
 
     /**
@@ -266,7 +338,7 @@ public final class DataQuery {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.parts);
+        return this.hash;
     }
 
     @Override
@@ -277,7 +349,16 @@ public final class DataQuery {
         if (obj == null || getClass() != obj.getClass()) {
             return false;
         }
-        final DataQuery other = (DataQuery) obj;
-        return Objects.equal(this.parts, other.parts);
+        DataQuery other = (DataQuery) obj;
+        if (this.size != other.size || this.hash != other.hash) {
+            return false;
+        }
+        // walk up until the queries share a parent
+        for (DataQuery a = this, b = other; a != b; a = a.parent, b = b.parent) {
+            if (!a.part.equals(b.part)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,601 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Selects values from a {@link DataView} with a path that may contain wildcards and conditions.
+ *
+ * <p>A selector is a list of parts separated by {@code '.'}:</p>
+ * <ul>
+ *     <li>{@code name} - the value at that key, or at that index in a list</li>
+ *     <li>{@code *} - every value in a map or list</li>
+ *     <li>{@code **} - the current value and everything below it, at any depth</li>
+ * </ul>
+ *
+ * <p>{@code name} and {@code *} can be followed by conditions in brackets, a value is only
+ * selected if it passes all of them. A condition is a path inside the value, optionally
+ * followed by {@code =}, {@code !=}, {@code <}, {@code <=}, {@code >} or {@code >=} and a literal.
+ * Without an operator the path just has to exist. An empty path tests the value itself.
+ * {@code =} and {@code !=} compare numerically if both sides are numbers and as strings
+ * otherwise, the other operators only compare numbers. Missing values fail every condition.</p>
+ *
+ * <pre>
+ *   entities.*[type=zombie].pos
+ *   **.*[hp&lt;10].name
+ *   scores.*[&gt;=100]
+ * </pre>
+ *
+ * <p>Results are found lazily, in depth first order, while the returned {@link Stream}
+ * or {@link Spliterator} is consumed. Nothing is collected up front and the spliterator
+ * splits the remaining work for parallel streams. The view must not be modified while
+ * it is being selected from. Selectors are immutable and can be shared between threads.</p>
+ */
+public final class DataSelector {
+
+    private final String expression;
+    private final Step[] steps;
+
+    private DataSelector(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * Parses a selector.
+     *
+     * @param expression The selector, see {@link DataSelector}
+     * @return The selector
+     * @throws IllegalArgumentException If the expression is malformed
+     */
+    public static DataSelector parse(String expression) {
+        checkNotNull(expression, "expression");
+        List<Step> steps = new ArrayList<>();
+        int length = expression.length();
+        int i = 0;
+        while (i < length) {
+            int start = i;
+            while (i < length && expression.charAt(i) != '.' && expression.charAt(i) != '[') {
+                i++;
+            }
+            String name = expression.substring(start, i);
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty part at " + start + " in " + expression);
+            }
+
+            List<Condition> conditions = new ArrayList<>();
+            while (i < length && expression.charAt(i) == '[') {
+                int close = expression.indexOf(']', i);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed '[' at " + i + " in " + expression);
+                }
+                conditions.add(Condition.parse(expression.substring(i + 1, close)));
+                i = close + 1;
+            }
+            if (name.equals("**") && !conditions.isEmpty()) {
+                throw new IllegalArgumentException("'**' can not have conditions in " + expression);
+            }
+            steps.add(new Step(name, conditions.toArray(new Condition[conditions.size()])));
+
+            if (i < length) {
+                if (expression.charAt(i) != '.') {
+                    throw new IllegalArgumentException("Expected '.' at " + i + " in " + expression);
+                }
+                if (++i == length) {
+                    throw new IllegalArgumentException("Empty part at " + i + " in " + expression);
+                }
+            }
+        }
+        return new DataSelector(expression, steps.toArray(new Step[steps.size()]));
+    }
+
+    /**
+     * Selects the matching values from {@code root}. Call {@link Stream#parallel()}
+     * on the result to search in parallel.
+     *
+     * @param root The view to select from
+     * @return The matching values
+     */
+    public Stream<Object> select(DataView<?> root) {
+        return StreamSupport.stream(this.spliterator(root), false);
+    }
+
+    /**
+     * Selects the matching values from {@code root}.
+     *
+     * @param root The view to select from
+     * @return A spliterator over the matching values
+     */
+    public Spliterator<Object> spliterator(DataView<?> root) {
+        checkNotNull(root, "root");
+        return new Walker(this.steps, root);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.expression.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof DataSelector && this.expression.equals(((DataSelector) obj).expression);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("expression", this.expression)
+                .toString();
+    }
+
+    private enum Kind {
+        KEY,
+        ANY,
+        DESCENT
+    }
+
+    private static final class Step {
+
+        final Kind kind;
+        final String key;
+        final int index;
+        final Condition[] conditions;
+
+        Step(String name, Condition[] conditions) {
+            this.kind = name.equals("**") ? Kind.DESCENT : name.equals("*") ? Kind.ANY : Kind.KEY;
+            this.key = name;
+            this.index = AbstractDataList.parseIndex(name);
+            this.conditions = conditions;
+        }
+
+        boolean test(Object value) {
+            for (Condition condition : this.conditions) {
+                if (!condition.test(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private enum Operator {
+        EXISTS,
+        EQUAL,
+        NOT_EQUAL,
+        LESS,
+        LESS_OR_EQUAL,
+        GREATER,
+        GREATER_OR_EQUAL
+    }
+
+    private static final class Condition {
+
+        /**
+         * The path inside the tested value, null to test the value itself
+         */
+        @Nullable final CompiledQuery path;
+        final Operator operator;
+        final String literal;
+        final double number;
+
+        private Condition(@Nullable CompiledQuery path, Operator operator, String literal) {
+            this.path = path;
+            this.operator = operator;
+            this.literal = literal;
+            this.number = Coerce2.asDouble(literal, Double.NaN);
+        }
+
+        static Condition parse(String text) {
+            int at = 0;
+            while (at < text.length() && "=!<>".indexOf(text.charAt(at)) < 0) {
+                at++;
+            }
+            String path = text.substring(0, at).trim();
+            CompiledQuery query = path.isEmpty() ? null : DataQuery.of('.', path).compile();
+            if (at == text.length()) {
+                if (query == null) {
+                    throw new IllegalArgumentException("Empty condition");
+                }
+                return new Condition(query, Operator.EXISTS, "");
+            }
+
+            Operator operator;
+            boolean equals = at + 1 < text.length() && text.charAt(at + 1) == '=';
+            switch (text.charAt(at)) {
+                case '=':
+                    operator = Operator.EQUAL;
+                    break;
+                case '!':
+                    if (!equals) {
+                        throw new IllegalArgumentException("Expected '!=' in [" + text + "]");
+                    }
+                    operator = Operator.NOT_EQUAL;
+                    break;
+                case '<':
+                    operator = equals ? Operator.LESS_OR_EQUAL : Operator.LESS;
+                    break;
+                default:
+                    operator = equals ? Operator.GREATER_OR_EQUAL : Operator.GREATER;
+            }
+            int skip = operator == Operator.EQUAL || operator == Operator.LESS || operator == Operator.GREATER ? 1 : 2;
+            String literal = text.substring(at + skip).trim();
+            if (literal.length() >= 2 && (literal.charAt(0) == '"' || literal.charAt(0) == '\'')
+                    && literal.charAt(literal.length() - 1) == literal.charAt(0)) {
+                literal = literal.substring(1, literal.length() - 1);
+            }
+            return new Condition(query, operator, literal);
+        }
+
+        boolean test(Object candidate) {
+            Object value;
+            if (this.path == null) {
+                value = candidate;
+            } else {
+                value = candidate instanceof DataView ? this.path.getOrNull((DataView<?>) candidate) : null;
+            }
+            if (value == null) {
+                return false;
+            }
+
+            switch (this.operator) {
+                case EXISTS:
+                    return true;
+                case EQUAL:
+                    return this.matches(value);
+                case NOT_EQUAL:
+                    return !this.matches(value);
+                default:
+                    double number = Coerce2.asDouble(value, Double.NaN);
+                    if (Double.isNaN(number) || Double.isNaN(this.number)) {
+                        return false;
+                    }
+                    switch (this.operator) {
+                        case LESS:
+                            return number < this.number;
+                        case LESS_OR_EQUAL:
+                            return number <= this.number;
+                        case GREATER:
+                            return number > this.number;
+                        default:
+                            return number >= this.number;
+                    }
+            }
+        }
+
+        private boolean matches(Object value) {
+            if (value instanceof DataView) {
+                return false;
+            }
+            if (!Double.isNaN(this.number)) {
+                double number = Coerce2.asDouble(value, Double.NaN);
+                if (!Double.isNaN(number)) {
+                    return number == this.number;
+                }
+            }
+            return this.literal.equals(Coerce2.asString(value).orElse(null));
+        }
+    }
+
+    /**
+     * Walks the tree depth first. Values selected by a {@code *} or {@code **} are
+     * iterated by a {@link Frame} on the stack, exact keys are followed without one.
+     */
+    private static final class Walker implements Spliterator<Object> {
+
+        private final Step[] steps;
+        private final Deque<Frame> stack;
+        @Nullable private Object root;
+
+        /**
+         * A value that was found while splitting, it comes before everything on the stack.
+         */
+        @Nullable private Object pending;
+
+        Walker(Step[] steps, Object root) {
+            this.steps = steps;
+            this.stack = new ArrayDeque<>();
+            this.root = root;
+        }
+
+        private Walker(Step[] steps, Deque<Frame> stack, @Nullable Object pending) {
+            this.steps = steps;
+            this.stack = stack;
+            this.pending = pending;
+        }
+
+        /**
+         * Walks from the root until the first wildcard, so there is something to split.
+         */
+        private void start() {
+            Object root = this.root;
+            if (root != null) {
+                this.root = null;
+                this.walk(root, 0, value -> this.pending = value);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            this.start();
+            if (this.pending != null) {
+                action.accept(this.pending);
+                this.pending = null;
+                return true;
+            }
+            Frame frame;
+            while ((frame = this.stack.peek()) != null) {
+                if (!frame.hasNext()) {
+                    this.stack.pop();
+                    continue;
+                }
+                Object child = frame.next();
+                if (child == null) {
+                    continue; // removed by someone else, see ConcurrentDataMap
+                }
+                Step step = this.steps[frame.step];
+                if (step.kind == Kind.DESCENT) {
+                    if (this.walk(child, frame.step, action)) {
+                        return true;
+                    }
+                } else if (step.test(child) && this.walk(child, frame.step + 1, action)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Follows the steps from {@code value} until it is selected, or a wildcard pushes a frame.
+         *
+         * @return True if a value was passed to {@code action}
+         */
+        private boolean walk(Object value, int i, Consumer<? super Object> action) {
+            while (i < this.steps.length) {
+                Step step = this.steps[i];
+                switch (step.kind) {
+                    case KEY:
+                        if (!(value instanceof DataView)) {
+                            return false;
+                        }
+                        value = CompiledQuery.step((DataView<?>) value, step.key, step.index);
+                        if (value == null || !step.test(value)) {
+                            return false;
+                        }
+                        i++;
+                        break;
+                    case ANY:
+                        this.push(value, i);
+                        return false;
+                    default:
+                        // the children are walked later, the value itself (zero levels down) first
+                        this.push(value, i);
+                        i++;
+                }
+            }
+            action.accept(value);
+            return true;
+        }
+
+        private void push(Object value, int step) {
+            if (value instanceof AbstractDataList || !(value instanceof AbstractDataMap) && value instanceof DataList) {
+                DataList list = (DataList) value;
+                this.stack.push(new ListFrame(list, step, 0, list.size()));
+            } else if (value instanceof AbstractDataMap || value instanceof DataMap) {
+                DataMap map = (DataMap) value;
+                this.stack.push(new MapFrame(map, step, map.getKeys().iterator(), map.size()));
+            }
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<Object> trySplit() {
+            this.start();
+            // the bottom frame is walked last, everything above it comes first
+            Iterator<Frame> frames = this.stack.descendingIterator();
+            while (frames.hasNext()) {
+                Frame frame = frames.next();
+                Frame prefix = frame.split();
+                if (prefix != null) {
+                    Deque<Frame> stack = new ArrayDeque<>();
+                    while (this.stack.peek() != frame) {
+                        stack.addLast(this.stack.pop());
+                    }
+                    stack.addLast(prefix);
+                    Walker walker = new Walker(this.steps, stack, this.pending);
+                    this.pending = null;
+                    return walker;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (this.root != null) {
+                return Long.MAX_VALUE;
+            }
+            long size = this.pending == null ? 0 : 1;
+            for (Frame frame : this.stack) {
+                size += frame.remaining();
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    private abstract static class Frame {
+
+        final int step;
+
+        Frame(int step) {
+            this.step = step;
+        }
+
+        abstract boolean hasNext();
+
+        @Nullable
+        abstract Object next();
+
+        abstract int remaining();
+
+        /**
+         * Gives the first half of the remaining values to a new frame, keeping the rest.
+         *
+         * @return The new frame, or null if there is not enough left to split
+         */
+        @Nullable
+        abstract Frame split();
+    }
+
+    private static final class ListFrame extends Frame {
+
+        private final DataList list;
+        private int next;
+        private final int end;
+
+        ListFrame(DataList list, int step, int next, int end) {
+            super(step);
+            this.list = list;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        boolean hasNext() {
+            return this.next < this.end;
+        }
+
+        @Override
+        Object next() {
+            return this.list.getOrNull(this.next++);
+        }
+
+        @Override
+        int remaining() {
+            return this.end - this.next;
+        }
+
+        @Nullable
+        @Override
+        Frame split() {
+            int mid = (this.next + this.end) >>> 1;
+            if (mid <= this.next) {
+                return null;
+            }
+            Frame prefix = new ListFrame(this.list, this.step, this.next, mid);
+            this.next = mid;
+            return prefix;
+        }
+    }
+
+    private static final class MapFrame extends Frame {
+
+        private final DataMap map;
+        @Nullable private Iterator<String> keys;
+        @Nullable private String[] split;
+        private int next;
+        private int end;
+
+        MapFrame(DataMap map, int step, Iterator<String> keys, int size) {
+            super(step);
+            this.map = map;
+            this.keys = keys;
+            this.end = size;
+        }
+
+        private MapFrame(DataMap map, int step, String[] keys, int next, int end) {
+            super(step);
+            this.map = map;
+            this.split = keys;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        boolean hasNext() {
+            if (this.keys != null) {
+                return this.keys.hasNext();
+            }
+            return this.next < this.end;
+        }
+
+        @Nullable
+        @Override
+        Object next() {
+            String key;
+            if (this.keys != null) {
+                key = this.keys.next();
+                this.next++;
+            } else {
+                key = this.split[this.next++];
+            }
+            return this.map.getOrNull(key);
+        }
+
+        @Override
+        int remaining() {
+            return Math.max(this.end - this.next, 0);
+        }
+
+        @Nullable
+        @Override
+        Frame split() {
+            if (this.keys != null) {
+                // only keys are copied, and only once a frame is actually split
+                List<String> rest = new ArrayList<>();
+                this.keys.forEachRemaining(rest::add);
+                this.keys = null;
+                this.split = rest.toArray(new String[rest.size()]);
+                this.next = 0;
+                this.end = this.split.length;
+            }
+            int mid = (this.next + this.end) >>> 1;
+            if (mid <= this.next) {
+                return null;
+            }
+            Frame prefix = new MapFrame(this.map, this.step, this.split, this.next, mid);
+            this.next = mid;
+            return prefix;
+        }
+    }
+}
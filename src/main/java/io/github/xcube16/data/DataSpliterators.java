@@ -0,0 +1,382 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link Spliterator}s used by the default stream methods of {@link DataList} and {@link DataMap}.
+ *
+ * <p>The list spliterators read elements by index, so they split in half without copying
+ * and are {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}. The size of the
+ * list is read when the first element is, the list must not change after that.</p>
+ */
+final class DataSpliterators {
+
+    static final int LIST_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+
+    private DataSpliterators() {
+    }
+
+    static Spliterator<Object> of(DataList list) {
+        return new ObjectRange(list, 0, -1);
+    }
+
+    static Spliterator.OfInt ints(DataList list) {
+        return new IntRange(list, 0, -1);
+    }
+
+    static Spliterator.OfLong longs(DataList list) {
+        return new LongRange(list, 0, -1);
+    }
+
+    static Spliterator.OfDouble doubles(DataList list) {
+        return new DoubleRange(list, 0, -1);
+    }
+
+    /**
+     * Streams the entries of a map by looking up each of its keys.
+     */
+    static Spliterator<Map.Entry<String, Object>> entries(DataMap map) {
+        return new Entries<>(map.getKeys().spliterator(), key -> {
+            Object value = map.getOrNull(key);
+            return value == null ? null : new AbstractMap.SimpleImmutableEntry<>(key, value);
+        });
+    }
+
+    /**
+     * Copies the entries of a backing map so they can not be used to write to it.
+     */
+    static Spliterator<Map.Entry<String, Object>> entries(Spliterator<Map.Entry<String, Object>> entries) {
+        return new Entries<>(entries, AbstractMap.SimpleImmutableEntry::new);
+    }
+
+    /**
+     * Streams the entries of a map that keeps its keys and values in parallel arrays.
+     */
+    static Spliterator<Map.Entry<String, Object>> entries(String[] keys, Object[] values, int size, int characteristics) {
+        return new ArrayEntries(keys, values, 0, size, characteristics);
+    }
+
+    private abstract static class Range {
+
+        final DataList list;
+        int index;
+        private int fence;
+
+        Range(DataList list, int index, int fence) {
+            this.list = list;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        final int fence() {
+            if (this.fence < 0) {
+                this.fence = this.list.size();
+            }
+            return this.fence;
+        }
+
+        /**
+         * Gives the first half of the remaining range to the caller, -1 if it is too small.
+         */
+        final int split() {
+            int lo = this.index;
+            int mid = (lo + this.fence()) >>> 1;
+            if (lo >= mid) {
+                return -1;
+            }
+            this.index = mid;
+            return lo;
+        }
+
+        public final long estimateSize() {
+            return this.fence() - this.index;
+        }
+
+        public final int characteristics() {
+            return LIST_CHARACTERISTICS;
+        }
+    }
+
+    private static final class ObjectRange extends Range implements Spliterator<Object> {
+
+        ObjectRange(DataList list, int index, int fence) {
+            super(list, index, fence);
+        }
+
+        private Object get(int index) {
+            Object element = this.list.getOrNull(index);
+            if (element == null) {
+                throw new ConcurrentModificationException();
+            }
+            return element;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            if (this.index < this.fence()) {
+                action.accept(this.get(this.index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Object> action) {
+            for (int fence = this.fence(); this.index < fence; this.index++) {
+                action.accept(this.get(this.index));
+            }
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<Object> trySplit() {
+            int lo = this.split();
+            return lo < 0 ? null : new ObjectRange(this.list, lo, this.index);
+        }
+    }
+
+    private static final class IntRange extends Range implements Spliterator.OfInt {
+
+        IntRange(DataList list, int index, int fence) {
+            super(list, index, fence);
+        }
+
+        private int get(int index) {
+            int value = this.list.getInt(index, Integer.MIN_VALUE);
+            // the default is also a valid int, only then find out if the element really is one
+            return value == Integer.MIN_VALUE ? this.list.getIntOrThrow(index) : value;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (this.index < this.fence()) {
+                action.accept(this.get(this.index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            for (int fence = this.fence(); this.index < fence; this.index++) {
+                action.accept(this.get(this.index));
+            }
+        }
+
+        @Nullable
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int lo = this.split();
+            return lo < 0 ? null : new IntRange(this.list, lo, this.index);
+        }
+    }
+
+    private static final class LongRange extends Range implements Spliterator.OfLong {
+
+        LongRange(DataList list, int index, int fence) {
+            super(list, index, fence);
+        }
+
+        private long get(int index) {
+            long value = this.list.getLong(index, Long.MIN_VALUE);
+            return value == Long.MIN_VALUE ? this.list.getLongOrThrow(index) : value;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (this.index < this.fence()) {
+                action.accept(this.get(this.index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            for (int fence = this.fence(); this.index < fence; this.index++) {
+                action.accept(this.get(this.index));
+            }
+        }
+
+        @Nullable
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int lo = this.split();
+            return lo < 0 ? null : new LongRange(this.list, lo, this.index);
+        }
+    }
+
+    private static final class DoubleRange extends Range implements Spliterator.OfDouble {
+
+        DoubleRange(DataList list, int index, int fence) {
+            super(list, index, fence);
+        }
+
+        private double get(int index) {
+            double value = this.list.getDouble(index, Double.NaN);
+            return Double.isNaN(value) ? this.list.getDoubleOrThrow(index) : value;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (this.index < this.fence()) {
+                action.accept(this.get(this.index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            for (int fence = this.fence(); this.index < fence; this.index++) {
+                action.accept(this.get(this.index));
+            }
+        }
+
+        @Nullable
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            int lo = this.split();
+            return lo < 0 ? null : new DoubleRange(this.list, lo, this.index);
+        }
+    }
+
+    private static final class ArrayEntries implements Spliterator<Map.Entry<String, Object>> {
+
+        private final String[] keys;
+        private final Object[] values;
+        private int index;
+        private final int fence;
+        private final int characteristics;
+
+        ArrayEntries(String[] keys, Object[] values, int index, int fence, int characteristics) {
+            this.keys = keys;
+            this.values = values;
+            this.index = index;
+            this.fence = fence;
+            this.characteristics = characteristics | Spliterator.DISTINCT | LIST_CHARACTERISTICS;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<String, Object>> action) {
+            if (this.index < this.fence) {
+                action.accept(new AbstractMap.SimpleImmutableEntry<>(this.keys[this.index], this.values[this.index]));
+                this.index++;
+                return true;
+            }
+            return false;
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<Map.Entry<String, Object>> trySplit() {
+            int lo = this.index;
+            int mid = (lo + this.fence) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            this.index = mid;
+            return new ArrayEntries(this.keys, this.values, lo, mid, this.characteristics);
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.fence - this.index;
+        }
+
+        @Override
+        public int characteristics() {
+            return this.characteristics;
+        }
+    }
+
+    /**
+     * Maps a key or entry spliterator to entries, skipping keys that map to null.
+     */
+    private static final class Entries<T> implements Spliterator<Map.Entry<String, Object>> {
+
+        private final Spliterator<T> source;
+        private final Function<T, Map.Entry<String, Object>> entry;
+        private boolean found;
+
+        Entries(Spliterator<T> source, Function<T, Map.Entry<String, Object>> entry) {
+            this.source = source;
+            this.entry = entry;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<String, Object>> action) {
+            this.found = false;
+            while (!this.found && this.source.tryAdvance(t -> {
+                Map.Entry<String, Object> entry = this.entry.apply(t);
+                if (entry != null) {
+                    this.found = true;
+                    action.accept(entry);
+                }
+            })) {
+                // keep going until an entry was found or the source ran out
+            }
+            return this.found;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<String, Object>> action) {
+            this.source.forEachRemaining(t -> {
+                Map.Entry<String, Object> entry = this.entry.apply(t);
+                if (entry != null) {
+                    action.accept(entry);
+                }
+            });
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<Map.Entry<String, Object>> trySplit() {
+            Spliterator<T> prefix = this.source.trySplit();
+            return prefix == null ? null : new Entries<>(prefix, this.entry);
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return (this.source.characteristics() | Spliterator.NONNULL) & ~Spliterator.SORTED;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The kinds of objects a {@link DataView} knows how to deal with.
+ *
+ * <p>The type of an object is looked up by its class and cached per class,
+ * so classifying a value costs one lookup instead of a chain of
+ * {@code instanceof} checks.</p>
+ */
+public enum DataType {
+
+    /*
+     * Primitive Allowed Types
+     */
+    BOOLEAN,
+    BYTE,
+    CHARACTER,
+    SHORT,
+    INTEGER,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    STRING,
+
+    /*
+     * Array Allowed Types (String is also one of these)
+     */
+    BOOLEAN_ARRAY,
+    BYTE_ARRAY,
+    SHORT_ARRAY,
+    INT_ARRAY,
+    LONG_ARRAY,
+    FLOAT_ARRAY,
+    DOUBLE_ARRAY,
+
+    /*
+     * Structure Allowed Types
+     */
+    DATA_MAP,
+    DATA_LIST,
+    DATA_VALUE,
+
+    /*
+     * Things that can be turned into Allowed Types
+     */
+    SERIALIZABLE,
+    ENUM,
+    JAVA_MAP,
+    COLLECTION,
+
+    /**
+     * Anything else.
+     */
+    UNSUPPORTED;
+
+    private static final ClassValue<DataType> TYPES = new ClassValue<DataType>() {
+        @Override
+        protected DataType computeValue(Class<?> type) {
+            return DataType.classify(type);
+        }
+    };
+
+    /**
+     * Gets the type of an object.
+     *
+     * @param value The object
+     * @return The type
+     */
+    public static DataType of(Object value) {
+        return TYPES.get(value.getClass());
+    }
+
+    /**
+     * Gets the type of instances of a class.
+     *
+     * @param type The class
+     * @return The type
+     */
+    public static DataType of(Class<?> type) {
+        return TYPES.get(type);
+    }
+
+    /**
+     * Gets if this is a Primitive Allowed Type.
+     *
+     * @return True if this is a Primitive Allowed Type
+     */
+    public boolean isPrimitive() {
+        return this.ordinal() <= STRING.ordinal();
+    }
+
+    /**
+     * Gets if this is an Array Allowed Type.
+     *
+     * @return True if this is an Array Allowed Type
+     */
+    public boolean isPrimitiveArray() {
+        return this == STRING || (this.ordinal() >= BOOLEAN_ARRAY.ordinal() && this.ordinal() <= DOUBLE_ARRAY.ordinal());
+    }
+
+    /**
+     * Gets if values of this type can be stored in a {@link DataView} as is.
+     *
+     * @return True if this is a Primitive Allowed Type or an Array Allowed Type
+     */
+    public boolean isRaw() {
+        return this.ordinal() <= DOUBLE_ARRAY.ordinal();
+    }
+
+    private static DataType classify(Class<?> type) {
+        if (type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == Byte.class) {
+            return BYTE;
+        } else if (type == Character.class) {
+            return CHARACTER;
+        } else if (type == Short.class) {
+            return SHORT;
+        } else if (type == Integer.class) {
+            return INTEGER;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == Float.class) {
+            return FLOAT;
+        } else if (type == Double.class) {
+            return DOUBLE;
+        } else if (type == String.class) {
+            return STRING;
+        } else if (type == boolean[].class) {
+            return BOOLEAN_ARRAY;
+        } else if (type == byte[].class) {
+            return BYTE_ARRAY;
+        } else if (type == short[].class) {
+            return SHORT_ARRAY;
+        } else if (type == int[].class) {
+            return INT_ARRAY;
+        } else if (type == long[].class) {
+            return LONG_ARRAY;
+        } else if (type == float[].class) {
+            return FLOAT_ARRAY;
+        } else if (type == double[].class) {
+            return DOUBLE_ARRAY;
+        } else if (DataMap.class.isAssignableFrom(type)) {
+            return DATA_MAP;
+        } else if (DataList.class.isAssignableFrom(type)) {
+            return DATA_LIST;
+        } else if (DataValue.class.isAssignableFrom(type)) {
+            return DATA_VALUE;
+        } else if (DataSerializable.class.isAssignableFrom(type)) {
+            return SERIALIZABLE;
+        } else if (Enum.class.isAssignableFrom(type)) {
+            return ENUM;
+        } else if (Map.class.isAssignableFrom(type)) {
+            return JAVA_MAP;
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return COLLECTION;
+        }
+        return UNSUPPORTED;
+    }
+}
@@ -24,9 +24,14 @@
  */
 package io.github.xcube16.data;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 
 /**
  * Can store a single value/element.<br/>
@@ -63,6 +68,21 @@ public interface DataValue {
      */
     DataValue set(Object value);
 
+    /**
+     * Sets the value to a detached {@link DataMap} or {@link DataList} without copying it.
+     *
+     * <p>Implementations that can not take ownership of {@code view} copy it
+     * just like {@link #set(Object)} does.</p>
+     *
+     * @param view The detached view
+     * @return This value, for chaining
+     * @throws IllegalArgumentException thrown when {@code view} is already part of a {@link DataView}
+     * @see DataView#adopt(Object, DataView)
+     */
+    default DataValue adopt(DataView<?> view) {
+        return this.set(view);
+    }
+
     /**
      * Removes the value.
      */
@@ -112,7 +132,7 @@ public interface DataValue {
      * @return The {@link DataList}, if available
      */
     default Optional<DataList> getList() {
-        return this.get().flatMap(o -> Coerce2.asDataList(o, null, (ignored) -> this.createList()));
+        return this.get().flatMap(o -> Coerce2.asDataList(o, null, (ignored) -> this.getOrNull(), (ignored) -> this.createList()));
     }
 
     /**
@@ -211,6 +231,142 @@ public interface DataValue {
         return this.get().flatMap(Coerce2::asDouble);
     }
 
+    /**
+     * Gets the value as an object, or null if absent.
+     *
+     * <p>Same as {@link #get()}, but without wrapping the result
+     * in an {@link Optional}.</p>
+     *
+     * @return The Object, or null
+     */
+    @Nullable
+    default Object getOrNull() {
+        return this.get().orElse(null);
+    }
+
+    /**
+     * Gets the value as a boolean, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the value is a {@link Boolean} or number.</p>
+     *
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The boolean
+     */
+    default boolean getBoolean(boolean def) {
+        return Coerce2.asBoolean(this.getOrNull(), def);
+    }
+
+    /**
+     * Gets the value as an int, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the value is a number.</p>
+     *
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The int
+     */
+    default int getInt(int def) {
+        return Coerce2.asInt(this.getOrNull(), def);
+    }
+
+    /**
+     * Gets the value as a long, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the value is a number.</p>
+     *
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The long
+     */
+    default long getLong(long def) {
+        return Coerce2.asLong(this.getOrNull(), def);
+    }
+
+    /**
+     * Gets the value as a double, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the value is a number.</p>
+     *
+     * @param def The value to return if the value is absent or can not be coerced
+     * @return The double
+     */
+    default double getDouble(double def) {
+        return Coerce2.asDouble(this.getOrNull(), def);
+    }
+
+    /**
+     * Gets the value as an int.
+     *
+     * @return The int
+     * @throws NoSuchElementException thrown when the value is absent or can not be coerced into an int
+     */
+    default int getIntOrThrow() {
+        Object obj = this.getOrNull();
+        if (obj instanceof Number) { // fast path
+            return ((Number) obj).intValue();
+        }
+        return Coerce2.asOptionalInt(obj).orElseThrow(() -> new NoSuchElementException("No int value"));
+    }
+
+    /**
+     * Gets the value as a long.
+     *
+     * @return The long
+     * @throws NoSuchElementException thrown when the value is absent or can not be coerced into a long
+     */
+    default long getLongOrThrow() {
+        Object obj = this.getOrNull();
+        if (obj instanceof Number) { // fast path
+            return ((Number) obj).longValue();
+        }
+        return Coerce2.asOptionalLong(obj).orElseThrow(() -> new NoSuchElementException("No long value"));
+    }
+
+    /**
+     * Gets the value as a double.
+     *
+     * @return The double
+     * @throws NoSuchElementException thrown when the value is absent or can not be coerced into a double
+     */
+    default double getDoubleOrThrow() {
+        Object obj = this.getOrNull();
+        if (obj instanceof Number) { // fast path
+            return ((Number) obj).doubleValue();
+        }
+        return Coerce2.asOptionalDouble(obj).orElseThrow(() -> new NoSuchElementException("No double value"));
+    }
+
+    /**
+     * Gets the value as an {@link OptionalInt}.
+     *
+     * <p>Like {@link #getInt()}, but does not box the int.</p>
+     *
+     * @return The int, if available
+     */
+    default OptionalInt getOptionalInt() {
+        return Coerce2.asOptionalInt(this.getOrNull());
+    }
+
+    /**
+     * Gets the value as an {@link OptionalLong}.
+     *
+     * <p>Like {@link #getLong()}, but does not box the long.</p>
+     *
+     * @return The long, if available
+     */
+    default OptionalLong getOptionalLong() {
+        return Coerce2.asOptionalLong(this.getOrNull());
+    }
+
+    /**
+     * Gets the value as an {@link OptionalDouble}.
+     *
+     * <p>Like {@link #getDouble()}, but does not box the double.</p>
+     *
+     * @return The double, if available
+     */
+    default OptionalDouble getOptionalDouble() {
+        return Coerce2.asOptionalDouble(this.getOrNull());
+    }
+
     /**
      * Gets a boolean array, if available.
      *
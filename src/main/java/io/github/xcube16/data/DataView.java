@@ -24,9 +24,14 @@
  */
 package io.github.xcube16.data;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.function.Consumer;
 
 /**
@@ -131,6 +136,27 @@ public interface DataView<K> {
      */
     DataView remove(K key);
 
+    /**
+     * Attaches a detached {@link DataMap} or {@link DataList} at the desired key without copying it.
+     *
+     * <p>Unlike {@link #set(Object, Object)}, {@code view} itself becomes part of this
+     * {@link DataView}, so mutating it afterwards mutates this {@link DataView}. A view that
+     * belongs to a {@link DataValue} is moved out of it, leaving the {@link DataValue} empty.</p>
+     *
+     * <p>Implementations that can not take ownership of {@code view} copy it
+     * just like {@link #set(Object, Object)} does.</p>
+     *
+     * @param key The key to attach the view at
+     * @param view The detached view
+     * @return This view, for chaining
+     * @throws IllegalArgumentException thrown when {@code view} is already part of another
+     *         {@link DataView}, or if {@code view} is this view or one of its parents
+     */
+    default DataView<K> adopt(K key, DataView<?> view) {
+        this.set(key, view);
+        return this;
+    }
+
     /**
      * Creates a new {@link DataMap} at the desired key.
      * <p>If any data existed at the given key, that data will be
@@ -194,7 +220,7 @@ public interface DataView<K> {
      * @return The {@link DataList}, if available
      */
     default Optional<DataList> getList(K key) {
-        return this.get(key).flatMap(o -> Coerce2.asDataList(o, key, this::createList));
+        return this.get(key).flatMap(o -> Coerce2.asDataList(o, key, this::getOrNull, this::createList));
     }
 
     /**
@@ -412,6 +438,160 @@ public interface DataView<K> {
         return this.get(key).flatMap(Coerce2::asDoubleArray);
     }
 
+    /*
+     * ===========================
+     * ==== primitive methods ====
+     * ===========================
+     */
+
+    /**
+     * Gets an object from the desired key, or null if the key is not defined.
+     *
+     * <p>Same as {@link #get(Object)}, but without wrapping the result
+     * in an {@link Optional}.</p>
+     *
+     * @param key The key to the Object
+     * @return The Object, or null
+     */
+    @Nullable
+    default Object getOrNull(K key) {
+        return this.get(key).orElse(null);
+    }
+
+    /**
+     * Gets a boolean by key, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the data residing at the key
+     * is a {@link Boolean} or number.</p>
+     *
+     * @param key The key to the value to get
+     * @param def The value to return if the data is absent or can not be coerced
+     * @return The boolean
+     */
+    default boolean getBoolean(K key, boolean def) {
+        return Coerce2.asBoolean(this.getOrNull(key), def);
+    }
+
+    /**
+     * Gets an int by key, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the data residing at the key is a number.</p>
+     *
+     * @param key The key to the value to get
+     * @param def The value to return if the data is absent or can not be coerced
+     * @return The int
+     */
+    default int getInt(K key, int def) {
+        return Coerce2.asInt(this.getOrNull(key), def);
+    }
+
+    /**
+     * Gets a long by key, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the data residing at the key is a number.</p>
+     *
+     * @param key The key to the value to get
+     * @param def The value to return if the data is absent or can not be coerced
+     * @return The long
+     */
+    default long getLong(K key, long def) {
+        return Coerce2.asLong(this.getOrNull(key), def);
+    }
+
+    /**
+     * Gets a double by key, or {@code def} if not available.
+     *
+     * <p>Does not allocate anything if the data residing at the key is a number.</p>
+     *
+     * @param key The key to the value to get
+     * @param def The value to return if the data is absent or can not be coerced
+     * @return The double
+     */
+    default double getDouble(K key, double def) {
+        return Coerce2.asDouble(this.getOrNull(key), def);
+    }
+
+    /**
+     * Gets an int by key.
+     *
+     * @param key The key to the value to get
+     * @return The int
+     * @throws NoSuchElementException thrown when the data is absent or can not be coerced into an int
+     */
+    default int getIntOrThrow(K key) {
+        Object obj = this.getOrNull(key);
+        if (obj instanceof Number) { // fast path
+            return ((Number) obj).intValue();
+        }
+        return Coerce2.asOptionalInt(obj).orElseThrow(() -> new NoSuchElementException("No int at key " + key));
+    }
+
+    /**
+     * Gets a long by key.
+     *
+     * @param key The key to the value to get
+     * @return The long
+     * @throws NoSuchElementException thrown when the data is absent or can not be coerced into a long
+     */
+    default long getLongOrThrow(K key) {
+        Object obj = this.getOrNull(key);
+        if (obj instanceof Number) { // fast path
+            return ((Number) obj).longValue();
+        }
+        return Coerce2.asOptionalLong(obj).orElseThrow(() -> new NoSuchElementException("No long at key " + key));
+    }
+
+    /**
+     * Gets a double by key.
+     *
+     * @param key The key to the value to get
+     * @return The double
+     * @throws NoSuchElementException thrown when the data is absent or can not be coerced into a double
+     */
+    default double getDoubleOrThrow(K key) {
+        Object obj = this.getOrNull(key);
+        if (obj instanceof Number) { // fast path
+            return ((Number) obj).doubleValue();
+        }
+        return Coerce2.asOptionalDouble(obj).orElseThrow(() -> new NoSuchElementException("No double at key " + key));
+    }
+
+    /**
+     * Gets an {@link OptionalInt} by key.
+     *
+     * <p>Like {@link #getInt(Object)}, but does not box the int.</p>
+     *
+     * @param key The key to the value to get
+     * @return The int, if available
+     */
+    default OptionalInt getOptionalInt(K key) {
+        return Coerce2.asOptionalInt(this.getOrNull(key));
+    }
+
+    /**
+     * Gets an {@link OptionalLong} by key.
+     *
+     * <p>Like {@link #getLong(Object)}, but does not box the long.</p>
+     *
+     * @param key The key to the value to get
+     * @return The long, if available
+     */
+    default OptionalLong getOptionalLong(K key) {
+        return Coerce2.asOptionalLong(this.getOrNull(key));
+    }
+
+    /**
+     * Gets an {@link OptionalDouble} by key.
+     *
+     * <p>Like {@link #getDouble(Object)}, but does not box the double.</p>
+     *
+     * @param key The key to the value to get
+     * @return The double, if available
+     */
+    default OptionalDouble getOptionalDouble(K key) {
+        return Coerce2.asOptionalDouble(this.getOrNull(key));
+    }
+
     /**
      * Gets if this view contains no data.
      *
@@ -0,0 +1,387 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An immutable snapshot of a {@link DataList}, see {@link DataList#freeze()}.
+ *
+ * <p>The elements are kept in an exactly sized array. Freezing a {@link MemoryDataList}
+ * that stores its numbers in an int[], long[] or double[] keeps them in one, without boxing.
+ * See {@link FrozenDataMap} for the guarantees a frozen view gives.</p>
+ *
+ * <p>Every method that would modify the list throws {@link UnsupportedOperationException}.</p>
+ */
+public final class FrozenDataList extends AbstractDataList {
+
+    static final FrozenDataList EMPTY = new FrozenDataList(new Object[0], 0, false);
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+    /**
+     * An Object[], int[], long[] or double[].
+     */
+    private final Object array;
+    private final int size;
+    /**
+     * Does the Object[] hold any arrays, they are copied on the way out.
+     */
+    private final boolean hasArrays;
+    private final int hash;
+
+    private FrozenDataList(Object array, int size, boolean hasArrays) {
+        this.array = array;
+        this.size = size;
+        this.hasArrays = hasArrays;
+
+        // same result as List.hashCode() over the boxed elements
+        int hash = 1;
+        if (array instanceof int[]) {
+            for (int element : (int[]) array) {
+                hash = 31 * hash + Integer.hashCode(element);
+            }
+        } else if (array instanceof long[]) {
+            for (long element : (long[]) array) {
+                hash = 31 * hash + Long.hashCode(element);
+            }
+        } else if (array instanceof double[]) {
+            for (double element : (double[]) array) {
+                hash = 31 * hash + Double.hashCode(element);
+            }
+        } else {
+            for (Object element : (Object[]) array) {
+                hash = 31 * hash + AbstractDataView.valueHash(element);
+            }
+        }
+        this.hash = hash;
+    }
+
+    /**
+     * Creates a frozen snapshot of {@code list} and everything in it.
+     *
+     * @param list The list to freeze
+     * @return The frozen list, or {@code list} if it is already frozen
+     */
+    public static FrozenDataList of(DataList list) {
+        checkNotNull(list, "list");
+        if (list instanceof FrozenDataList) {
+            return (FrozenDataList) list;
+        }
+
+        int size = list.size();
+        if (size == 0) {
+            return EMPTY;
+        }
+        if (list instanceof MemoryDataList) {
+            MemoryDataList memory = (MemoryDataList) list;
+            int[] ints = memory.toIntArray();
+            if (ints != null) {
+                return new FrozenDataList(ints, ints.length, false);
+            }
+            long[] longs = memory.toLongArray();
+            if (longs != null) {
+                return new FrozenDataList(longs, longs.length, false);
+            }
+            double[] doubles = memory.toDoubleArray();
+            if (doubles != null) {
+                return new FrozenDataList(doubles, doubles.length, false);
+            }
+        }
+
+        Object[] elements = new Object[size];
+        boolean hasArrays = false;
+        for (int i = 0; i < size; i++) {
+            Object element = list.getOrNull(i);
+            if (element == null) { // shrank while we were copying (concurrent lists)
+                elements = Arrays.copyOf(elements, i);
+                break;
+            }
+            elements[i] = FrozenDataMap.freezeValue(element);
+            hasArrays |= elements[i].getClass().isArray();
+        }
+        return new FrozenDataList(elements, elements.length, hasArrays);
+    }
+
+    @Override
+    public DataList freeze() {
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Copies the contents of this list into a new int[] without boxing.
+     *
+     * @return The int[], or null if this list is not backed by an int[]
+     */
+    @Nullable
+    int[] toIntArray() {
+        return this.array instanceof int[] ? ((int[]) this.array).clone() : null;
+    }
+
+    /**
+     * Copies the contents of this list into a new long[] without boxing.
+     *
+     * @return The long[], or null if this list is not backed by a long[]
+     */
+    @Nullable
+    long[] toLongArray() {
+        return this.array instanceof long[] ? ((long[]) this.array).clone() : null;
+    }
+
+    /**
+     * Copies the contents of this list into a new double[] without boxing.
+     *
+     * @return The double[], or null if this list is not backed by a double[]
+     */
+    @Nullable
+    double[] toDoubleArray() {
+        return this.array instanceof double[] ? ((double[]) this.array).clone() : null;
+    }
+
+    @Override
+    public Spliterator<Object> spliterator() {
+        if (this.array instanceof Object[] && !this.hasArrays) {
+            return Spliterators.spliterator((Object[]) this.array, 0, this.size, CHARACTERISTICS);
+        }
+        return DataSpliterators.of(this);
+    }
+
+    @Override
+    public IntStream intStream() {
+        if (this.array instanceof int[]) {
+            return StreamSupport.intStream(Spliterators.spliterator((int[]) this.array, 0, this.size, CHARACTERISTICS), false);
+        }
+        return super.intStream();
+    }
+
+    @Override
+    public LongStream longStream() {
+        if (this.array instanceof long[]) {
+            return StreamSupport.longStream(Spliterators.spliterator((long[]) this.array, 0, this.size, CHARACTERISTICS), false);
+        }
+        return super.longStream();
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        if (this.array instanceof double[]) {
+            return StreamSupport.doubleStream(Spliterators.spliterator((double[]) this.array, 0, this.size, CHARACTERISTICS), false);
+        }
+        return super.doubleStream();
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+
+        return Optional.ofNullable(this.getOrNull((int) key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        if (index < 0 || index >= this.size) {
+            return null;
+        }
+        if (this.array instanceof Object[]) {
+            Object element = ((Object[]) this.array)[index];
+            return this.hasArrays ? FrozenDataMap.copyArray(element) : element;
+        } else if (this.array instanceof int[]) {
+            return ((int[]) this.array)[index];
+        } else if (this.array instanceof long[]) {
+            return ((long[]) this.array)[index];
+        }
+        return ((double[]) this.array)[index];
+    }
+
+    @Override
+    public int getInt(int index, int def) {
+        if (this.array instanceof int[] && index >= 0 && index < this.size) {
+            return ((int[]) this.array)[index]; // no boxing
+        }
+        return super.getInt(index, def);
+    }
+
+    @Override
+    public long getLong(int index, long def) {
+        if (this.array instanceof long[] && index >= 0 && index < this.size) {
+            return ((long[]) this.array)[index]; // no boxing
+        }
+        return super.getLong(index, def);
+    }
+
+    @Override
+    public double getDouble(int index, double def) {
+        if (this.array instanceof double[] && index >= 0 && index < this.size) {
+            return ((double[]) this.array)[index]; // no boxing
+        }
+        return super.getDouble(index, def);
+    }
+
+    /*
+     * Read only
+     */
+
+    @Override
+    public DataList set(Integer key, Object value) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public DataList add(Object value) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    protected void setRaw(Integer key, Object value) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    protected void addRaw(Object value) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public DataList adopt(Integer key, DataView<?> view) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public DataList remove(Integer key) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public DataMap addMap() {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public DataList addList() {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("FrozenDataList is read only");
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final FrozenDataList other = (FrozenDataList) obj;
+        if (this.hash != other.hash || this.size != other.size) {
+            return false;
+        }
+        if (this.array.getClass() == other.array.getClass()) {
+            if (this.array instanceof int[]) {
+                return Arrays.equals((int[]) this.array, (int[]) other.array);
+            } else if (this.array instanceof long[]) {
+                return Arrays.equals((long[]) this.array, (long[]) other.array);
+            } else if (this.array instanceof double[]) {
+                return Arrays.equals((double[]) this.array, (double[]) other.array);
+            }
+            Object[] elements = (Object[]) this.array;
+            Object[] otherElements = (Object[]) other.array;
+            for (int i = 0; i < this.size; i++) {
+                if (!AbstractDataView.valueEquals(elements[i], otherElements[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        // one of them is primitive, the other one boxed
+        for (int i = 0; i < this.size; i++) {
+            if (!AbstractDataView.valueEquals(this.getOrNull(i), other.getOrNull(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < this.size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.getOrNull(i));
+        }
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        return helper.add("list", builder.append(']')).toString();
+    }
+}
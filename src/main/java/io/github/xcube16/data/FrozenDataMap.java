@@ -0,0 +1,383 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An immutable snapshot of a {@link DataMap}, see {@link DataMap#freeze()}.
+ *
+ * <p>Keys and values are kept in two exactly sized arrays. Maps with more than
+ * {@link MemoryDataMap#COMPACT_THRESHOLD} keys also get an open addressing hash index.
+ * Every field is final and nothing changes after construction, so a frozen map can be
+ * handed to other threads without any synchronization.</p>
+ *
+ * <p>Nested maps and lists are frozen too, and array values are copied. The getters
+ * hand out a new copy of an array value every time, so the frozen one can't be modified.</p>
+ *
+ * <p>Every method that would modify the map throws {@link UnsupportedOperationException}.</p>
+ */
+public final class FrozenDataMap extends AbstractDataMap {
+
+    static final FrozenDataMap EMPTY = new FrozenDataMap(new String[0], new Object[0]);
+
+    private final String[] keys;
+    private final Object[] values;
+    /**
+     * Does {@link #values} hold any arrays, they are copied on the way out.
+     */
+    private final boolean hasArrays;
+
+    /**
+     * Hash index into {@link #keys} (index + 1, 0 is empty), null for small maps.
+     */
+    @Nullable
+    private final int[] table;
+
+    private final int hash;
+
+    private FrozenDataMap(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+
+        int hash = 0;
+        boolean hasArrays = false;
+        for (int i = 0; i < keys.length; i++) {
+            hash += keys[i].hashCode() ^ AbstractDataView.valueHash(values[i]);
+            hasArrays |= values[i].getClass().isArray();
+        }
+        this.hash = hash;
+        this.hasArrays = hasArrays;
+
+        if (keys.length > MemoryDataMap.COMPACT_THRESHOLD) {
+            int[] table = new int[Integer.highestOneBit(keys.length * 2 - 1) << 1];
+            int mask = table.length - 1;
+            for (int i = 0; i < keys.length; i++) {
+                int slot = spread(keys[i].hashCode()) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = i + 1;
+            }
+            this.table = table;
+        } else {
+            this.table = null;
+        }
+    }
+
+    /**
+     * Creates a frozen snapshot of {@code map} and everything in it.
+     *
+     * @param map The map to freeze
+     * @return The frozen map, or {@code map} if it is already frozen
+     */
+    public static FrozenDataMap of(DataMap map) {
+        checkNotNull(map, "map");
+        if (map instanceof FrozenDataMap) {
+            return (FrozenDataMap) map;
+        }
+
+        String[] keys = new String[map.size()];
+        Object[] values = new Object[keys.length];
+        int size = 0;
+        for (String key : map.getKeys()) {
+            Object value = map.getOrNull(key);
+            if (value == null) {
+                continue; // removed while we were iterating (concurrent maps)
+            }
+            if (size == keys.length) { // grew while we were iterating (concurrent maps)
+                keys = Arrays.copyOf(keys, size + 1 + (size >> 1));
+                values = Arrays.copyOf(values, keys.length);
+            }
+            keys[size] = key;
+            values[size] = FrozenDataMap.freezeValue(value);
+            size++;
+        }
+        if (size == 0) {
+            return EMPTY;
+        } else if (size < keys.length) {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+        }
+        return new FrozenDataMap(keys, values);
+    }
+
+    /**
+     * Freezes a value stored in a {@link DataView}.
+     */
+    static Object freezeValue(Object value) {
+        switch (DataType.of(value)) {
+            case DATA_MAP:
+                return FrozenDataMap.of((DataMap) value);
+            case DATA_LIST:
+                return FrozenDataList.of((DataList) value);
+            default:
+                return FrozenDataMap.copyArray(value);
+        }
+    }
+
+    /**
+     * Copies an array value, anything else is immutable and returned as is.
+     */
+    static Object copyArray(Object value) {
+        switch (DataType.of(value)) {
+            case BOOLEAN_ARRAY:
+                return ((boolean[]) value).clone();
+            case BYTE_ARRAY:
+                return ((byte[]) value).clone();
+            case SHORT_ARRAY:
+                return ((short[]) value).clone();
+            case INT_ARRAY:
+                return ((int[]) value).clone();
+            case LONG_ARRAY:
+                return ((long[]) value).clone();
+            case FLOAT_ARRAY:
+                return ((float[]) value).clone();
+            case DOUBLE_ARRAY:
+                return ((double[]) value).clone();
+            default:
+                return value;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        if (this.table == null) {
+            for (int i = 0; i < this.keys.length; i++) {
+                if (key.equals(this.keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int mask = this.table.length - 1;
+        for (int slot = spread(key.hashCode()) & mask; this.table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = this.table[slot] - 1;
+            if (key.equals(this.keys[index])) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public DataMap freeze() {
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return this.keys.length;
+    }
+
+    @Override
+    public Spliterator<Map.Entry<String, Object>> spliterator() {
+        if (this.hasArrays) {
+            return DataSpliterators.entries(this);
+        }
+        return DataSpliterators.entries(this.keys, this.values, this.keys.length, Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return new KeySet();
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> consumer) {
+        for (String key : this.keys) {
+            consumer.accept(key);
+        }
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        checkNotNull(key, "key");
+
+        return Optional.ofNullable(this.getOrNull(key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(String key) {
+        checkNotNull(key, "key");
+
+        int index = this.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        return this.hasArrays ? FrozenDataMap.copyArray(this.values[index]) : this.values[index];
+    }
+
+    /*
+     * Read only
+     */
+
+    @Override
+    public DataMap set(String key, Object value) {
+        throw new UnsupportedOperationException("FrozenDataMap is read only");
+    }
+
+    @Override
+    protected void setRaw(String key, Object value) {
+        throw new UnsupportedOperationException("FrozenDataMap is read only");
+    }
+
+    @Override
+    public DataMap adopt(String key, DataView<?> view) {
+        throw new UnsupportedOperationException("FrozenDataMap is read only");
+    }
+
+    @Override
+    public DataMap remove(String key) {
+        throw new UnsupportedOperationException("FrozenDataMap is read only");
+    }
+
+    @Override
+    public DataMap createMap(String key) {
+        throw new UnsupportedOperationException("FrozenDataMap is read only");
+    }
+
+    @Override
+    public DataList createList(String key) {
+        throw new UnsupportedOperationException("FrozenDataMap is read only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("FrozenDataMap is read only");
+    }
+
+    /**
+     * Creates a mutable {@link MemoryDataMap} copy of this map.
+     *
+     * @return The copy
+     */
+    @Override
+    public DataMap copy() {
+        MemoryDataMap copy = new MemoryDataMap();
+        for (int i = 0; i < this.keys.length; i++) {
+            copy.set(this.keys[i], FrozenDataMap.copyArray(this.values[i]));
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.keys.length == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final FrozenDataMap other = (FrozenDataMap) obj;
+        if (this.hash != other.hash || this.keys.length != other.keys.length) {
+            return false;
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            int index = other.indexOf(this.keys[i]);
+            if (index < 0 || !AbstractDataView.valueEquals(this.values[i], other.values[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < this.keys.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.keys[i]).append('=').append(this.values[i]);
+        }
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        return helper.add("map", builder.append('}')).toString();
+    }
+
+    /**
+     * A read only view of the keys.
+     */
+    private final class KeySet extends AbstractSet<String> {
+
+        @Override
+        public int size() {
+            return FrozenDataMap.this.keys.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && FrozenDataMap.this.indexOf(o) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return this.index < FrozenDataMap.this.keys.length;
+                }
+
+                @Override
+                public String next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return FrozenDataMap.this.keys[this.index++];
+                }
+            };
+        }
+    }
+}
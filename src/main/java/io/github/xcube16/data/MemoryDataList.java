@@ -25,27 +25,73 @@
 package io.github.xcube16.data;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Objects;
-import com.google.common.collect.Lists;
 
 import javax.annotation.Nullable;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Default implementation of a {@link DataView} being used in memory.
+ *
+ * <p>While every element in the list is an {@link Integer}, {@link Long} or {@link Double}
+ * the elements are stored unboxed in a growable int[], long[] or double[].
+ * The first element of any other type switches the list over to object storage.</p>
+ *
+ * <p>The hash code is cached, see {@link MemoryDataMap}.</p>
  */
 public class MemoryDataList extends AbstractDataList {
 
-    protected final List<Object> list = Lists.newArrayList();
+    private Storage storage = EmptyStorage.INSTANCE;
+
+    /**
+     * The view or value this list is attached to, null if detached
+     */
+    @Nullable
+    Object owner;
+
+    /**
+     * Cached {@link #hashCode()}, only valid while {@link #hashed} is set
+     */
+    private int hash;
+    boolean hashed;
+
+    /**
+     * The capacity to give new storage when the first element is added
+     */
+    private final int capacity;
+
+    public MemoryDataList() {
+        this.capacity = Storage.DEFAULT_CAPACITY;
+    }
+
+    private MemoryDataList(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+    }
 
-    public MemoryDataList() {}
+    /**
+     * Creates a {@link Builder} for a list that is expected to hold {@code expectedSize} elements.
+     *
+     * @param expectedSize The expected number of elements
+     * @return The builder
+     */
+    public static Builder builder(int expectedSize) {
+        checkArgument(expectedSize >= 0, "expectedSize can not be negative");
+        return new Builder(expectedSize);
+    }
 
     @Override
     public int size() {
-        return this.list.size();
+        return this.storage.size();
     }
 
     private boolean contains(Integer key) {
@@ -56,30 +102,99 @@ public class MemoryDataList extends AbstractDataList {
     public Optional<Object> get(Integer key) {
         checkNotNull(key, "key");
 
-        return this.contains(key) ? Optional.of(this.list.get(key)) : Optional.empty();
+        return this.contains(key) ? Optional.of(this.storage.get(key)) : Optional.empty();
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        return index >= 0 && index < this.size() ? this.storage.get(index) : null;
+    }
+
+    @Override
+    public int getInt(int index, int def) {
+        return index >= 0 && index < this.size() ? this.storage.getInt(index, def) : def;
+    }
+
+    @Override
+    public long getLong(int index, long def) {
+        return index >= 0 && index < this.size() ? this.storage.getLong(index, def) : def;
+    }
+
+    @Override
+    public double getDouble(int index, double def) {
+        return index >= 0 && index < this.size() ? this.storage.getDouble(index, def) : def;
     }
 
     @Override
     public void setRaw(Integer key, Object value) {
+        invalidateHash(this);
         if (key == this.size()) {
             addRaw(value);
         } else {
-            this.list.set(key, value);
+            if (key < 0 || key >= this.size()) {
+                throw new IndexOutOfBoundsException("Index: " + key + ", Size: " + this.size());
+            }
+            this.detachAt(key);
+            attach(value, this);
+            if (!this.storage.set(key, value)) {
+                this.storage = this.storage.toObjects();
+                this.storage.set(key, value);
+            }
         }
     }
 
     @Override
     public void addRaw(Object value) {
-        this.list.add(value);
+        invalidateHash(this);
+        attach(value, this);
+        if (!this.storage.add(value)) {
+            // an empty list can pick whatever storage suits the new element best
+            this.storage = this.storage.size() == 0 ? Storage.forElement(value, this.capacity) : this.storage.toObjects();
+            this.storage.add(value);
+        }
     }
 
     @Override
     public MemoryDataList remove(Integer key) {
         checkNotNull(key, "key");
-        this.list.remove(key);
+        if (this.contains(key)) {
+            invalidateHash(this);
+            this.detachAt(key);
+            this.storage.remove(key);
+        }
+        return this;
+    }
+
+    @Override
+    public DataList adopt(Integer key, DataView<?> view) {
+        checkNotNull(key, "key");
+        checkNotNull(view, "view");
+        if (!isAdoptable(view)) {
+            return this.set(key, view);
+        }
+        checkAdoptable(this, view);
+        this.setRaw(key, view);
         return this;
     }
 
+    /**
+     * Detaches the view at {@code index}, if there is one.
+     */
+    private void detachAt(int index) {
+        if (this.storage instanceof ObjectStorage) { // primitive storage can't hold views
+            detach(this.storage.get(index), this);
+        }
+    }
+
     @Override
     public DataMap createMap(Integer key) {
         checkNotNull(key, "key");
@@ -110,17 +225,89 @@ public class MemoryDataList extends AbstractDataList {
 
     @Override
     public boolean isEmpty() {
-        return this.list.isEmpty();
+        return this.storage.size() == 0;
     }
 
     @Override
     public void clear() {
-        this.list.clear();
+        invalidateHash(this);
+        if (this.storage instanceof ObjectStorage) {
+            for (int i = 0; i < this.storage.size(); i++) {
+                detach(this.storage.get(i), this);
+            }
+        }
+        this.storage = EmptyStorage.INSTANCE;
+    }
+
+    /**
+     * Copies the contents of this list into a new int[] without boxing.
+     *
+     * @return The int[], or null if this list is not backed by an int[]
+     */
+    @Nullable
+    int[] toIntArray() {
+        return this.storage instanceof IntStorage ? ((IntStorage) this.storage).toArray() : null;
+    }
+
+    /**
+     * Copies the contents of this list into a new long[] without boxing.
+     *
+     * @return The long[], or null if this list is not backed by a long[]
+     */
+    @Nullable
+    long[] toLongArray() {
+        return this.storage instanceof LongStorage ? ((LongStorage) this.storage).toArray() : null;
+    }
+
+    /**
+     * Copies the contents of this list into a new double[] without boxing.
+     *
+     * @return The double[], or null if this list is not backed by a double[]
+     */
+    @Nullable
+    double[] toDoubleArray() {
+        return this.storage instanceof DoubleStorage ? ((DoubleStorage) this.storage).toArray() : null;
+    }
+
+    @Override
+    public Spliterator<Object> spliterator() {
+        if (this.storage instanceof ObjectStorage) {
+            return ((ObjectStorage) this.storage).spliterator();
+        }
+        return DataSpliterators.of(this);
+    }
+
+    @Override
+    public IntStream intStream() {
+        if (this.storage instanceof IntStorage) {
+            return StreamSupport.intStream(((IntStorage) this.storage).spliterator(), false);
+        }
+        return StreamSupport.intStream(DataSpliterators.ints(this), false);
+    }
+
+    @Override
+    public LongStream longStream() {
+        if (this.storage instanceof LongStorage) {
+            return StreamSupport.longStream(((LongStorage) this.storage).spliterator(), false);
+        }
+        return StreamSupport.longStream(DataSpliterators.longs(this), false);
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        if (this.storage instanceof DoubleStorage) {
+            return StreamSupport.doubleStream(((DoubleStorage) this.storage).spliterator(), false);
+        }
+        return StreamSupport.doubleStream(DataSpliterators.doubles(this), false);
     }
 
     @Override
     public int hashCode() {
-        return this.list.hashCode();
+        if (!this.hashed) {
+            this.hash = this.storage.hash();
+            this.hashed = true;
+        }
+        return this.hash;
     }
 
     @Override
@@ -133,12 +320,497 @@ public class MemoryDataList extends AbstractDataList {
         }
         final MemoryDataList other = (MemoryDataList) obj;
 
-        return Objects.equal(this.list, other.list);
+        return this.hashCode() == other.hashCode() && this.storage.contentEquals(other.storage);
     }
 
     @Override
     public String toString() {
         final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
-        return helper.add("list", this.list).toString();
+        return helper.add("list", this.storage).toString();
+    }
+
+    /**
+     * Fills a new {@link MemoryDataList} with elements that are already known to be valid.
+     *
+     * <p>Elements are stored as they are, they are not run through the coercion
+     * done by {@link #add(Object)}. This is meant for decoders and converters.
+     * Only add Primitive Allowed Types, Array Allowed Types or {@link DataView}s
+     * that are not part of another view (they are adopted, not copied).</p>
+     */
+    public static final class Builder {
+
+        @Nullable
+        private MemoryDataList list;
+
+        private Builder(int expectedSize) {
+            this.list = new MemoryDataList(expectedSize);
+        }
+
+        /**
+         * Adds an element.
+         *
+         * @param element The element, must be an Allowed Type
+         * @return This builder
+         */
+        public Builder add(Object element) {
+            checkNotNull(element, "element");
+            MemoryDataList list = this.list();
+            if (element instanceof DataView) {
+                list.adopt((DataView<?>) element);
+            } else {
+                list.addRaw(element);
+            }
+            return this;
+        }
+
+        /**
+         * Gets the finished list. The builder can not be used after this.
+         *
+         * @return The list
+         */
+        public MemoryDataList build() {
+            MemoryDataList list = this.list();
+            this.list = null;
+            return list;
+        }
+
+        private MemoryDataList list() {
+            checkState(this.list != null, "The builder has already been built");
+            return this.list;
+        }
+    }
+
+    /*
+     * Backing storage. add() and set() return false when the element does not fit
+     * the storage type, the list than switches to a storage that does.
+     */
+
+    private static abstract class Storage {
+
+        static final int DEFAULT_CAPACITY = 10;
+
+        int size;
+
+        static Storage forElement(Object value, int capacity) {
+            if (value instanceof Integer) {
+                return new IntStorage(capacity);
+            } else if (value instanceof Long) {
+                return new LongStorage(capacity);
+            } else if (value instanceof Double) {
+                return new DoubleStorage(capacity);
+            }
+            return new ObjectStorage(capacity);
+        }
+
+        static int grow(int capacity, int minCapacity) {
+            return Math.max(capacity + (capacity >> 1), Math.max(minCapacity, DEFAULT_CAPACITY));
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        abstract Object get(int index);
+
+        int getInt(int index, int def) {
+            return Coerce2.asInt(this.get(index), def);
+        }
+
+        long getLong(int index, long def) {
+            return Coerce2.asLong(this.get(index), def);
+        }
+
+        double getDouble(int index, double def) {
+            return Coerce2.asDouble(this.get(index), def);
+        }
+
+        abstract boolean set(int index, Object value);
+
+        abstract boolean add(Object value);
+
+        abstract void remove(int index);
+
+        /**
+         * Copies the elements into a new {@link ObjectStorage}.
+         */
+        ObjectStorage toObjects() {
+            ObjectStorage objects = new ObjectStorage(Math.max(this.size, DEFAULT_CAPACITY));
+            for (int i = 0; i < this.size; i++) {
+                objects.add(this.get(i));
+            }
+            return objects;
+        }
+
+        /**
+         * Same result as {@link java.util.List#hashCode()}
+         */
+        int hash() {
+            int hash = 1;
+            for (int i = 0; i < this.size; i++) {
+                hash = 31 * hash + AbstractDataView.valueHash(this.get(i));
+            }
+            return hash;
+        }
+
+        boolean contentEquals(Storage other) {
+            if (this.size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < this.size; i++) {
+                if (!AbstractDataView.valueEquals(this.get(i), other.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("[");
+            for (int i = 0; i < this.size; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(this.get(i));
+            }
+            return builder.append(']').toString();
+        }
+    }
+
+    private static final class EmptyStorage extends Storage {
+
+        static final EmptyStorage INSTANCE = new EmptyStorage();
+
+        @Override
+        Object get(int index) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+        }
+
+        @Override
+        boolean set(int index, Object value) {
+            return false;
+        }
+
+        @Override
+        boolean add(Object value) {
+            return false;
+        }
+
+        @Override
+        void remove(int index) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+        }
+    }
+
+    private static final class ObjectStorage extends Storage {
+
+        private Object[] array;
+
+        ObjectStorage(int capacity) {
+            this.array = new Object[capacity];
+        }
+
+        @Override
+        Object get(int index) {
+            return this.array[index];
+        }
+
+        @Override
+        boolean set(int index, Object value) {
+            this.array[index] = value;
+            return true;
+        }
+
+        @Override
+        boolean add(Object value) {
+            if (this.size == this.array.length) {
+                this.array = Arrays.copyOf(this.array, grow(this.array.length, this.size + 1));
+            }
+            this.array[this.size++] = value;
+            return true;
+        }
+
+        @Override
+        void remove(int index) {
+            System.arraycopy(this.array, index + 1, this.array, index, this.size - index - 1);
+            this.array[--this.size] = null; // let the GC do its thing
+        }
+
+        Spliterator<Object> spliterator() {
+            return Spliterators.spliterator(this.array, 0, this.size, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        @Override
+        ObjectStorage toObjects() {
+            return this;
+        }
+    }
+
+    private static final class IntStorage extends Storage {
+
+        private int[] array;
+
+        IntStorage(int capacity) {
+            this.array = new int[capacity];
+        }
+
+        @Override
+        Object get(int index) {
+            return this.array[index];
+        }
+
+        @Override
+        int getInt(int index, int def) {
+            return this.array[index];
+        }
+
+        @Override
+        long getLong(int index, long def) {
+            return this.array[index];
+        }
+
+        @Override
+        double getDouble(int index, double def) {
+            return this.array[index];
+        }
+
+        @Override
+        boolean set(int index, Object value) {
+            if (value instanceof Integer) {
+                this.array[index] = (Integer) value;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean add(Object value) {
+            if (value instanceof Integer) {
+                if (this.size == this.array.length) {
+                    this.array = Arrays.copyOf(this.array, grow(this.array.length, this.size + 1));
+                }
+                this.array[this.size++] = (Integer) value;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void remove(int index) {
+            System.arraycopy(this.array, index + 1, this.array, index, --this.size - index);
+        }
+
+        Spliterator.OfInt spliterator() {
+            return Spliterators.spliterator(this.array, 0, this.size, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.array, this.size);
+        }
+
+        @Override
+        int hash() {
+            int hash = 1;
+            for (int i = 0; i < this.size; i++) {
+                hash = 31 * hash + Integer.hashCode(this.array[i]);
+            }
+            return hash;
+        }
+
+        @Override
+        boolean contentEquals(Storage other) {
+            if (other instanceof IntStorage) {
+                IntStorage ints = (IntStorage) other;
+                if (this.size != ints.size) {
+                    return false;
+                }
+                for (int i = 0; i < this.size; i++) {
+                    if (this.array[i] != ints.array[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.contentEquals(other);
+        }
+    }
+
+    private static final class LongStorage extends Storage {
+
+        private long[] array;
+
+        LongStorage(int capacity) {
+            this.array = new long[capacity];
+        }
+
+        @Override
+        Object get(int index) {
+            return this.array[index];
+        }
+
+        @Override
+        int getInt(int index, int def) {
+            return (int) this.array[index];
+        }
+
+        @Override
+        long getLong(int index, long def) {
+            return this.array[index];
+        }
+
+        @Override
+        double getDouble(int index, double def) {
+            return this.array[index];
+        }
+
+        @Override
+        boolean set(int index, Object value) {
+            if (value instanceof Long) {
+                this.array[index] = (Long) value;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean add(Object value) {
+            if (value instanceof Long) {
+                if (this.size == this.array.length) {
+                    this.array = Arrays.copyOf(this.array, grow(this.array.length, this.size + 1));
+                }
+                this.array[this.size++] = (Long) value;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void remove(int index) {
+            System.arraycopy(this.array, index + 1, this.array, index, --this.size - index);
+        }
+
+        Spliterator.OfLong spliterator() {
+            return Spliterators.spliterator(this.array, 0, this.size, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(this.array, this.size);
+        }
+
+        @Override
+        int hash() {
+            int hash = 1;
+            for (int i = 0; i < this.size; i++) {
+                hash = 31 * hash + Long.hashCode(this.array[i]);
+            }
+            return hash;
+        }
+
+        @Override
+        boolean contentEquals(Storage other) {
+            if (other instanceof LongStorage) {
+                LongStorage longs = (LongStorage) other;
+                if (this.size != longs.size) {
+                    return false;
+                }
+                for (int i = 0; i < this.size; i++) {
+                    if (this.array[i] != longs.array[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.contentEquals(other);
+        }
+    }
+
+    private static final class DoubleStorage extends Storage {
+
+        private double[] array;
+
+        DoubleStorage(int capacity) {
+            this.array = new double[capacity];
+        }
+
+        @Override
+        Object get(int index) {
+            return this.array[index];
+        }
+
+        @Override
+        int getInt(int index, int def) {
+            return (int) this.array[index];
+        }
+
+        @Override
+        long getLong(int index, long def) {
+            return (long) this.array[index];
+        }
+
+        @Override
+        double getDouble(int index, double def) {
+            return this.array[index];
+        }
+
+        @Override
+        boolean set(int index, Object value) {
+            if (value instanceof Double) {
+                this.array[index] = (Double) value;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean add(Object value) {
+            if (value instanceof Double) {
+                if (this.size == this.array.length) {
+                    this.array = Arrays.copyOf(this.array, grow(this.array.length, this.size + 1));
+                }
+                this.array[this.size++] = (Double) value;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void remove(int index) {
+            System.arraycopy(this.array, index + 1, this.array, index, --this.size - index);
+        }
+
+        Spliterator.OfDouble spliterator() {
+            return Spliterators.spliterator(this.array, 0, this.size, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(this.array, this.size);
+        }
+
+        @Override
+        int hash() {
+            int hash = 1;
+            for (int i = 0; i < this.size; i++) {
+                hash = 31 * hash + Double.hashCode(this.array[i]);
+            }
+            return hash;
+        }
+
+        @Override
+        boolean contentEquals(Storage other) {
+            if (other instanceof DoubleStorage) {
+                DoubleStorage doubles = (DoubleStorage) other;
+                if (this.size != doubles.size) {
+                    return false;
+                }
+                for (int i = 0; i < this.size; i++) {
+                    // same semantics as Double.equals()
+                    if (Double.doubleToLongBits(this.array[i]) != Double.doubleToLongBits(doubles.array[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.contentEquals(other);
+        }
     }
 }
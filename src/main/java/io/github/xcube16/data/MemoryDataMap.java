@@ -25,54 +25,224 @@
 package io.github.xcube16.data;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Objects;
 import com.google.common.collect.Maps;
 
 import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Default implementation of a {@link DataView} being used in memory.
+ *
+ * <p>Small maps keep their keys and values in two parallel arrays (in insertion order)
+ * and are searched linearly. Once a map grows past {@link #COMPACT_THRESHOLD} keys
+ * it switches over to a {@link java.util.LinkedHashMap}.</p>
+ *
+ * <p>The hash code is cached and recomputed only after this map, or a map or list
+ * inside of it, changes. Arrays are hashed by content (see {@link DataMap}), so they
+ * must not be modified after they have been stored.</p>
  */
 public class MemoryDataMap extends AbstractDataMap {
 
-    protected final Map<String, Object> map = Maps.newLinkedHashMap();
+    /**
+     * The maximum number of keys stored in the compact array form.
+     */
+    static final int COMPACT_THRESHOLD = 8;
+
+    private static final String[] EMPTY_KEYS = new String[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private String[] keys = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int size;
+
+    /**
+     * Only used once this map grows past {@link #COMPACT_THRESHOLD} keys.
+     */
+    @Nullable
+    private Map<String, Object> map;
+
+    /**
+     * The view or value this map is attached to, null if detached
+     */
+    @Nullable
+    Object owner;
+
+    /**
+     * Cached {@link #hashCode()}, only valid while {@link #hashed} is set
+     */
+    private int hash;
+    boolean hashed;
 
     public MemoryDataMap() {}
 
+    private MemoryDataMap(int expectedSize) {
+        if (expectedSize > COMPACT_THRESHOLD) {
+            this.map = Maps.newLinkedHashMapWithExpectedSize(expectedSize);
+        } else if (expectedSize > 0) {
+            this.keys = new String[expectedSize];
+            this.values = new Object[expectedSize];
+        }
+    }
+
+    /**
+     * Creates a {@link Builder} for a map that is expected to hold {@code expectedSize} keys.
+     *
+     * @param expectedSize The expected number of keys
+     * @return The builder
+     */
+    public static Builder builder(int expectedSize) {
+        checkArgument(expectedSize >= 0, "expectedSize can not be negative");
+        return new Builder(expectedSize);
+    }
+
     @Override
     public int size() {
-        return this.map.size();
+        return this.map == null ? this.size : this.map.size();
     }
 
     @Override
     public Set<String> getKeys() {
-        return this.map.keySet();
+        return this.map == null ? new KeySet() : this.map.keySet();
+    }
+
+    @Override
+    public Spliterator<Map.Entry<String, Object>> spliterator() {
+        if (this.map == null) {
+            return DataSpliterators.entries(this.keys, this.values, this.size, 0);
+        }
+        return DataSpliterators.entries(this.map.entrySet().spliterator());
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> consumer) {
+        if (this.map == null) {
+            for (int i = 0; i < this.size; i++) {
+                consumer.accept(this.keys[i]);
+            }
+        } else {
+            this.map.keySet().forEach(consumer);
+        }
     }
 
     @Override
     public Optional<Object> get(String key) {
         checkNotNull(key, "key");
 
+        if (this.map == null) {
+            int index = this.indexOf(key);
+            return index < 0 ? Optional.empty() : Optional.of(this.values[index]);
+        }
         return Optional.ofNullable(this.map.get(key));
     }
 
+    @Nullable
+    @Override
+    public Object getOrNull(String key) {
+        checkNotNull(key, "key");
+
+        if (this.map == null) {
+            int index = this.indexOf(key);
+            return index < 0 ? null : this.values[index];
+        }
+        return this.map.get(key);
+    }
+
     @Override
     public void setRaw(String key, Object value) {
-        this.map.put(key, value);
+        invalidateHash(this);
+        if (this.map != null) {
+            detach(this.map.put(key, value), this);
+            attach(value, this);
+            return;
+        }
+
+        int index = this.indexOf(key);
+        if (index >= 0) {
+            detach(this.values[index], this);
+            this.values[index] = value;
+        } else if (this.size < COMPACT_THRESHOLD) {
+            if (this.size == this.keys.length) {
+                int capacity = this.size == 0 ? 2 : this.size * 2;
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.values = Arrays.copyOf(this.values, capacity);
+            }
+            this.keys[this.size] = key;
+            this.values[this.size] = value;
+            this.size++;
+        } else {
+            // too big to be compact, move everything into a hash table
+            Map<String, Object> map = Maps.newLinkedHashMapWithExpectedSize(this.size * 2);
+            for (int i = 0; i < this.size; i++) {
+                map.put(this.keys[i], this.values[i]);
+            }
+            map.put(key, value);
+            this.map = map;
+            this.keys = EMPTY_KEYS;
+            this.values = EMPTY_VALUES;
+            this.size = 0;
+        }
+        attach(value, this);
     }
 
     @Override
     public MemoryDataMap remove(String key) {
         checkNotNull(key, "key");
-        this.map.remove(key);
+        if (this.map == null) {
+            int index = this.indexOf(key);
+            if (index >= 0) {
+                this.removeAt(index);
+            }
+        } else if (this.map.containsKey(key)) {
+            invalidateHash(this);
+            detach(this.map.remove(key), this);
+        }
         return this;
     }
 
+    @Override
+    public DataMap adopt(String key, DataView<?> view) {
+        checkNotNull(key, "key");
+        checkNotNull(view, "view");
+        if (!isAdoptable(view)) {
+            return this.set(key, view);
+        }
+        checkAdoptable(this, view);
+        this.setRaw(key, view);
+        return this;
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < this.size; i++) {
+            if (key.equals(this.keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        invalidateHash(this);
+        detach(this.values[index], this);
+        int moved = this.size - index - 1;
+        System.arraycopy(this.keys, index + 1, this.keys, index, moved);
+        System.arraycopy(this.values, index + 1, this.values, index, moved);
+        this.size--;
+        this.keys[this.size] = null;
+        this.values[this.size] = null;
+    }
+
     @Override
     public DataMap createMap(String key) {
         checkNotNull(key, "key");
@@ -105,17 +275,42 @@ public class MemoryDataMap extends AbstractDataMap {
 
     @Override
     public boolean isEmpty() {
-        return this.map.isEmpty();
+        return this.size() == 0;
     }
 
     @Override
     public void clear() {
-        this.map.clear();
+        invalidateHash(this);
+        if (this.map != null) {
+            this.map.values().forEach(value -> detach(value, this));
+        }
+        for (int i = 0; i < this.size; i++) {
+            detach(this.values[i], this);
+        }
+        this.keys = EMPTY_KEYS;
+        this.values = EMPTY_VALUES;
+        this.size = 0;
+        this.map = null;
     }
 
     @Override
     public int hashCode() {
-        return this.map.hashCode();
+        if (!this.hashed) {
+            // same result as Map.hashCode(), except that arrays are hashed by content
+            int hash = 0;
+            if (this.map != null) {
+                for (Map.Entry<String, Object> entry : this.map.entrySet()) {
+                    hash += entry.getKey().hashCode() ^ valueHash(entry.getValue());
+                }
+            } else {
+                for (int i = 0; i < this.size; i++) {
+                    hash += this.keys[i].hashCode() ^ valueHash(this.values[i]);
+                }
+            }
+            this.hash = hash;
+            this.hashed = true;
+        }
+        return this.hash;
     }
 
     @Override
@@ -128,12 +323,150 @@ public class MemoryDataMap extends AbstractDataMap {
         }
         final MemoryDataMap other = (MemoryDataMap) obj;
 
-        return Objects.equal(this.map.entrySet(), other.map.entrySet());
+        if (this.size() != other.size() || this.hashCode() != other.hashCode()) {
+            return false;
+        }
+        // key order does not matter, just like Map.equals()
+        for (String key : this.getKeys()) {
+            Object value = other.getOrNull(key);
+            if (value == null || !valueEquals(this.getOrNull(key), value)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public String toString() {
         final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
-        return helper.add("map", this.map).toString();
+        if (this.map != null) {
+            return helper.add("map", this.map).toString();
+        }
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < this.size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.keys[i]).append('=').append(this.values[i]);
+        }
+        return helper.add("map", builder.append('}')).toString();
+    }
+
+    /**
+     * Fills a new {@link MemoryDataMap} with values that are already known to be valid.
+     *
+     * <p>Values are stored as they are, they are not run through the coercion
+     * done by {@link #set(String, Object)}. This is meant for decoders and converters.
+     * Only put Primitive Allowed Types, Array Allowed Types or {@link DataView}s
+     * that are not part of another view (they are adopted, not copied).</p>
+     */
+    public static final class Builder {
+
+        @Nullable
+        private MemoryDataMap map;
+
+        private Builder(int expectedSize) {
+            this.map = new MemoryDataMap(expectedSize);
+        }
+
+        /**
+         * Puts a value. Putting a key twice replaces the value.
+         *
+         * @param key The key
+         * @param value The value, must be an Allowed Type
+         * @return This builder
+         */
+        public Builder put(String key, Object value) {
+            checkNotNull(key, "key");
+            checkNotNull(value, "value");
+            MemoryDataMap map = this.map();
+            if (value instanceof DataView) {
+                map.adopt(key, (DataView<?>) value);
+            } else {
+                map.setRaw(key, value);
+            }
+            return this;
+        }
+
+        /**
+         * Gets the finished map. The builder can not be used after this.
+         *
+         * @return The map
+         */
+        public MemoryDataMap build() {
+            MemoryDataMap map = this.map();
+            this.map = null;
+            return map;
+        }
+
+        private MemoryDataMap map() {
+            checkState(this.map != null, "The builder has already been built");
+            return this.map;
+        }
+    }
+
+    /**
+     * A live view of the keys while this map is in its compact form.
+     */
+    private final class KeySet extends AbstractSet<String> {
+
+        @Override
+        public int size() {
+            return MemoryDataMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && MemoryDataMap.this.get((String) o).isPresent();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (this.contains(o)) {
+                MemoryDataMap.this.remove((String) o);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            MemoryDataMap.this.clear();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            if (MemoryDataMap.this.map != null) {
+                return MemoryDataMap.this.map.keySet().iterator();
+            }
+            return new Iterator<String>() {
+
+                private int next;
+                private boolean removable;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < MemoryDataMap.this.size;
+                }
+
+                @Override
+                public String next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    this.removable = true;
+                    return MemoryDataMap.this.keys[this.next++];
+                }
+
+                @Override
+                public void remove() {
+                    if (!this.removable) {
+                        throw new IllegalStateException();
+                    }
+                    this.removable = false;
+                    MemoryDataMap.this.removeAt(--this.next);
+                }
+            };
+        }
     }
 }
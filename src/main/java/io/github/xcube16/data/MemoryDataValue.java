@@ -39,8 +39,11 @@ public class MemoryDataValue implements DataValue {
     public MemoryDataValue() {
     }
 
+    /**
+     * Wraps a value without taking ownership of it.
+     */
     MemoryDataValue(@Nullable Object value) {
-        this.setRaw(value);
+        this.value = value;
     }
 
     public static MemoryDataValue of(Object value) {
@@ -52,52 +55,95 @@ public class MemoryDataValue implements DataValue {
         return Optional.ofNullable(this.value);
     }
 
+    @Nullable
+    @Override
+    public Object getOrNull() {
+        return this.value;
+    }
+
     @Override
     public MemoryDataValue set(Object value) {
         // TODO: this TODO message is a duplicate of one another set() method... o and the code
         checkNotNull(value, "value");
 
-        if (AbstractDataView.isPrimitive(value) || AbstractDataView.isPrimitiveArray(value)) { // Primitive Allowed Types or Array Allowed Types
+        DataType type = DataType.of(value);
+        if (type.isRaw()) { // Primitive Allowed Types or Array Allowed Types
             this.setRaw(value);
+            return this;
+        }
 
-        } else if (value instanceof DataMap) { // Structure Allowed Types
-            AbstractDataView.copyDataMap(this.createMap(), (DataMap) value);
-        } else if (value instanceof DataList) { // Structure Allowed Types
-            AbstractDataView.copyDataList(this.createList(), (DataList) value);
-
-        } else if (value instanceof DataSerializable) { // Serializable Object
-            ((DataSerializable) value).toContainer(this);
-
-        } else if (value instanceof Enum) { // common java stuff
-            this.setRaw(((Enum) value).name());
-        } else if (value instanceof Map) { // common java stuff
-            AbstractDataView.copyMap(this.createMap(), (Map) value);
-        } else if (value instanceof Collection) { // common java stuff
-            AbstractDataView.copyCollection(this.createList(), (Collection) value);
+        switch (type) {
+            case DATA_MAP: // Structure Allowed Types
+                AbstractDataView.copyDataMap(this.createMap(), (DataMap) value);
+                break;
+            case DATA_LIST: // Structure Allowed Types
+                AbstractDataView.copyDataList(this.createList(), (DataList) value);
+                break;
+
+            case SERIALIZABLE: // Serializable Object
+                ((DataSerializable) value).toContainer(this);
+                break;
+
+            case ENUM: // common java stuff
+                this.setRaw(((Enum) value).name());
+                break;
+            case JAVA_MAP: // common java stuff
+                AbstractDataView.copyMap(this.createMap(), (Map) value);
+                break;
+            case COLLECTION: // common java stuff
+                AbstractDataView.copyCollection(this.createList(), (Collection) value);
+                break;
+
+            default:
+                // nope, KU-BOOM!
+                throw new IllegalArgumentException(value.getClass() + " can not be serialized");
+        }
+        return this;
+    }
 
-        } else {
-            // nope, KU-BOOM!
-            throw new IllegalArgumentException(value.getClass() + " can not be serialized");
+    @Override
+    public MemoryDataValue adopt(DataView<?> view) {
+        checkNotNull(view, "view");
+        if (!AbstractDataView.isAdoptable(view)) {
+            return this.set(view);
         }
+        AbstractDataView.checkAdoptable(this, view);
+        this.setRaw(view);
         return this;
     }
 
     private void setRaw(Object value) {
+        AbstractDataView.detach(this.value, this);
+        AbstractDataView.attach(value, this);
         this.value = value;
     }
 
+    /**
+     * Empties this value if it holds {@code view}, called when {@code view} is adopted by someone else.
+     */
+    void release(Object view) {
+        if (this.value == view) {
+            this.value = null;
+        }
+    }
+
     @Override
     public void clear() {
+        AbstractDataView.detach(this.value, this);
         this.value = null;
     }
 
     @Override
     public DataMap createMap() {
-        return (DataMap) (this.value = new MemoryDataMap());
+        MemoryDataMap map = new MemoryDataMap();
+        this.setRaw(map);
+        return map;
     }
 
     @Override
     public DataList createList() {
-        return (DataList) (this.value = new MemoryDataList());
+        MemoryDataList list = new MemoryDataList();
+        this.setRaw(list);
+        return list;
     }
 }
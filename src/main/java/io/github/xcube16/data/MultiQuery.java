@@ -0,0 +1,215 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads many {@link DataQuery}s from the same view in a single walk.
+ *
+ * <p>The queries are merged into a prefix tree when the {@link MultiQuery} is
+ * created, so a part shared by several queries is looked up only once per
+ * {@link #extract(DataView, Object[])}. A deserializer that reads twenty fields
+ * from {@code "config.server.*"} walks to {@code "config.server"} once instead
+ * of twenty times.</p>
+ *
+ * <p>Multi queries are immutable and can be shared between threads.</p>
+ */
+public final class MultiQuery {
+
+    private final ImmutableList<DataQuery> queries;
+    private final Node root;
+
+    private MultiQuery(ImmutableList<DataQuery> queries) {
+        this.queries = queries;
+
+        PendingNode root = new PendingNode(null);
+        for (int i = 0; i < queries.size(); i++) {
+            PendingNode node = root;
+            for (String part : queries.get(i).getParts()) {
+                node = node.children.computeIfAbsent(part, PendingNode::new);
+            }
+            node.outputs.add(i);
+        }
+        this.root = root.build();
+    }
+
+    /**
+     * Creates a multi query, the values of the queries are extracted in the same order.
+     *
+     * @param queries The queries
+     * @return The multi query
+     */
+    public static MultiQuery of(DataQuery... queries) {
+        return of(ImmutableList.copyOf(queries));
+    }
+
+    /**
+     * Creates a multi query, the values of the queries are extracted in the same order.
+     *
+     * @param queries The queries
+     * @return The multi query
+     */
+    public static MultiQuery of(List<DataQuery> queries) {
+        return new MultiQuery(ImmutableList.copyOf(queries));
+    }
+
+    /**
+     * Gets the queries, in the order their values are extracted.
+     *
+     * @return The queries
+     */
+    public List<DataQuery> getQueries() {
+        return this.queries;
+    }
+
+    /**
+     * Gets the number of queries.
+     *
+     * @return The number of queries
+     */
+    public int size() {
+        return this.queries.size();
+    }
+
+    /**
+     * Extracts the value of every query from {@code root}. Element {@code i} of the
+     * result belongs to query {@code i}, and is null if there is no value at it.
+     *
+     * @param root The view to read from
+     * @return The values
+     */
+    public Object[] extract(DataView<?> root) {
+        Object[] values = new Object[this.queries.size()];
+        this.extract(root, values);
+        return values;
+    }
+
+    /**
+     * Extracts the value of every query from {@code root} into {@code values}, which can
+     * be reused between calls. Element {@code i} belongs to query {@code i}, and is set
+     * to null if there is no value at it.
+     *
+     * @param root The view to read from
+     * @param values The array to fill, must be at least {@link #size()} long
+     */
+    public void extract(DataView<?> root, Object[] values) {
+        checkNotNull(root, "root");
+        checkNotNull(values, "values");
+        checkArgument(values.length >= this.queries.size(), "values is shorter than the number of queries");
+        Arrays.fill(values, 0, this.queries.size(), null);
+        extract(this.root, root, values);
+    }
+
+    private static void extract(Node node, Object value, Object[] values) {
+        for (int output : node.outputs) {
+            values[output] = value;
+        }
+        if (node.children.length == 0) {
+            return;
+        }
+        DataView<?> view = (DataView<?>) value;
+        for (Node child : node.children) {
+            Object next = CompiledQuery.step(view, child.key, child.index);
+            if (next != null && (child.children.length == 0 || next instanceof DataView)) {
+                extract(child, next, values);
+            } else if (next != null) {
+                // a leaf for some queries, but the longer ones end here
+                for (int output : child.outputs) {
+                    values[output] = next;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return this.queries.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof MultiQuery && this.queries.equals(((MultiQuery) obj).queries);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("queries", this.queries)
+                .toString();
+    }
+
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        @Nullable final String key;
+        final int index;
+        final Node[] children;
+        final int[] outputs;
+
+        Node(@Nullable String key, Node[] children, int[] outputs) {
+            this.key = key;
+            this.index = key == null ? -1 : AbstractDataList.parseIndex(key);
+            this.children = children.length == 0 ? NO_CHILDREN : children;
+            this.outputs = outputs;
+        }
+    }
+
+    private static final class PendingNode {
+
+        @Nullable final String key;
+        final Map<String, PendingNode> children = new LinkedHashMap<>();
+        final List<Integer> outputs = new ArrayList<>();
+
+        PendingNode(@Nullable String key) {
+            this.key = key;
+        }
+
+        Node build() {
+            Node[] children = new Node[this.children.size()];
+            int i = 0;
+            for (PendingNode child : this.children.values()) {
+                children[i++] = child.build();
+            }
+            int[] outputs = new int[this.outputs.size()];
+            for (i = 0; i < outputs.length; i++) {
+                outputs[i] = this.outputs.get(i);
+            }
+            return new Node(this.key, children, outputs);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+/**
+ * A hand written scanner for numbers in text, used by {@link Coerce2}.
+ *
+ * <p>Works directly on a {@link CharSequence} without copying it, skips
+ * surrounding whitespace the same way {@link String#trim()} does and reports
+ * malformed input through {@link #scan(CharSequence)} instead of throwing.</p>
+ *
+ * <p>The accepted syntax is the decimal syntax of {@link Double#parseDouble(String)}
+ * including a trailing {@code f}/{@code d} suffix, {@code NaN} and {@code Infinity}.
+ * Hexadecimal floating point literals are not supported.</p>
+ *
+ * <p>{@link #toLong(CharSequence)}, {@link #toDouble(CharSequence)} and
+ * {@link #toFloat(CharSequence)} expect input that {@link #scan(CharSequence)}
+ * has already accepted.</p>
+ */
+final class NumberScanner {
+
+    /**
+     * The input is not a number.
+     */
+    static final int INVALID = 0;
+
+    /**
+     * The input is a plain base 10 integer that fits in a long.
+     */
+    static final int LONG = 1;
+
+    /**
+     * The input is any other number.
+     */
+    static final int DECIMAL = 2;
+
+    /**
+     * Powers of ten that are exact in a double.
+     */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Powers of ten that are exact in a float.
+     */
+    private static final float[] POW10F = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private static final long MANTISSA_LIMIT = (Long.MAX_VALUE - 9) / 10;
+
+    private NumberScanner() {}
+
+    /**
+     * Gets the index of the first character that is not whitespace.
+     */
+    static int trimStart(CharSequence str) {
+        int start = 0;
+        int length = str.length();
+        while (start < length && str.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Gets the index after the last character that is not whitespace.
+     */
+    static int trimEnd(CharSequence str, int start) {
+        int end = str.length();
+        while (end > start && str.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Checks the syntax of a number.
+     *
+     * @param str The text to scan
+     * @return {@link #INVALID}, {@link #LONG} or {@link #DECIMAL}
+     */
+    static int scan(CharSequence str) {
+        int i = trimStart(str);
+        int end = trimEnd(str, i);
+        if (i == end) {
+            return INVALID;
+        }
+
+        boolean negative = false;
+        char c = str.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            i++;
+        }
+        if (matches(str, i, end, "NaN") || matches(str, i, end, "Infinity")) {
+            return DECIMAL;
+        }
+
+        // accumulate negatively like Long.parseLong() so Long.MIN_VALUE fits
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multLimit = limit / 10;
+        long value = 0;
+        boolean fits = true;
+        int digits = 0;
+        for (; i < end; i++) {
+            int digit = str.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (fits) {
+                if (value < multLimit || value * 10 < limit + digit) {
+                    fits = false;
+                } else {
+                    value = value * 10 - digit;
+                }
+            }
+            digits++;
+        }
+        if (i == end) {
+            return digits == 0 ? INVALID : fits ? LONG : DECIMAL;
+        }
+
+        if (str.charAt(i) == '.') {
+            i++;
+            for (; i < end && isDigit(str.charAt(i)); i++) {
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return INVALID;
+        }
+
+        if (i < end && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+                i++;
+            }
+            int expDigits = 0;
+            for (; i < end && isDigit(str.charAt(i)); i++) {
+                expDigits++;
+            }
+            if (expDigits == 0) {
+                return INVALID;
+            }
+        }
+
+        if (i < end) {
+            c = str.charAt(i);
+            if (c == 'f' || c == 'F' || c == 'd' || c == 'D') {
+                i++;
+            }
+        }
+        return i == end ? DECIMAL : INVALID;
+    }
+
+    /**
+     * Gets the value of text that was scanned as {@link #LONG}.
+     *
+     * @param str The text
+     * @return The value
+     */
+    static long toLong(CharSequence str) {
+        int i = trimStart(str);
+        int end = trimEnd(str, i);
+        boolean negative = false;
+        char c = str.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            i++;
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            value = value * 10 - (str.charAt(i) - '0');
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Gets the value of text that was scanned as {@link #LONG} or {@link #DECIMAL}.
+     *
+     * <p>The result is the same as {@link Double#parseDouble(String)}.</p>
+     *
+     * @param str The text
+     * @return The value
+     */
+    static double toDouble(CharSequence str) {
+        return decimal(str, false);
+    }
+
+    /**
+     * Gets the value of text that was scanned as {@link #LONG} or {@link #DECIMAL}.
+     *
+     * <p>The result is the same as {@link Float#parseFloat(String)}.</p>
+     *
+     * @param str The text
+     * @return The value
+     */
+    static float toFloat(CharSequence str) {
+        return (float) decimal(str, true);
+    }
+
+    private static double decimal(CharSequence str, boolean single) {
+        int i = trimStart(str);
+        int end = trimEnd(str, i);
+        boolean negative = false;
+        char c = str.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            i++;
+        }
+        c = str.charAt(i);
+        if (c == 'N') {
+            return Double.NaN;
+        } else if (c == 'I') {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            c = str.charAt(i);
+            if (isDigit(c)) {
+                if (mantissa > MANTISSA_LIMIT) {
+                    exact = false; // too many digits, let the JDK round it
+                    break;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (c == '.') {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+
+        if (exact && i < end && (c == 'e' || c == 'E')) {
+            i++;
+            boolean negativeExp = false;
+            c = str.charAt(i);
+            if (c == '+' || c == '-') {
+                negativeExp = c == '-';
+                i++;
+            }
+            int exp = 0;
+            for (; i < end && isDigit(str.charAt(i)); i++) {
+                if (exp < 100000) { // anything this big is out of range anyway
+                    exp = exp * 10 + (str.charAt(i) - '0');
+                }
+            }
+            exponent += negativeExp ? -exp : exp;
+        }
+
+        if (exact) {
+            // the conversions below are exact or correctly rounded (Clinger's fast path)
+            if (single) {
+                if (exponent == 0) {
+                    float value = (float) mantissa;
+                    return negative ? -value : value;
+                } else if (mantissa <= 1 << 24 && exponent >= -10 && exponent <= 10) {
+                    float value = (float) mantissa;
+                    value = exponent < 0 ? value / POW10F[-exponent] : value * POW10F[exponent];
+                    return negative ? -value : value;
+                }
+            } else {
+                if (exponent == 0) {
+                    double value = (double) mantissa;
+                    return negative ? -value : value;
+                } else if (mantissa <= 1L << 53 && exponent >= -22 && exponent <= 22) {
+                    double value = (double) mantissa;
+                    value = exponent < 0 ? value / POW10[-exponent] : value * POW10[exponent];
+                    return negative ? -value : value;
+                }
+            }
+        }
+
+        // rare, the syntax has already been checked so this can't throw
+        String string = str.toString();
+        return single ? Float.parseFloat(string) : Double.parseDouble(string);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean matches(CharSequence str, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (str.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataList} backed by an immutable 32-way trie.
+ *
+ * <p>{@link #copy()} is O(1) and shares everything with this list, {@link #set(Integer, Object)}
+ * and {@link #add(Object)} only copy the path form the root of the tree to the changed value.
+ * Removing an element other than the last one is O(n - index).</p>
+ *
+ * <p>See {@link PersistentDataMap} for how nested maps and lists behave.</p>
+ */
+public class PersistentDataList extends AbstractDataList {
+
+    /**
+     * The state of a root list, unused if this list is a view into a parent.
+     */
+    private PersistentVector root;
+    @Nullable private final PersistentParent parent;
+    @Nullable private final Object key;
+    private final PersistentParent asParent = new AsParent();
+
+    public PersistentDataList() {
+        this(PersistentVector.EMPTY);
+    }
+
+    private PersistentDataList(PersistentVector root) {
+        this.root = root;
+        this.parent = null;
+        this.key = null;
+    }
+
+    PersistentDataList(PersistentParent parent, Object key) {
+        this.root = PersistentVector.EMPTY;
+        this.parent = parent;
+        this.key = key;
+    }
+
+    /**
+     * Gets the current immutable state of this list.
+     */
+    PersistentVector state() {
+        if (this.parent == null) {
+            return this.root;
+        }
+        Object state = this.parent.stateAt(this.key);
+        if (state instanceof PersistentVector) {
+            return (PersistentVector) state;
+        }
+        throw new IllegalStateException("The list at '" + this.key + "' was removed from its parent");
+    }
+
+    private void commit(PersistentVector state) {
+        if (this.parent == null) {
+            this.root = state;
+        } else {
+            this.parent.replace(this.key, state);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.state().size();
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+
+        Object value = this.asParent.stateAt(key);
+        return value == null ? Optional.empty() : Optional.of(PersistentParent.wrap(this.asParent, key, value));
+    }
+
+    @Override
+    public DataList set(Integer key, Object value) {
+        Object state = PersistentParent.stateOf(value);
+        if (state != null) { // share instead of copying
+            checkNotNull(key, "key");
+            this.setRaw(key, state);
+            return this;
+        }
+        return super.set(key, value);
+    }
+
+    @Override
+    protected void setRaw(Integer key, Object value) {
+        this.commit(this.state().set(key, value));
+    }
+
+    @Override
+    protected void addRaw(Object value) {
+        this.commit(this.state().add(value));
+    }
+
+    @Override
+    public PersistentDataList remove(Integer key) {
+        checkNotNull(key, "key");
+        PersistentVector state = this.state();
+        if (key >= 0 && key < state.size()) {
+            this.commit(state.remove(key));
+        }
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        checkNotNull(key, "key");
+
+        this.setRaw(key, PersistentTrieMap.EMPTY);
+        return new PersistentDataMap(this.asParent, key);
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        checkNotNull(key, "key");
+
+        this.setRaw(key, PersistentVector.EMPTY);
+        return new PersistentDataList(this.asParent, key);
+    }
+
+    @Override
+    public DataMap addMap() {
+        return this.createMap(this.size());
+    }
+
+    @Override
+    public DataList addList() {
+        return this.createList(this.size());
+    }
+
+    /**
+     * Creates a snapshot of this list in O(1).
+     *
+     * @return The snapshot
+     */
+    public PersistentDataList copy() {
+        return new PersistentDataList(this.state());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.state().size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        this.commit(PersistentVector.EMPTY);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.state().hashCode();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final PersistentDataList other = (PersistentDataList) obj;
+
+        return this.state().equals(other.state());
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        return helper.add("list", this.state()).toString();
+    }
+
+    /**
+     * Lets nested views read and replace there state in this list.
+     */
+    private final class AsParent implements PersistentParent {
+
+        @Override
+        @Nullable
+        public Object stateAt(Object key) {
+            PersistentVector state = PersistentDataList.this.state();
+            int index = (Integer) key;
+            return index >= 0 && index < state.size() ? state.get(index) : null;
+        }
+
+        @Override
+        public void replace(Object key, Object state) {
+            PersistentDataList.this.commit(PersistentDataList.this.state().set((Integer) key, state));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataMap} backed by an immutable hash trie.
+ *
+ * <p>{@link #copy()} is O(1) and shares everything with this map, updates only copy
+ * the path form the root of the tree to the changed value. This makes it cheap to keep
+ * lots of snapshots of a big tree around (undo history, etc.).</p>
+ *
+ * <p>Setting a {@link PersistentDataMap} or {@link PersistentDataList} as a value
+ * stores a snapshot of it in O(1) instead of copying it.</p>
+ *
+ * <p>Maps and lists returned by {@link #get(String)}, {@link #createMap(String)}, etc.
+ * are views bound to there key in this map. They see whatever is currently stored
+ * at that key, not a snapshot.</p>
+ *
+ * <p>Key order is not preserved. Arrays are shared between snapshots and must not be
+ * modified after they are set.</p>
+ */
+public class PersistentDataMap extends AbstractDataMap {
+
+    /**
+     * The state of a root map, unused if this map is a view into a parent.
+     */
+    private PersistentTrieMap root;
+    @Nullable private final PersistentParent parent;
+    @Nullable private final Object key;
+    private final PersistentParent asParent = new AsParent();
+
+    public PersistentDataMap() {
+        this(PersistentTrieMap.EMPTY);
+    }
+
+    private PersistentDataMap(PersistentTrieMap root) {
+        this.root = root;
+        this.parent = null;
+        this.key = null;
+    }
+
+    PersistentDataMap(PersistentParent parent, Object key) {
+        this.root = PersistentTrieMap.EMPTY;
+        this.parent = parent;
+        this.key = key;
+    }
+
+    /**
+     * Creates a {@link PersistentDataMap} containing everything in {@code map}.
+     * This is O(1) if {@code map} is also a {@link PersistentDataMap}.
+     *
+     * @param map The map to copy
+     * @return The new {@link PersistentDataMap}
+     */
+    public static PersistentDataMap copyOf(DataMap map) {
+        if (map instanceof PersistentDataMap) {
+            return ((PersistentDataMap) map).copy();
+        }
+        PersistentDataMap result = new PersistentDataMap();
+        copyDataMap(result, map);
+        return result;
+    }
+
+    /**
+     * Gets the current immutable state of this map.
+     */
+    PersistentTrieMap state() {
+        if (this.parent == null) {
+            return this.root;
+        }
+        Object state = this.parent.stateAt(this.key);
+        if (state instanceof PersistentTrieMap) {
+            return (PersistentTrieMap) state;
+        }
+        throw new IllegalStateException("The map at '" + this.key + "' was removed from its parent");
+    }
+
+    private void commit(PersistentTrieMap state) {
+        if (this.parent == null) {
+            this.root = state;
+        } else {
+            this.parent.replace(this.key, state);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.state().size();
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return new KeySet();
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        checkNotNull(key, "key");
+
+        Object value = this.state().get(key);
+        return value == null ? Optional.empty() : Optional.of(PersistentParent.wrap(this.asParent, key, value));
+    }
+
+    @Override
+    public DataMap set(String key, Object value) {
+        Object state = PersistentParent.stateOf(value);
+        if (state != null) { // share instead of copying
+            checkNotNull(key, "key");
+            this.setRaw(key, state);
+            return this;
+        }
+        return super.set(key, value);
+    }
+
+    @Override
+    protected void setRaw(String key, Object value) {
+        this.commit(this.state().put(key, value));
+    }
+
+    @Override
+    public PersistentDataMap remove(String key) {
+        checkNotNull(key, "key");
+        this.commit(this.state().remove(key));
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(String key) {
+        checkNotNull(key, "key");
+
+        this.setRaw(key, PersistentTrieMap.EMPTY);
+        return new PersistentDataMap(this.asParent, key);
+    }
+
+    @Override
+    public DataList createList(String key) {
+        checkNotNull(key, "key");
+
+        this.setRaw(key, PersistentVector.EMPTY);
+        return new PersistentDataList(this.asParent, key);
+    }
+
+    /**
+     * Creates a snapshot of this map in O(1).
+     *
+     * @return The snapshot
+     */
+    @Override
+    public PersistentDataMap copy() {
+        return new PersistentDataMap(this.state());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.state().size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        this.commit(PersistentTrieMap.EMPTY);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.state().hashCode();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final PersistentDataMap other = (PersistentDataMap) obj;
+
+        return this.state().equals(other.state());
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        return helper.add("map", this.state()).toString();
+    }
+
+    /**
+     * Lets nested views read and replace there state in this map.
+     */
+    private final class AsParent implements PersistentParent {
+
+        @Override
+        @Nullable
+        public Object stateAt(Object key) {
+            return PersistentDataMap.this.state().get((String) key);
+        }
+
+        @Override
+        public void replace(Object key, Object state) {
+            PersistentDataMap.this.commit(PersistentDataMap.this.state().put((String) key, state));
+        }
+    }
+
+    /**
+     * A live view of the keys. Iterators see the keys as they were when the iterator was created.
+     */
+    private final class KeySet extends AbstractSet<String> {
+
+        @Override
+        public int size() {
+            return PersistentDataMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && PersistentDataMap.this.state().get((String) o) != null;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (this.contains(o)) {
+                PersistentDataMap.this.remove((String) o);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            PersistentDataMap.this.clear();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            Iterator<String> keys = PersistentDataMap.this.state().keyIterator();
+            return new Iterator<String>() {
+
+                @Nullable private String last;
+
+                @Override
+                public boolean hasNext() {
+                    return keys.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return this.last = keys.next();
+                }
+
+                @Override
+                public void remove() {
+                    if (this.last == null) {
+                        throw new IllegalStateException();
+                    }
+                    PersistentDataMap.this.remove(this.last);
+                    this.last = null;
+                }
+            };
+        }
+    }
+}
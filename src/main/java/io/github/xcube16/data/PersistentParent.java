@@ -0,0 +1,75 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import javax.annotation.Nullable;
+
+/**
+ * Internal glue between {@link PersistentDataMap}, {@link PersistentDataList}
+ * and the views they hand out for nested maps and lists.
+ *
+ * <p>The immutable state of a nested map/list is stored in its parent's state,
+ * so updating a nested view replaces it in the parent, all the way up to the root.</p>
+ */
+interface PersistentParent {
+
+    /**
+     * Gets the raw state stored at {@code key}.
+     */
+    @Nullable
+    Object stateAt(Object key);
+
+    /**
+     * Replaces the raw state stored at {@code key}.
+     */
+    void replace(Object key, Object state);
+
+    /**
+     * Gets the immutable state of a {@link PersistentDataMap} or {@link PersistentDataList},
+     * or null if {@code value} is neither.
+     */
+    @Nullable
+    static Object stateOf(Object value) {
+        if (value instanceof PersistentDataMap) {
+            return ((PersistentDataMap) value).state();
+        } else if (value instanceof PersistentDataList) {
+            return ((PersistentDataList) value).state();
+        }
+        return null;
+    }
+
+    /**
+     * Turns the state of a nested map/list into a view bound to {@code key} in {@code parent}.
+     * Anything else is an Allowed Type and is returned as is.
+     */
+    static Object wrap(PersistentParent parent, Object key, Object value) {
+        if (value instanceof PersistentTrieMap) {
+            return new PersistentDataMap(parent, key);
+        } else if (value instanceof PersistentVector) {
+            return new PersistentDataList(parent, key);
+        }
+        return value;
+    }
+}
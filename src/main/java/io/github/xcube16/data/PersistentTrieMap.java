@@ -0,0 +1,412 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash array mapped trie (HAMT) from {@link String} keys to values.
+ *
+ * <p>Updates copy only the path form the root to the changed entry, everything
+ * else is shared with the previous version.</p>
+ */
+final class PersistentTrieMap {
+
+    static final PersistentTrieMap EMPTY = new PersistentTrieMap(BitmapNode.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+    private int hash; // lazy loaded, 0 if not computed yet (or if it really is 0)
+
+    private PersistentTrieMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    @Nullable
+    Object get(String key) {
+        return this.root.find(0, key.hashCode(), key);
+    }
+
+    PersistentTrieMap put(String key, Object value) {
+        boolean[] added = new boolean[1];
+        Node root = this.root.put(0, key.hashCode(), key, value, added);
+        if (root == this.root) {
+            return this;
+        }
+        return new PersistentTrieMap(root, added[0] ? this.size + 1 : this.size);
+    }
+
+    PersistentTrieMap remove(String key) {
+        Node root = this.root.remove(0, key.hashCode(), key);
+        if (root == this.root) {
+            return this;
+        }
+        return root == null ? EMPTY : new PersistentTrieMap(root, this.size - 1);
+    }
+
+    void forEach(BiConsumer<String, Object> consumer) {
+        this.root.forEach(consumer);
+    }
+
+    /**
+     * Iterates over the keys of this version. Later updates are not seen by the iterator.
+     */
+    Iterator<String> keyIterator() {
+        return new KeyIterator(this.root);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0 && this.size != 0) {
+            // same result as Map.hashCode(), except that arrays are hashed by content
+            int[] sum = new int[1];
+            this.forEach((k, v) -> sum[0] += k.hashCode() ^ AbstractDataView.valueHash(v));
+            this.hash = hash = sum[0];
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PersistentTrieMap)) {
+            return false;
+        }
+        PersistentTrieMap other = (PersistentTrieMap) obj;
+        if (this.size != other.size || this.hashCode() != other.hashCode()) {
+            return false;
+        }
+        for (Iterator<String> it = this.keyIterator(); it.hasNext(); ) {
+            String key = it.next();
+            Object value = other.get(key);
+            if (value == null || !AbstractDataView.valueEquals(this.get(key), value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        this.forEach((k, v) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(k).append('=').append(v);
+        });
+        return builder.append('}').toString();
+    }
+
+    /*
+     * Trie nodes
+     */
+
+    private interface Node {
+
+        @Nullable
+        Object find(int shift, int hash, String key);
+
+        Node put(int shift, int hash, String key, Object value, boolean[] added);
+
+        /**
+         * @return The new node, or null if the node is now empty
+         */
+        @Nullable
+        Node remove(int shift, int hash, String key);
+
+        void forEach(BiConsumer<String, Object> consumer);
+    }
+
+    /**
+     * Stores up to 32 entries, the bitmap marks witch of the 32 slots are used.
+     * Entries are stored in pairs, [key, value] or [null, sub node].
+     */
+    private static final class BitmapNode implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        @Override
+        @Nullable
+        public Object find(int shift, int hash, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((this.bitmap & bit) == 0) {
+                return null;
+            }
+            int i = this.index(bit) * 2;
+            Object k = this.array[i];
+            if (k == null) {
+                return ((Node) this.array[i + 1]).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? this.array[i + 1] : null;
+        }
+
+        @Override
+        public Node put(int shift, int hash, String key, Object value, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = this.index(bit) * 2;
+
+            if ((this.bitmap & bit) == 0) {
+                Object[] array = new Object[this.array.length + 2];
+                System.arraycopy(this.array, 0, array, 0, i);
+                array[i] = key;
+                array[i + 1] = value;
+                System.arraycopy(this.array, i, array, i + 2, this.array.length - i);
+                added[0] = true;
+                return new BitmapNode(this.bitmap | bit, array);
+            }
+
+            Object k = this.array[i];
+            Object v = this.array[i + 1];
+            if (k == null) {
+                Node node = ((Node) v).put(shift + BITS, hash, key, value, added);
+                return node == v ? this : this.with(i + 1, node);
+            }
+            if (key.equals(k)) {
+                return v == value ? this : this.with(i + 1, value);
+            }
+            added[0] = true;
+            Object[] array = this.array.clone();
+            array[i] = null;
+            array[i + 1] = createNode(shift + BITS, (String) k, v, hash, key, value);
+            return new BitmapNode(this.bitmap, array);
+        }
+
+        @Override
+        @Nullable
+        public Node remove(int shift, int hash, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((this.bitmap & bit) == 0) {
+                return this;
+            }
+            int i = this.index(bit) * 2;
+            Object k = this.array[i];
+            if (k == null) {
+                Node node = (Node) this.array[i + 1];
+                Node removed = node.remove(shift + BITS, hash, key);
+                if (removed == node) {
+                    return this;
+                }
+                if (removed != null) {
+                    return this.with(i + 1, removed);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+
+            if (this.bitmap == bit) {
+                return null;
+            }
+            Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, i);
+            System.arraycopy(this.array, i + 2, array, i, this.array.length - i - 2);
+            return new BitmapNode(this.bitmap ^ bit, array);
+        }
+
+        private BitmapNode with(int i, Object value) {
+            Object[] array = this.array.clone();
+            array[i] = value;
+            return new BitmapNode(this.bitmap, array);
+        }
+
+        @Override
+        public void forEach(BiConsumer<String, Object> consumer) {
+            for (int i = 0; i < this.array.length; i += 2) {
+                if (this.array[i] == null) {
+                    ((Node) this.array[i + 1]).forEach(consumer);
+                } else {
+                    consumer.accept((String) this.array[i], this.array[i + 1]);
+                }
+            }
+        }
+
+        private static Node createNode(int shift, String key1, Object value1, int hash2, String key2, Object value2) {
+            int hash1 = key1.hashCode();
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            }
+            boolean[] ignored = new boolean[1];
+            return EMPTY
+                    .put(shift, hash1, key1, value1, ignored)
+                    .put(shift, hash2, key2, value2, ignored);
+        }
+    }
+
+    /**
+     * Stores entries whose keys have the exact same hash.
+     */
+    private static final class CollisionNode implements Node {
+
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < this.array.length; i += 2) {
+                if (key.equals(this.array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        @Nullable
+        public Object find(int shift, int hash, String key) {
+            int i = this.indexOf(key);
+            return i < 0 ? null : this.array[i + 1];
+        }
+
+        @Override
+        public Node put(int shift, int hash, String key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // nest this node in a bitmap node so the new key can branch off
+                return new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] {null, this})
+                        .put(shift, hash, key, value, added);
+            }
+            int i = this.indexOf(key);
+            if (i >= 0) {
+                if (this.array[i + 1] == value) {
+                    return this;
+                }
+                Object[] array = this.array.clone();
+                array[i + 1] = value;
+                return new CollisionNode(this.hash, array);
+            }
+            Object[] array = new Object[this.array.length + 2];
+            System.arraycopy(this.array, 0, array, 0, this.array.length);
+            array[this.array.length] = key;
+            array[this.array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(this.hash, array);
+        }
+
+        @Override
+        @Nullable
+        public Node remove(int shift, int hash, String key) {
+            int i = this.indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            if (this.array.length == 2) {
+                return null;
+            }
+            Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, i);
+            System.arraycopy(this.array, i + 2, array, i, this.array.length - i - 2);
+            return new CollisionNode(this.hash, array);
+        }
+
+        @Override
+        public void forEach(BiConsumer<String, Object> consumer) {
+            for (int i = 0; i < this.array.length; i += 2) {
+                consumer.accept((String) this.array[i], this.array[i + 1]);
+            }
+        }
+    }
+
+    private static final class KeyIterator implements Iterator<String> {
+
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        @Nullable private String next;
+
+        KeyIterator(Node root) {
+            this.push(root);
+            this.advance();
+        }
+
+        private void push(Node node) {
+            this.arrays.push(node instanceof BitmapNode ? ((BitmapNode) node).array : ((CollisionNode) node).array);
+            this.positions.push(0);
+        }
+
+        private void advance() {
+            this.next = null;
+            while (!this.arrays.isEmpty()) {
+                Object[] array = this.arrays.peek();
+                int i = this.positions.pop();
+                if (i >= array.length) {
+                    this.arrays.pop();
+                    continue;
+                }
+                this.positions.push(i + 2);
+                if (array[i] == null) {
+                    this.push((Node) array[i + 1]);
+                } else {
+                    this.next = (String) array[i];
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public String next() {
+            String next = this.next;
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            this.advance();
+            return next;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import javax.annotation.Nullable;
+
+/**
+ * An immutable vector stored in a 32-way trie, with the last (up to) 32 elements
+ * kept in a separate tail array.
+ *
+ * <p>{@link #get(int)}, {@link #set(int, Object)}, {@link #add(Object)} and removing
+ * the last element only copy the path form the root to the changed element.
+ * Removing any other element shares the leaves in front of it and rebuilds the rest,
+ * so it costs O(n - index).</p>
+ */
+final class PersistentVector {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    static final PersistentVector EMPTY = new PersistentVector(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+    private int hash; // lazy loaded, 0 if not computed yet
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    private int tailOffset() {
+        return this.size < WIDTH ? 0 : ((this.size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Gets the leaf array holding the element at {@code index}.
+     */
+    private Object[] arrayFor(int index) {
+        if (index >= this.tailOffset()) {
+            return this.tail;
+        }
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    Object get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return this.arrayFor(index)[index & MASK];
+    }
+
+    PersistentVector set(int index, Object value) {
+        if (index == this.size) {
+            return this.add(value);
+        }
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        if (index >= this.tailOffset()) {
+            Object[] tail = this.tail.clone();
+            tail[index & MASK] = value;
+            return new PersistentVector(this.size, this.shift, this.root, tail);
+        }
+        return new PersistentVector(this.size, this.shift, assoc(this.shift, this.root, index, value), this.tail);
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int sub = (index >>> level) & MASK;
+            copy[sub] = assoc(level - BITS, (Object[]) node[sub], index, value);
+        }
+        return copy;
+    }
+
+    PersistentVector add(Object value) {
+        if (this.size - this.tailOffset() < WIDTH) {
+            Object[] tail = new Object[this.tail.length + 1];
+            System.arraycopy(this.tail, 0, tail, 0, this.tail.length);
+            tail[this.tail.length] = value;
+            return new PersistentVector(this.size + 1, this.shift, this.root, tail);
+        }
+        return this.withTail(new Object[] {value});
+    }
+
+    /**
+     * Pushes the full tail into the trie and starts a new one.
+     */
+    private PersistentVector withTail(Object[] tail) {
+        if (this.size == 0) {
+            return new PersistentVector(tail.length, BITS, EMPTY_NODE, tail);
+        }
+        Object[] root;
+        int shift = this.shift;
+        if ((this.size >>> BITS) > (1 << this.shift)) { // root overflow
+            root = new Object[WIDTH];
+            root[0] = this.root;
+            root[1] = newPath(this.shift, this.tail);
+            shift += BITS;
+        } else {
+            root = this.pushTail(this.shift, this.root, this.tail);
+        }
+        return new PersistentVector(this.size + tail.length, shift, root, tail);
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tail) {
+        int sub = ((this.size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[sub] = tail;
+        } else {
+            Object[] child = (Object[]) parent[sub];
+            copy[sub] = child != null ? this.pushTail(level - BITS, child, tail) : newPath(level - BITS, tail);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    /**
+     * Removes the element at {@code index}. Only removing the last element is cheap,
+     * anything else reuses the full leaves before {@code index} and re-adds the elements after it.
+     */
+    PersistentVector remove(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        if (index == this.size - 1) {
+            return this.pop();
+        }
+        int leafStart = Math.min(index, this.tailOffset()) & ~MASK;
+        PersistentVector vector = EMPTY;
+        for (int i = 0; i < leafStart; i += WIDTH) {
+            vector = vector.withTail(this.arrayFor(i));
+        }
+        for (int i = leafStart; i < this.size; i++) {
+            if (i != index) {
+                vector = vector.add(this.get(i));
+            }
+        }
+        return vector;
+    }
+
+    private PersistentVector pop() {
+        if (this.size == 1) {
+            return EMPTY;
+        }
+        if (this.size - this.tailOffset() > 1) {
+            Object[] tail = new Object[this.tail.length - 1];
+            System.arraycopy(this.tail, 0, tail, 0, tail.length);
+            return new PersistentVector(this.size - 1, this.shift, this.root, tail);
+        }
+
+        // the tail is now empty, pull the last leaf out of the trie
+        Object[] tail = this.arrayFor(this.size - 2);
+        Object[] root = this.popTail(this.shift, this.root);
+        int shift = this.shift;
+        if (root == null) {
+            root = EMPTY_NODE;
+        }
+        if (this.shift > BITS && root[1] == null) {
+            root = (Object[]) root[0];
+            shift -= BITS;
+        }
+        return new PersistentVector(this.size - 1, shift, root, tail);
+    }
+
+    @Nullable
+    private Object[] popTail(int level, Object[] node) {
+        int sub = ((this.size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] child = this.popTail(level - BITS, (Object[]) node[sub]);
+            if (child == null && sub == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[sub] = child;
+            return copy;
+        } else if (sub == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[sub] = null;
+        return copy;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0) {
+            // same result as List.hashCode(), except that arrays are hashed by content
+            hash = 1;
+            for (int i = 0; i < this.size; i++) {
+                hash = 31 * hash + AbstractDataView.valueHash(this.get(i));
+            }
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PersistentVector)) {
+            return false;
+        }
+        PersistentVector other = (PersistentVector) obj;
+        if (this.size != other.size || this.hashCode() != other.hashCode()) {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (!AbstractDataView.valueEquals(this.get(i), other.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < this.size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.get(i));
+        }
+        return builder.append(']').toString();
+    }
+}
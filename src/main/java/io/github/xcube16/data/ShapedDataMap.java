@@ -0,0 +1,492 @@
+/*
+ * This file is part of SpongeAPI, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.xcube16.data;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataMap} that only stores its values, the keys live in a {@link Shape}
+ * that is shared with every other {@link ShapedDataMap} that has the same keys
+ * (in the same order).
+ *
+ * <p>Use this when holding lots of maps that all look the same, like one map per entity.
+ * Adding a key moves the map to the next {@link Shape} trough a cached transition,
+ * so maps built the same way end up sharing one {@link Shape}.</p>
+ *
+ * <p>Maps created with {@link #createMap(String)} are also {@link ShapedDataMap}s.</p>
+ */
+public class ShapedDataMap extends AbstractDataMap {
+
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private Shape shape = Shape.EMPTY;
+    private Object[] values = EMPTY_VALUES;
+
+    public ShapedDataMap() {}
+
+    /**
+     * Gets the {@link Shape} this map currently has.
+     *
+     * @return The {@link Shape}
+     */
+    public Shape getShape() {
+        return this.shape;
+    }
+
+    @Override
+    public int size() {
+        return this.shape.size();
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return new KeySet();
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> consumer) {
+        for (String key : this.shape.keys) {
+            consumer.accept(key);
+        }
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        checkNotNull(key, "key");
+
+        int index = this.shape.indexOf(key);
+        return index < 0 ? Optional.empty() : Optional.of(this.values[index]);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(String key) {
+        checkNotNull(key, "key");
+
+        int index = this.shape.indexOf(key);
+        return index < 0 ? null : this.values[index];
+    }
+
+    @Override
+    protected void setRaw(String key, Object value) {
+        int index = this.shape.indexOf(key);
+        if (index < 0) {
+            index = this.shape.size();
+            this.shape = this.shape.with(key);
+            if (index == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(2, index + (index >> 1) + 1));
+            }
+        } else {
+            detach(this.values[index], this);
+        }
+        attach(value, this);
+        this.values[index] = value;
+    }
+
+    @Override
+    public ShapedDataMap remove(String key) {
+        checkNotNull(key, "key");
+
+        int index = this.shape.indexOf(key);
+        if (index >= 0) {
+            this.removeAt(index);
+        }
+        return this;
+    }
+
+    private void removeAt(int index) {
+        int size = this.shape.size();
+        detach(this.values[index], this);
+        System.arraycopy(this.values, index + 1, this.values, index, size - index - 1);
+        this.values[size - 1] = null;
+        this.shape = this.shape.without(index);
+    }
+
+    @Override
+    public DataMap createMap(String key) {
+        checkNotNull(key, "key");
+
+        DataMap result = new ShapedDataMap();
+        this.setRaw(key, result);
+        return result;
+    }
+
+    @Override
+    public DataList createList(String key) {
+        checkNotNull(key, "key");
+
+        DataList result = new MemoryDataList();
+        this.setRaw(key, result);
+        return result;
+    }
+
+    @Override
+    public DataMap copy() {
+        final ShapedDataMap container = new ShapedDataMap();
+        // pre-shape the copy, set() will than only fill in the values
+        container.shape = this.shape;
+        container.values = new Object[this.shape.size()];
+        for (int i = 0; i < this.shape.size(); i++) {
+            container.set(this.shape.keys[i], this.values[i]);
+        }
+        return container;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.shape.size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.shape.size(); i++) {
+            detach(this.values[i], this);
+        }
+        this.shape = Shape.EMPTY;
+        this.values = EMPTY_VALUES;
+    }
+
+    @Override
+    public int hashCode() {
+        // same result as Map.hashCode(), except that arrays are hashed by content
+        int hash = 0;
+        for (int i = 0; i < this.shape.size(); i++) {
+            hash += this.shape.keys[i].hashCode() ^ valueHash(this.values[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ShapedDataMap other = (ShapedDataMap) obj;
+
+        if (this.size() != other.size()) {
+            return false;
+        }
+        if (this.shape == other.shape) { // fast path, no key lookups needed
+            for (int i = 0; i < this.shape.size(); i++) {
+                if (!valueEquals(this.values[i], other.values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        // key order does not matter, just like Map.equals()
+        for (int i = 0; i < this.shape.size(); i++) {
+            int index = other.shape.indexOf(this.shape.keys[i]);
+            if (index < 0 || !valueEquals(this.values[i], other.values[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < this.shape.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.shape.keys[i]).append('=').append(this.values[i]);
+        }
+        return helper.add("map", builder.append('}')).toString();
+    }
+
+    /**
+     * An immutable, ordered set of keys shared between {@link ShapedDataMap}s.
+     */
+    public static final class Shape {
+
+        /**
+         * Shapes with more keys than this get a hash index instead of a linear search.
+         */
+        private static final int INDEX_THRESHOLD = 8;
+
+        static final Shape EMPTY = new Shape(null, new String[0]);
+
+        /**
+         * The shape this one was reached from. Keeps the path from {@link #EMPTY}
+         * alive for as long as this shape is in use, so the same keys keep leading here.
+         */
+        @Nullable private final Shape parent;
+        private final String[] keys;
+        @Nullable private final Map<String, Integer> index;
+        /**
+         * Weak values, a shape no map (or {@link Key}) uses anymore is dropped from the tree.
+         * Lazy loaded, most shapes are leaves that never get a transition.
+         */
+        @Nullable private volatile ConcurrentMap<String, Shape> transitions;
+
+        private List<String> keyList; // lazy loaded
+
+        private Shape(@Nullable Shape parent, String[] keys) {
+            this.parent = parent;
+            this.keys = keys;
+            if (keys.length > INDEX_THRESHOLD) {
+                ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+                for (int i = 0; i < keys.length; i++) {
+                    builder.put(keys[i], i);
+                }
+                this.index = builder.build();
+            } else {
+                this.index = null;
+            }
+        }
+
+        /**
+         * Gets the number of keys in this shape.
+         *
+         * @return The number of keys
+         */
+        public int size() {
+            return this.keys.length;
+        }
+
+        /**
+         * Gets the keys of this shape in order. The returned list is immutable.
+         *
+         * @return The keys
+         */
+        public List<String> getKeys() {
+            if (this.keyList == null) {
+                this.keyList = ImmutableList.copyOf(this.keys);
+            }
+            return this.keyList;
+        }
+
+        /**
+         * Gets the slot of a key in maps with this shape.
+         *
+         * @param key The key
+         * @return The slot, or -1 if this shape does not have the key
+         */
+        public int indexOf(String key) {
+            if (this.index != null) {
+                Integer i = this.index.get(key);
+                return i == null ? -1 : i;
+            }
+            for (int i = 0; i < this.keys.length; i++) {
+                String k = this.keys[i];
+                if (k == key || k.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Gets the shape with {@code key} added to the end.
+         */
+        Shape with(String key) {
+            ConcurrentMap<String, Shape> transitions = this.transitions;
+            if (transitions == null) {
+                synchronized (this) {
+                    transitions = this.transitions;
+                    if (transitions == null) {
+                        transitions = new MapMaker().concurrencyLevel(1).weakValues().makeMap();
+                        this.transitions = transitions;
+                    }
+                }
+            }
+            Shape next = transitions.get(key);
+            if (next == null) {
+                String[] keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+                keys[this.keys.length] = key;
+                next = new Shape(this, keys);
+                Shape raced = transitions.putIfAbsent(key, next);
+                if (raced != null) {
+                    next = raced;
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Gets the shape with the key at {@code index} removed.
+         * Walks the transitions form the empty shape so the result is shared like any other shape.
+         */
+        Shape without(int index) {
+            Shape shape = EMPTY;
+            for (int i = 0; i < this.keys.length; i++) {
+                if (i != index) {
+                    shape = shape.with(this.keys[i]);
+                }
+            }
+            return shape;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this).add("keys", this.getKeys()).toString();
+        }
+    }
+
+    /**
+     * A key that remembers what slot it was found at for the last {@link Shape} it saw.
+     * Reading a map with the same shape again is just an array access.
+     *
+     * <p>Safe to share between threads.</p>
+     */
+    public static final class Key {
+
+        private final String key;
+        private volatile CachedSlot cache = new CachedSlot(Shape.EMPTY, -1);
+
+        public Key(String key) {
+            this.key = checkNotNull(key, "key");
+        }
+
+        /**
+         * Gets the name of this key.
+         *
+         * @return The key
+         */
+        public String getKey() {
+            return this.key;
+        }
+
+        /**
+         * Gets the value at this key in the given map.
+         *
+         * @param map The map to read
+         * @return The value, if available
+         */
+        public Optional<Object> get(ShapedDataMap map) {
+            Shape shape = map.shape;
+            CachedSlot cache = this.cache;
+            int index;
+            if (cache.shape == shape) {
+                index = cache.index;
+            } else {
+                index = shape.indexOf(this.key);
+                this.cache = new CachedSlot(shape, index);
+            }
+            return index < 0 ? Optional.empty() : Optional.of(map.values[index]);
+        }
+
+        @Override
+        public String toString() {
+            return this.key;
+        }
+
+        private static final class CachedSlot {
+
+            final Shape shape;
+            final int index;
+
+            CachedSlot(Shape shape, int index) {
+                this.shape = shape;
+                this.index = index;
+            }
+        }
+    }
+
+    /**
+     * A live view of the keys.
+     */
+    private final class KeySet extends AbstractSet<String> {
+
+        @Override
+        public int size() {
+            return ShapedDataMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && ShapedDataMap.this.shape.indexOf((String) o) >= 0;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (this.contains(o)) {
+                ShapedDataMap.this.remove((String) o);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            ShapedDataMap.this.clear();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+
+                private int next;
+                private boolean removable;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < ShapedDataMap.this.shape.size();
+                }
+
+                @Override
+                public String next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    this.removable = true;
+                    return ShapedDataMap.this.shape.keys[this.next++];
+                }
+
+                @Override
+                public void remove() {
+                    if (!this.removable) {
+                        throw new IllegalStateException();
+                    }
+                    this.removable = false;
+                    ShapedDataMap.this.removeAt(--this.next);
+                }
+            };
+        }
+    }
+}
@@ -8,7 +8,6 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.UTFDataFormatException;
-import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -49,6 +48,12 @@ public class BBJSON {
     private static final byte MAP_END = '}';
     private static final byte ARRAY_END = ']';
 
+    /**
+     * The most elements a builder is presized for. Counts come from the input,
+     * so a bogus count must not allocate a huge builder before anything is read.
+     */
+    private static final int MAX_PRESIZE = 1024;
+
     private static CharsetDecoder UTF8_DECODE;
     private static CharsetEncoder UTF8_ENCODE;
 
@@ -68,14 +73,19 @@ public class BBJSON {
      */
     public static DataValue decode(DataInput in) throws IOException {
         DataValue value = new MemoryDataValue();
-        value.set(decode(in, in.readByte()));
+        Object obj = decode(in, in.readByte());
+        if (obj instanceof DataView) {
+            value.adopt((DataView<?>) obj); // freshly decoded, no need to copy it
+        } else {
+            value.set(obj);
+        }
         return value;
     }
 
     private static Object decode(DataInput in, byte type) throws IOException {
         switch (type) {
             case MAP:
-                return decodeMap(in, new MemoryDataMap());
+                return decodeMap(in);
 
             case ARRAY:
                 return decodeArray(in);
@@ -136,39 +146,48 @@ public class BBJSON {
         }
     }
 
-    private static DataMap decodeMap(DataInput in, DataMap map) throws IOException {
+    /*
+     * Decoded values are always valid (and freshly decoded DataViews are not part of anything else)
+     * so they are put straight into the views using the Memory*.Builders.
+     */
+
+    private static DataMap decodeMap(DataInput in) throws IOException {
+        MemoryDataMap.Builder map;
         byte opt = in.readByte();
         if (opt == NULL) { // [{][N]
+            map = MemoryDataMap.builder(0);
 
             for (byte type = in.readByte(); type != MAP_END; type = in.readByte()) {
                 if (type == NOP) {
                     continue;
                 }
                 String key = decodeString(in, decodeSize(in, type));
-                map.set(key, decode(in, in.readByte()));
+                map.put(key, decode(in, in.readByte()));
             }
 
         } else if (opt == '#') { // [{][#][iType][count]
             int count = decodeSize(in, in.readByte());
+            map = MemoryDataMap.builder(presize(count));
 
             for (; count > 0; count--) {
                 String key = decodeString(in);
-                map.set(key, decode(in, in.readByte()));
+                map.put(key, decode(in, in.readByte()));
             }
 
         } else if (opt == '$') { // [{][$][iType][count][type]
             int count = decodeSize(in, in.readByte());
             byte type = in.readByte();
+            map = MemoryDataMap.builder(presize(count));
 
             for (; count > 0; count--) {
                 String key = decodeString(in);
-                map.set(key, decode(in, type));
+                map.put(key, decode(in, type));
             }
 
         } else {
             throw new IOException("Expected 'N' or '#' or '$', got '" + (char) opt + "'");
         }
-        return map;
+        return map.build();
     }
 
     private static Object decodeArray(DataInput in) throws IOException {
@@ -177,8 +196,9 @@ public class BBJSON {
             return decodeSingleTypeArray(in, decodeSize(in, in.readByte()), in.readByte());
         }
 
-        DataList list = new MemoryDataList();
+        MemoryDataList.Builder list;
         if (opt == NULL) {  // [[][N]
+            list = MemoryDataList.builder(0);
 
             for (byte type = in.readByte(); type != ARRAY_END; type = in.readByte()) {
                 if (type == NOP) {
@@ -189,6 +209,7 @@ public class BBJSON {
         } else if (opt == '#') {            // [[][#]
 
             int count = decodeSize(in, in.readByte());
+            list = MemoryDataList.builder(presize(count));
             for (int i = 0; i < count; i++) {
                 byte type = in.readByte();
 
@@ -197,7 +218,7 @@ public class BBJSON {
         }  else {
             throw new IOException("Expected 'N' or '#' or '$', got '" + (char) opt + "'");
         }
-        return list;
+        return list.build();
     }
 
     private static Object decodeSingleTypeArray(DataInput in, int count, byte type) throws IOException {
@@ -205,32 +226,32 @@ public class BBJSON {
             case NULL:
                 return null; // FIXME: idk about this
             case MAP: {
-                DataList list = new MemoryDataList();
+                MemoryDataList.Builder list = MemoryDataList.builder(presize(count));
 
                 for (int i = 0; i < count; i++) {
-                    list.set(i, decodeMap(in, new MemoryDataMap()));
+                    list.add(decodeMap(in));
                 }
 
-                return list;
+                return list.build();
             }
             case ARRAY: {
-                DataList list = new MemoryDataList();
+                MemoryDataList.Builder list = MemoryDataList.builder(presize(count));
 
                 for (int i = 0; i < count; i++) {
-                    list.set(i, decodeArray(in));
+                    list.add(decodeArray(in));
                 }
 
-                return list;
+                return list.build();
             }
             case HNUM: // FIXME: hnums will be coerced later, but when re-encoded it will be strings
             case STRING: {
-                DataList list = new MemoryDataList();
+                MemoryDataList.Builder list = MemoryDataList.builder(presize(count));
 
                 for (int i = 0; i < count; i++) {
-                    list.set(i, decodeString(in));
+                    list.add(decodeString(in));
                 }
 
-                return list;
+                return list.build();
             }
             case TRUE: {
                 boolean[] a = new boolean[count];
@@ -323,6 +344,13 @@ public class BBJSON {
         }
     }
 
+    /**
+     * Gets the initial capacity for a builder that will hold {@code count} elements.
+     */
+    private static int presize(int count) {
+        return Math.max(0, Math.min(count, MAX_PRESIZE));
+    }
+
     private static String decodeString(DataInput in, int size) throws IOException {
         byte[] bytes = new byte[size];
         in.readFully(bytes);
@@ -439,8 +467,13 @@ public class BBJSON {
     }
 
     private static void encode(DataOutput out, Object obj, boolean typePrefix) throws IOException {
+        if (obj == null) {
+            if (typePrefix) out.writeByte(NULL);
+            return;
+        }
 
-        if (obj instanceof DataList) {
+        DataType dataType = DataType.of(obj);
+        if (dataType == DataType.DATA_LIST) {
 
             if (typePrefix) out.writeByte(ARRAY);
             DataList list = (DataList) obj;
@@ -482,7 +515,7 @@ public class BBJSON {
             }
             return;
 
-        } else if (obj instanceof DataMap) {
+        } else if (dataType == DataType.DATA_MAP) {
 
             if (typePrefix) out.writeByte(MAP);
             DataMap map = (DataMap) obj;
@@ -528,125 +561,132 @@ public class BBJSON {
             return;
         }
 
-        if (obj == null) {
-            if (typePrefix) out.writeByte(NULL);
-
-        } else if (obj instanceof Boolean) {
-            if (typePrefix) out.writeByte((Boolean) obj ? TRUE : FALSE);
-
-        } else if (obj instanceof Character) {
-            if (typePrefix) out.writeByte(CHAR);
-            writeChar(out, (Character) obj);
-
-        } else if (obj instanceof Byte) {
-            if (typePrefix) out.writeByte(BYTE);
-            out.writeByte((Byte) obj);
-
-        } else if (obj instanceof Short) {
-            if (typePrefix) out.writeByte(SHORT);
-            out.writeShort((Short) obj);
-
-        } else if (obj instanceof Integer) {
-            if (typePrefix) out.writeByte(INT);
-            out.writeInt((Integer) obj);
-
-        } else if (obj instanceof Long) {
-            if (typePrefix) out.writeByte(LONG);
-            out.writeLong((Long) obj);
-
-        } else if (obj instanceof Float) {
-            if (typePrefix) out.writeByte(FLOAT);
-            out.writeFloat((Float) obj);
-
-        } else if (obj instanceof Double) {
-            if (typePrefix) out.writeByte(DOUBLE);
-            out.writeDouble((Double) obj);
-
-        } else if (obj instanceof boolean[]) {
-            if (typePrefix) out.writeByte(ARRAY);
-            out.writeByte('#');
-            boolean[] a = (boolean[]) obj;
-            encodeSize(out, a.length);
-            for (boolean b : a) {
-                out.writeByte(b ? TRUE : FALSE);
-            }
-
-        } else if (obj instanceof String) {
-            if (typePrefix) out.writeByte(STRING);
-            encodeString(out, (String) obj);
-
-        } else {
-            if (typePrefix) out.writeByte(ARRAY);
-            out.writeByte('$');
-            encodeSize(out, Array.getLength(obj));
+        switch (dataType) {
+            case BOOLEAN:
+                if (typePrefix) out.writeByte((Boolean) obj ? TRUE : FALSE);
+                break;
+            case CHARACTER:
+                if (typePrefix) out.writeByte(CHAR);
+                writeChar(out, (Character) obj);
+                break;
+            case BYTE:
+                if (typePrefix) out.writeByte(BYTE);
+                out.writeByte((Byte) obj);
+                break;
+            case SHORT:
+                if (typePrefix) out.writeByte(SHORT);
+                out.writeShort((Short) obj);
+                break;
+            case INTEGER:
+                if (typePrefix) out.writeByte(INT);
+                out.writeInt((Integer) obj);
+                break;
+            case LONG:
+                if (typePrefix) out.writeByte(LONG);
+                out.writeLong((Long) obj);
+                break;
+            case FLOAT:
+                if (typePrefix) out.writeByte(FLOAT);
+                out.writeFloat((Float) obj);
+                break;
+            case DOUBLE:
+                if (typePrefix) out.writeByte(DOUBLE);
+                out.writeDouble((Double) obj);
+                break;
+            case STRING:
+                if (typePrefix) out.writeByte(STRING);
+                encodeString(out, (String) obj);
+                break;
 
-            if (obj instanceof byte[]) {
-                out.writeByte(BYTE);
-                for (byte b : (byte[]) obj) {
-                    out.writeByte(b);
+            case BOOLEAN_ARRAY:
+                if (typePrefix) out.writeByte(ARRAY);
+                out.writeByte('#');
+                boolean[] a = (boolean[]) obj;
+                encodeSize(out, a.length);
+                for (boolean b : a) {
+                    out.writeByte(b ? TRUE : FALSE);
                 }
-
-            } else if (obj instanceof short[]) {
-                out.writeByte(SHORT);
-                for (short s : (short[]) obj) {
-                    out.writeShort(s);
+                break;
+            case BYTE_ARRAY:
+                writeArrayHeader(out, typePrefix, ((byte[]) obj).length, BYTE);
+                out.write((byte[]) obj);
+                break;
+            case SHORT_ARRAY:
+                writeArrayHeader(out, typePrefix, ((short[]) obj).length, SHORT);
+                for (short v : (short[]) obj) {
+                    out.writeShort(v);
                 }
-
-            } else if (obj instanceof int[]) {
-                out.writeByte(INT);
-                for (int i : (int[]) obj) {
-                    out.writeInt(i);
+                break;
+            case INT_ARRAY:
+                writeArrayHeader(out, typePrefix, ((int[]) obj).length, INT);
+                for (int v : (int[]) obj) {
+                    out.writeInt(v);
                 }
-
-            } else if (obj instanceof long[]) {
-                out.writeByte(LONG);
-                for (long l : (long[]) obj) {
-                    out.writeLong(l);
+                break;
+            case LONG_ARRAY:
+                writeArrayHeader(out, typePrefix, ((long[]) obj).length, LONG);
+                for (long v : (long[]) obj) {
+                    out.writeLong(v);
                 }
-
-            } else if (obj instanceof float[]) {
-                out.writeByte(FLOAT);
-                for (float f : (float[]) obj) {
-                    out.writeFloat(f);
+                break;
+            case FLOAT_ARRAY:
+                writeArrayHeader(out, typePrefix, ((float[]) obj).length, FLOAT);
+                for (float v : (float[]) obj) {
+                    out.writeFloat(v);
                 }
-
-            } else if (obj instanceof double[]) {
-                out.writeByte(DOUBLE);
-                for (double d : (double[]) obj) {
-                    out.writeDouble(d);
+                break;
+            case DOUBLE_ARRAY:
+                writeArrayHeader(out, typePrefix, ((double[]) obj).length, DOUBLE);
+                for (double v : (double[]) obj) {
+                    out.writeDouble(v);
                 }
+                break;
 
-            } else {
+            default:
                 throw new IOException("Unable to encode objects of type " + obj.getClass().getName());
-            }
         }
     }
 
+    private static void writeArrayHeader(DataOutput out, boolean typePrefix, int length, byte type) throws IOException {
+        if (typePrefix) out.writeByte(ARRAY);
+        out.writeByte('$');
+        encodeSize(out, length);
+        out.writeByte(type);
+    }
+
     private static byte getObjType(Object obj) throws IOException {
-        if (obj instanceof DataMap) {
-            return MAP;
-        } else if (obj instanceof DataList || obj.getClass().isArray()) {
-            return ARRAY;
-        } else if (obj instanceof Boolean) {
-            return (Boolean) obj ? TRUE : FALSE;
-        } else if (obj instanceof Character) {
-            return CHAR;
-        } else if (obj instanceof String) {
-            return STRING;
-        } else if (obj instanceof Byte) {
-            return BYTE;
-        } else if (obj instanceof Short) {
-            return SHORT;
-        } else if (obj instanceof Integer) {
-            return INT;
-        } else if (obj instanceof Long) {
-            return LONG;
-        } else if (obj instanceof Float) {
-            return FLOAT;
-        } else if (obj instanceof Double) {
-            return DOUBLE;
-        } else {
-            throw new IOException("Unable to encode objects of type " + obj.getClass().getName());
+        switch (DataType.of(obj)) {
+            case DATA_MAP:
+                return MAP;
+            case DATA_LIST:
+            case BOOLEAN_ARRAY:
+            case BYTE_ARRAY:
+            case SHORT_ARRAY:
+            case INT_ARRAY:
+            case LONG_ARRAY:
+            case FLOAT_ARRAY:
+            case DOUBLE_ARRAY:
+                return ARRAY;
+            case BOOLEAN:
+                return (Boolean) obj ? TRUE : FALSE;
+            case CHARACTER:
+                return CHAR;
+            case STRING:
+                return STRING;
+            case BYTE:
+                return BYTE;
+            case SHORT:
+                return SHORT;
+            case INTEGER:
+                return INT;
+            case LONG:
+                return LONG;
+            case FLOAT:
+                return FLOAT;
+            case DOUBLE:
+                return DOUBLE;
+            default:
+                throw new IOException("Unable to encode objects of type " + obj.getClass().getName());
         }
     }
 
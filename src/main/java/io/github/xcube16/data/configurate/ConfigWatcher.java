@@ -0,0 +1,382 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.configurate;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.MemoryDataMap;
+import io.github.xcube16.data.diff.DataDiff;
+import io.github.xcube16.data.diff.DataPatch;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+import ninja.leaping.configurate.loader.ConfigurationLoader;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Keeps a configuration file loaded, reloading it when it changes on disk.
+ *
+ * <p>The file's directory is watched with a {@link WatchService} on a daemon thread.
+ * Changes are debounced, so an editor writing a file in several steps causes a single
+ * reload. The file is parsed on the watcher thread, compared with the last version using
+ * {@link DataDiff}, and only listeners subscribed to a changed path are notified.</p>
+ *
+ * <p>The loaded configuration is a frozen {@link DataMap} that can be read from any thread.
+ * If a reload fails the last good configuration is kept and the error is reported.</p>
+ */
+public final class ConfigWatcher implements Closeable {
+
+    private final Path file;
+    private final Function<Path, ? extends ConfigurationLoader<? extends ConfigurationNode>> loader;
+    private final long debounceNanos;
+    private final Executor executor;
+    private final Consumer<? super Exception> errorHandler;
+
+    private final Object reloadLock = new Object();
+    private volatile DataMap config;
+
+    /**
+     * Subscriptions by path, guarded by itself.
+     */
+    private final PathNode subscriptions = new PathNode();
+
+    @Nullable private WatchService watchService;
+
+    private ConfigWatcher(Builder builder) {
+        this.file = builder.file;
+        this.loader = builder.loader;
+        this.debounceNanos = builder.debounceNanos;
+        this.executor = builder.executor;
+        this.errorHandler = builder.errorHandler;
+    }
+
+    /**
+     * Creates a {@link Builder} for a watcher of the given file, which is read as HOCON by default.
+     *
+     * @param file The configuration file
+     * @return The builder
+     */
+    public static Builder builder(Path file) {
+        checkNotNull(file, "file");
+        return new Builder(file.toAbsolutePath());
+    }
+
+    /**
+     * Gets the configuration as of the last successful load.
+     *
+     * @return The frozen configuration
+     */
+    public DataMap get() {
+        return this.config;
+    }
+
+    /**
+     * Calls {@code listener} after a reload that changed anything at {@code path},
+     * inside of it, or replaced one of its parents.
+     *
+     * @param path The path to watch, the empty path watches everything
+     * @param listener The listener
+     * @return A handle to unsubscribe with
+     */
+    public Subscription subscribe(DataQuery path, Listener listener) {
+        checkNotNull(path, "path");
+        checkNotNull(listener, "listener");
+        Subscription subscription = new Subscription(path, listener);
+        synchronized (this.subscriptions) {
+            PathNode node = this.subscriptions;
+            for (String part : path.getParts()) {
+                node = node.children.computeIfAbsent(part, key -> new PathNode());
+            }
+            node.subscriptions.add(subscription);
+        }
+        return subscription;
+    }
+
+    /**
+     * Reloads the file right away on the calling thread, without waiting for the watcher.
+     *
+     * @throws IOException If the file can not be read, the last configuration is kept
+     */
+    public void reload() throws IOException {
+        synchronized (this.reloadLock) {
+            DataMap next = this.load();
+            DataPatch patch = DataDiff.diff(this.config, next);
+            this.config = next;
+            if (!patch.isEmpty()) {
+                this.notify(next, patch);
+            }
+        }
+    }
+
+    private DataMap load() throws IOException {
+        ConfigurationNode node = this.loader.apply(this.file).load();
+        return Configurate.decode(node).getMap().orElseGet(MemoryDataMap::new).freeze();
+    }
+
+    private void notify(DataMap config, DataPatch patch) {
+        // collect the changed paths for every affected subscription, then call them outside the lock
+        Map<Subscription, List<DataQuery>> affected = new LinkedHashMap<>();
+        synchronized (this.subscriptions) {
+            for (DataPatch.Operation operation : patch.getOperations()) {
+                DataQuery path = operation.getPath();
+                PathNode node = this.subscriptions;
+                node.collect(path, affected, false);
+                for (String part : path.getParts()) {
+                    node = node.children.get(part);
+                    if (node == null) {
+                        break;
+                    }
+                    node.collect(path, affected, false);
+                }
+                if (node != null) {
+                    // everything below a changed path changed too
+                    for (PathNode child : node.children.values()) {
+                        child.collect(path, affected, true);
+                    }
+                }
+            }
+        }
+        affected.forEach((subscription, paths) -> this.executor.execute(() -> subscription.listener.changed(config, paths)));
+    }
+
+    private void watch(WatchService watchService) {
+        Path name = this.file.getFileName();
+        boolean pending = false;
+        long deadline = 0;
+        try {
+            while (true) {
+                WatchKey key;
+                if (!pending) {
+                    key = watchService.take();
+                } else {
+                    long wait = deadline - System.nanoTime();
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) {
+                            // every write pushes the reload back, editors often save in several steps
+                            pending = true;
+                            deadline = System.nanoTime() + this.debounceNanos;
+                        }
+                    }
+                    key.reset();
+                } else if (pending && System.nanoTime() - deadline >= 0) {
+                    pending = false;
+                    try {
+                        this.reload();
+                    } catch (IOException | RuntimeException e) {
+                        this.errorHandler.accept(e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void start() throws IOException {
+        this.config = this.load();
+        Path directory = this.file.getParent();
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            try {
+                watchService.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        this.watchService = watchService;
+        Thread thread = new Thread(() -> this.watch(watchService), "ConfigWatcher " + this.file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the file. The last configuration can still be read.
+     *
+     * @throws IOException If the watch service fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.watchService != null) {
+            this.watchService.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("file", this.file)
+                .toString();
+    }
+
+    /**
+     * Listens for changes to a path of the configuration.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called after a reload that changed the subscribed path.
+         *
+         * @param config The new configuration
+         * @param paths The changed paths that touch the subscribed path
+         */
+        void changed(DataMap config, List<DataQuery> paths);
+    }
+
+    /**
+     * A listener subscribed to a path, see {@link #subscribe(DataQuery, Listener)}.
+     */
+    public final class Subscription {
+
+        private final DataQuery path;
+        private final Listener listener;
+
+        private Subscription(DataQuery path, Listener listener) {
+            this.path = path;
+            this.listener = listener;
+        }
+
+        public DataQuery getPath() {
+            return this.path;
+        }
+
+        /**
+         * Stops notifying the listener.
+         */
+        public void unsubscribe() {
+            synchronized (ConfigWatcher.this.subscriptions) {
+                PathNode node = ConfigWatcher.this.subscriptions;
+                for (String part : this.path.getParts()) {
+                    node = node.children.get(part);
+                    if (node == null) {
+                        return;
+                    }
+                }
+                node.subscriptions.remove(this);
+            }
+        }
+    }
+
+    private static final class PathNode {
+
+        final Map<String, PathNode> children = new HashMap<>();
+        final List<Subscription> subscriptions = new ArrayList<>(1);
+
+        void collect(DataQuery path, Map<Subscription, List<DataQuery>> affected, boolean deep) {
+            for (Subscription subscription : this.subscriptions) {
+                affected.computeIfAbsent(subscription, key -> new ArrayList<>()).add(path);
+            }
+            if (deep) {
+                for (PathNode child : this.children.values()) {
+                    child.collect(path, affected, true);
+                }
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final Path file;
+        private Function<Path, ? extends ConfigurationLoader<? extends ConfigurationNode>> loader =
+                path -> HoconConfigurationLoader.builder().setPath(path).build();
+        private long debounceNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        private Executor executor = Runnable::run;
+        private Consumer<? super Exception> errorHandler = e -> {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        };
+
+        private Builder(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * Sets how the file is loaded, HOCON by default.
+         *
+         * @param loader Creates a loader for the file
+         * @return This builder
+         */
+        public Builder loader(Function<Path, ? extends ConfigurationLoader<? extends ConfigurationNode>> loader) {
+            this.loader = checkNotNull(loader, "loader");
+            return this;
+        }
+
+        /**
+         * Sets how long the file has to stay unchanged before it is reloaded, 100ms by default.
+         *
+         * @param time The time
+         * @param unit The unit of {@code time}
+         * @return This builder
+         */
+        public Builder debounce(long time, TimeUnit unit) {
+            checkArgument(time >= 0, "time can not be negative");
+            this.debounceNanos = checkNotNull(unit, "unit").toNanos(time);
+            return this;
+        }
+
+        /**
+         * Sets where listeners are called, on the watcher thread by default.
+         *
+         * @param executor The executor
+         * @return This builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = checkNotNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * Sets what happens when a reload on the watcher thread fails, by default the
+         * error goes to the thread's uncaught exception handler.
+         *
+         * @param errorHandler The error handler
+         * @return This builder
+         */
+        public Builder onError(Consumer<? super Exception> errorHandler) {
+            this.errorHandler = checkNotNull(errorHandler, "errorHandler");
+            return this;
+        }
+
+        /**
+         * Loads the file and starts watching it.
+         *
+         * @return The watcher
+         * @throws IOException If the file can not be loaded or watched
+         */
+        public ConfigWatcher build() throws IOException {
+            checkState(this.file.getParent() != null, "%s has no parent directory to watch", this.file);
+            ConfigWatcher watcher = new ConfigWatcher(this);
+            watcher.start();
+            return watcher;
+        }
+    }
+}
@@ -5,71 +5,158 @@ package io.github.xcube16.data.configurate;
 import com.google.common.collect.ImmutableSet;
 import io.github.xcube16.data.DataList;
 import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataType;
 import io.github.xcube16.data.DataValue;
+import io.github.xcube16.data.DataView;
+import io.github.xcube16.data.MemoryDataList;
+import io.github.xcube16.data.MemoryDataMap;
 import io.github.xcube16.data.MemoryDataValue;
 import ninja.leaping.configurate.ConfigurationNode;
 import ninja.leaping.configurate.ConfigurationOptions;
 import ninja.leaping.configurate.SimpleConfigurationNode;
 
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 public class Configurate {
 
     // TODO: I dont remember why I need this
     public static final ImmutableSet<Class<?>> NODE_PRIMITIVES = ImmutableSet.of(Map.class, List.class, Double.class,
             Long.class, Integer.class, Boolean.class, String.class, Number.class);
 
+    /**
+     * Converts a configuration node and everything below it into a {@link DataValue}.
+     *
+     * <p>The tree is built bottom up in a single pass, each map and list is created
+     * with the size of the node it comes from and filled through the memory builders,
+     * so nothing is copied on the way up. Nodes without a value are skipped.</p>
+     *
+     * @param node The node to convert
+     * @return The value, empty if the node has no value
+     */
     public static DataValue decode(ConfigurationNode node) {
+        MemoryDataValue value = new MemoryDataValue();
+        Object decoded = Configurate.decodeNode(node);
+        if (decoded instanceof DataView) {
+            value.adopt((DataView<?>) decoded);
+        } else if (decoded != null) {
+            value.set(decoded);
+        }
+        return value;
+    }
 
-        DataValue value = new MemoryDataValue();
-
+    /**
+     * Converts a node into an Allowed Type, views are detached and can be adopted.
+     */
+    @Nullable
+    private static Object decodeNode(ConfigurationNode node) {
         if (node.hasMapChildren()) {
-            DataMap map = value.createMap();
-            Map<Object, ? extends ConfigurationNode> nodeMap = node.getChildrenMap();
-            nodeMap.forEach((key, nodeValue) -> {
-                map.set(key.toString(), Configurate.decode(nodeValue));
-            });
+            Map<Object, ? extends ConfigurationNode> children = node.getChildrenMap();
+            MemoryDataMap.Builder map = MemoryDataMap.builder(children.size());
+            for (Map.Entry<Object, ? extends ConfigurationNode> child : children.entrySet()) {
+                Object value = Configurate.decodeNode(child.getValue());
+                if (value != null) {
+                    map.put(child.getKey().toString(), value);
+                }
+            }
+            return map.build();
         } else if (node.hasListChildren()) {
-            DataList list = value.createList();
-            List<? extends ConfigurationNode> nodeList = node.getChildrenList();
-            nodeList.forEach(nodeValue -> {
-                list.add(Configurate.decode(nodeValue));
-            });
-        } else {
-            // TODO: null data value?
-            value.set(node.getValue());
+            List<? extends ConfigurationNode> children = node.getChildrenList();
+            MemoryDataList.Builder list = MemoryDataList.builder(children.size());
+            for (ConfigurationNode child : children) {
+                Object value = Configurate.decodeNode(child);
+                if (value != null) {
+                    list.add(value);
+                }
+            }
+            return list.build();
         }
 
-        return value;
+        Object value = node.getValue();
+        return value == null ? null : Configurate.decodeScalar(value);
     }
 
+    /**
+     * Converts the value of a node without children into an Allowed Type.
+     */
+    static Object decodeScalar(Object value) {
+        if (DataType.of(value).isRaw()) {
+            return value;
+        }
+        // anything else a custom loader put in the tree goes through the usual coercion
+        MemoryDataValue coerced = MemoryDataValue.of(value);
+        Object result = coerced.getOrNull();
+        coerced.clear();
+        return result;
+    }
+
+    /**
+     * Converts a {@link DataValue} into a new configuration tree.
+     *
+     * @param value The value to convert
+     * @param options The options of the new root node
+     * @return The root node, without a value if {@code value} is empty
+     */
     public static ConfigurationNode encode(DataValue value, ConfigurationOptions options) {
+        checkNotNull(value, "value");
+        checkNotNull(options, "options");
 
         options = options.setAcceptedTypes(Configurate.NODE_PRIMITIVES); // TODO: I dont rmemeber why I did this
 
         ConfigurationNode node = SimpleConfigurationNode.root(options);
-        return encode(value, node);
+        Object obj = value.getOrNull();
+        if (obj != null) {
+            Configurate.encode(obj, node);
+        }
+        return node;
     }
 
-    private static ConfigurationNode encode(DataValue value, ConfigurationNode node) {
-
-
-        Object obj = value.get();
-        if (obj instanceof DataMap) { // TODO: idea says this is always false! TEST THIS!!!!!
-            DataMap map = ((DataMap) obj);
+    /**
+     * Writes an Allowed Type into {@code node}, replacing its current value.
+     *
+     * <p>Maps and lists are walked directly and their children written into child nodes,
+     * arrays become list nodes and chars become strings.</p>
+     *
+     * @param value The value to write
+     * @param node The node to write to
+     * @return The node
+     */
+    public static ConfigurationNode encode(Object value, ConfigurationNode node) {
+        checkNotNull(value, "value");
+        checkNotNull(node, "node");
+        if (value instanceof DataMap) {
+            DataMap map = (DataMap) value;
+            node.setValue(Collections.emptyMap());
             map.forEachKey(key -> {
-                Configurate.encode(map.getValue(key).get(), node.getNode(key));
+                Object child = map.getOrNull(key);
+                if (child != null) {
+                    Configurate.encode(child, node.getNode(key));
+                }
             });
-        } else if (obj instanceof DataList) { // TODO: idea says this is always false! TEST THIS!!!!!
-            DataList list = ((DataList) obj);
+        } else if (value instanceof DataList) {
+            DataList list = (DataList) value;
+            node.setValue(Collections.emptyList());
             for (int i = 0; i < list.size(); i++) {
-                Configurate.encode(list.getValue(i).get(), node.getAppendedNode());
+                Object child = list.getOrNull(i);
+                if (child != null) {
+                    Configurate.encode(child, node.getAppendedNode());
+                }
+            }
+        } else if (value instanceof Character) {
+            node.setValue(value.toString());
+        } else if (value.getClass().isArray()) {
+            node.setValue(Collections.emptyList());
+            for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                node.getAppendedNode().setValue(Array.get(value, i));
             }
         } else {
-            node.setValue(obj);
+            node.setValue(value);
         }
-
         return node;
     }
 }
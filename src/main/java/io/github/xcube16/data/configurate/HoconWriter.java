@@ -0,0 +1,227 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.configurate;
+
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataView;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes a {@link DataView} straight to HOCON text, without building a configuration tree first.
+ *
+ * <p>The text is written as the view is walked, so exporting a large tree only needs
+ * as much memory as the {@link Writer} buffers. Strings are always quoted, keys only when
+ * they have to be. Lists of maps or lists are written one element per line, other lists
+ * on a single line. The output can be read back with
+ * {@link ninja.leaping.configurate.hocon.HoconConfigurationLoader}.</p>
+ */
+public final class HoconWriter {
+
+    private static final String DEFAULT_INDENT = "    ";
+
+    private final Writer out;
+    private final String indent;
+
+    private HoconWriter(Writer out, String indent) {
+        this.out = out;
+        this.indent = indent;
+    }
+
+    /**
+     * Writes {@code view} to {@code out}, indenting with four spaces. A map is written
+     * as the root object, without braces.
+     *
+     * @param view The view to write
+     * @param out Where to write it, it is not flushed or closed
+     * @throws IOException If writing fails
+     * @throws IllegalArgumentException If the view contains NaN or an infinite number
+     */
+    public static void write(DataView<?> view, Writer out) throws IOException {
+        HoconWriter.write(view, out, DEFAULT_INDENT);
+    }
+
+    /**
+     * Writes {@code view} to {@code out}. A map is written as the root object, without braces.
+     *
+     * @param view The view to write
+     * @param out Where to write it, it is not flushed or closed
+     * @param indent What to indent each level with
+     * @throws IOException If writing fails
+     * @throws IllegalArgumentException If the view contains NaN or an infinite number
+     */
+    public static void write(DataView<?> view, Writer out, String indent) throws IOException {
+        checkNotNull(view, "view");
+        checkNotNull(out, "out");
+        checkNotNull(indent, "indent");
+        HoconWriter writer = new HoconWriter(out, indent);
+        if (view instanceof DataMap) {
+            writer.writeFields((DataMap) view, 0);
+        } else {
+            writer.writeValue(view, 0);
+            out.write('\n');
+        }
+    }
+
+    private void writeFields(DataMap map, int depth) throws IOException {
+        for (String key : map.getKeys()) {
+            Object value = map.getOrNull(key);
+            if (value == null) {
+                continue;
+            }
+            this.indent(depth);
+            this.writeKey(key);
+            // objects can follow the key directly, everything else needs a separator
+            this.out.write(value instanceof DataMap ? " " : " = ");
+            this.writeValue(value, depth);
+            this.out.write('\n');
+        }
+    }
+
+    private void writeValue(Object value, int depth) throws IOException {
+        if (value instanceof DataMap) {
+            DataMap map = (DataMap) value;
+            if (map.isEmpty()) {
+                this.out.write("{}");
+                return;
+            }
+            this.out.write("{\n");
+            this.writeFields(map, depth + 1);
+            this.indent(depth);
+            this.out.write('}');
+        } else if (value instanceof DataList) {
+            this.writeList((DataList) value, depth);
+        } else if (value instanceof String) {
+            this.writeString((String) value);
+        } else if (value instanceof Character) {
+            this.writeString(value.toString());
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            checkArgument(!Double.isNaN(number) && !Double.isInfinite(number), "HOCON can not represent %s", value);
+            this.out.write(value.toString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            this.out.write(value.toString());
+        } else if (value.getClass().isArray()) {
+            this.out.write('[');
+            for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                if (i > 0) {
+                    this.out.write(", ");
+                }
+                this.writeValue(Array.get(value, i), depth);
+            }
+            this.out.write(']');
+        } else {
+            throw new IllegalArgumentException(value.getClass() + " is not an Allowed Type");
+        }
+    }
+
+    private void writeList(DataList list, int depth) throws IOException {
+        int size = list.size();
+        boolean nested = false;
+        for (int i = 0; i < size && !nested; i++) {
+            nested = list.getOrNull(i) instanceof DataView;
+        }
+        this.out.write('[');
+        boolean first = true;
+        for (int i = 0; i < size; i++) {
+            Object element = list.getOrNull(i);
+            if (element == null) {
+                continue;
+            }
+            if (nested) {
+                this.out.write(first ? "\n" : ",\n");
+                this.indent(depth + 1);
+            } else if (!first) {
+                this.out.write(", ");
+            }
+            first = false;
+            this.writeValue(element, depth + 1);
+        }
+        if (nested) {
+            this.out.write('\n');
+            this.indent(depth);
+        }
+        this.out.write(']');
+    }
+
+    private void writeKey(String key) throws IOException {
+        if (isUnquotedKey(key)) {
+            this.out.write(key);
+        } else {
+            this.writeString(key);
+        }
+    }
+
+    /**
+     * Checks if a key can be written without quotes, dots would split it into a path
+     * and an unquoted {@code include} starts an include statement.
+     */
+    private static boolean isUnquotedKey(String key) {
+        if (key.isEmpty() || key.equals("include")) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeString(String string) throws IOException {
+        Writer out = this.out;
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            String escape;
+            switch (c) {
+                case '"':
+                    escape = "\\\"";
+                    break;
+                case '\\':
+                    escape = "\\\\";
+                    break;
+                case '\n':
+                    escape = "\\n";
+                    break;
+                case '\r':
+                    escape = "\\r";
+                    break;
+                case '\t':
+                    escape = "\\t";
+                    break;
+                case '\b':
+                    escape = "\\b";
+                    break;
+                case '\f':
+                    escape = "\\f";
+                    break;
+                default:
+                    if (c >= 0x20) {
+                        continue;
+                    }
+                    escape = String.format("\\u%04x", (int) c);
+            }
+            // write the unescaped run before this char in one go
+            out.write(string, start, i - start);
+            out.write(escape);
+            start = i + 1;
+        }
+        out.write(string, start, string.length() - start);
+        out.write('"');
+    }
+
+    private void indent(int depth) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            this.out.write(this.indent);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.configurate;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.AbstractDataList;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import ninja.leaping.configurate.ConfigurationNode;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataList} that reads and writes a {@link ConfigurationNode} directly,
+ * see {@link NodeDataMap}.
+ */
+public final class NodeDataList extends AbstractDataList {
+
+    private final ConfigurationNode node;
+
+    /**
+     * The child nodes and their converted values (null until read), listed on first use.
+     */
+    @Nullable private List<ConfigurationNode> children;
+    @Nullable private List<Object> converted;
+
+    /**
+     * Wraps {@code node}. If it is not a list node it is treated as an empty list,
+     * and becomes one when something is added.
+     *
+     * @param node The node to wrap
+     */
+    public NodeDataList(ConfigurationNode node) {
+        this.node = checkNotNull(node, "node");
+    }
+
+    /**
+     * Gets the node this list reads and writes.
+     *
+     * @return The node
+     */
+    public ConfigurationNode getNode() {
+        return this.node;
+    }
+
+    private List<ConfigurationNode> children() {
+        if (this.children == null) {
+            this.children = this.node.hasListChildren()
+                    ? new ArrayList<>(this.node.getChildrenList())
+                    : new ArrayList<>();
+            this.converted = new ArrayList<>(Collections.nCopies(this.children.size(), null));
+        }
+        return this.children;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.children().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.children().isEmpty();
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+        return Optional.ofNullable(this.getOrNull((int) key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        List<ConfigurationNode> children = this.children();
+        if (index < 0 || index >= children.size()) {
+            return null;
+        }
+        Object value = this.converted.get(index);
+        if (value == null) {
+            value = NodeDataMap.convert(children.get(index));
+            this.converted.set(index, value);
+        }
+        return value;
+    }
+
+    @Override
+    protected void setRaw(Integer key, Object value) {
+        Configurate.encode(value, this.child(key));
+    }
+
+    @Override
+    protected void addRaw(Object value) {
+        Configurate.encode(value, this.child(this.size()));
+    }
+
+    /**
+     * Gets the child node at {@code index} to overwrite it, appending one at the end of the list.
+     */
+    private ConfigurationNode child(int index) {
+        List<ConfigurationNode> children = this.children();
+        if (index == children.size()) {
+            ConfigurationNode child = this.node.getAppendedNode();
+            children.add(child);
+            this.converted.add(null);
+            return child;
+        }
+        this.checkIndex(index);
+        this.converted.set(index, null);
+        return children.get(index);
+    }
+
+    @Override
+    public DataList remove(Integer key) {
+        checkNotNull(key, "key");
+        if (key >= 0 && key < this.size()) {
+            this.node.removeChild(key);
+            this.children.remove((int) key);
+            this.converted.remove((int) key);
+        }
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        checkNotNull(key, "key");
+        ConfigurationNode child = this.child(key);
+        child.setValue(Collections.emptyMap());
+        NodeDataMap map = new NodeDataMap(child);
+        this.converted.set(key, map);
+        return map;
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        checkNotNull(key, "key");
+        ConfigurationNode child = this.child(key);
+        child.setValue(Collections.emptyList());
+        NodeDataList list = new NodeDataList(child);
+        this.converted.set(key, list);
+        return list;
+    }
+
+    @Override
+    public DataMap addMap() {
+        return this.createMap(this.size());
+    }
+
+    @Override
+    public DataList addList() {
+        return this.createList(this.size());
+    }
+
+    @Override
+    public void clear() {
+        this.node.setValue(Collections.emptyList());
+        this.children = new ArrayList<>();
+        this.converted = new ArrayList<>();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.node.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof NodeDataList && this.node.equals(((NodeDataList) obj).node);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("node", this.node)
+                .toString();
+    }
+}
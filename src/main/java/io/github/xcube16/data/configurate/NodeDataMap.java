@@ -0,0 +1,206 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.configurate;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+import io.github.xcube16.data.AbstractDataMap;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.MemoryDataMap;
+import ninja.leaping.configurate.ConfigurationNode;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataMap} that reads and writes a {@link ConfigurationNode} directly.
+ *
+ * <p>Unlike {@link Configurate#decode(ConfigurationNode)} nothing is converted up front.
+ * The child nodes are listed the first time the map is used, and a child is only converted
+ * when it is read. Maps and lists below this map are {@link NodeDataMap}s and
+ * {@link NodeDataList}s themselves, so reading a few keys out of a large configuration
+ * only costs those keys. Converted children are cached.</p>
+ *
+ * <p>Writes go straight through to the node. Changes made to the node directly after
+ * it was first read are not seen. This map is not thread safe.</p>
+ */
+public final class NodeDataMap extends AbstractDataMap {
+
+    private final ConfigurationNode node;
+
+    /**
+     * The child nodes by key, listed on first use.
+     */
+    @Nullable private Map<String, ConfigurationNode> children;
+    private final Map<String, Object> converted = new HashMap<>();
+
+    /**
+     * Wraps {@code node}. If it is not a map node it is treated as an empty map,
+     * and becomes one when something is set.
+     *
+     * @param node The node to wrap
+     */
+    public NodeDataMap(ConfigurationNode node) {
+        this.node = checkNotNull(node, "node");
+    }
+
+    /**
+     * Gets the node this map reads and writes.
+     *
+     * @return The node
+     */
+    public ConfigurationNode getNode() {
+        return this.node;
+    }
+
+    private Map<String, ConfigurationNode> children() {
+        if (this.children == null) {
+            Map<Object, ? extends ConfigurationNode> nodes = this.node.hasMapChildren()
+                    ? this.node.getChildrenMap()
+                    : Collections.emptyMap();
+            Map<String, ConfigurationNode> children = Maps.newLinkedHashMapWithExpectedSize(nodes.size());
+            nodes.forEach((key, child) -> {
+                if (child.hasMapChildren() || child.hasListChildren() || child.getValue() != null) {
+                    children.put(key.toString(), child);
+                }
+            });
+            this.children = children;
+        }
+        return this.children;
+    }
+
+    /**
+     * Converts a child node, maps and lists are wrapped instead of converted.
+     */
+    @Nullable
+    static Object convert(ConfigurationNode node) {
+        if (node.hasMapChildren()) {
+            return new NodeDataMap(node);
+        } else if (node.hasListChildren()) {
+            return new NodeDataList(node);
+        }
+        Object value = node.getValue();
+        return value == null ? null : Configurate.decodeScalar(value);
+    }
+
+    @Override
+    public int size() {
+        return this.children().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.children().isEmpty();
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(this.children().keySet());
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        return Optional.ofNullable(this.getOrNull(key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(String key) {
+        checkNotNull(key, "key");
+        Object value = this.converted.get(key);
+        if (value == null) {
+            ConfigurationNode child = this.children().get(key);
+            if (child == null) {
+                return null;
+            }
+            value = convert(child);
+            if (value != null) {
+                this.converted.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    protected void setRaw(String key, Object value) {
+        Configurate.encode(value, this.attach(key));
+        this.converted.remove(key);
+    }
+
+    private ConfigurationNode attach(String key) {
+        ConfigurationNode child = this.node.getNode(key);
+        this.children().put(key, child);
+        return child;
+    }
+
+    @Override
+    public DataMap remove(String key) {
+        checkNotNull(key, "key");
+        if (this.children().remove(key) != null) {
+            this.converted.remove(key);
+            this.node.removeChild(key);
+        }
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(String key) {
+        checkNotNull(key, "key");
+        ConfigurationNode child = this.attach(key);
+        child.setValue(Collections.emptyMap());
+        NodeDataMap map = new NodeDataMap(child);
+        this.converted.put(key, map);
+        return map;
+    }
+
+    @Override
+    public DataList createList(String key) {
+        checkNotNull(key, "key");
+        ConfigurationNode child = this.attach(key);
+        child.setValue(Collections.emptyList());
+        NodeDataList list = new NodeDataList(child);
+        this.converted.put(key, list);
+        return list;
+    }
+
+    @Override
+    public void clear() {
+        this.node.setValue(Collections.emptyMap());
+        this.children = Maps.newLinkedHashMap();
+        this.converted.clear();
+    }
+
+    /**
+     * Converts the whole node into a {@link MemoryDataMap}.
+     *
+     * @return The copy
+     */
+    @Override
+    public DataMap copy() {
+        return Configurate.decode(this.node).getMap().orElseGet(MemoryDataMap::new);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.node.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof NodeDataMap && this.node.equals(((NodeDataMap) obj).node);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("node", this.node)
+                .toString();
+    }
+}
@@ -0,0 +1,152 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.diff;
+
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.DataType;
+import io.github.xcube16.data.MemoryDataList;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Computes structural differences between {@link DataMap} trees.
+ *
+ * <p>Subtrees that are the same instance, or that have the same hash and are equal,
+ * are skipped without walking them. {@link io.github.xcube16.data.MemoryDataMap} and
+ * {@link io.github.xcube16.data.MemoryDataList} cache their hashes, so diffing two
+ * versions of a mostly unchanged tree only visits the changed paths.</p>
+ *
+ * <p>Lists and arrays are compared by their common prefix and suffix. If the changed
+ * middle has the same length on both sides it is diffed element by element, otherwise
+ * it becomes a single {@link DataPatch.Operation.Type#REPLACE_RANGE} operation.</p>
+ */
+public final class DataDiff {
+
+    private DataDiff() {
+    }
+
+    /**
+     * Computes the patch that turns {@code from} into {@code to}.
+     *
+     * <p>For any two maps, {@code diff(from, to).apply(from.copy()).equals(to)} holds.</p>
+     *
+     * @param from The old tree
+     * @param to The new tree
+     * @return The patch, empty if the trees are equal
+     */
+    public static DataPatch diff(DataMap from, DataMap to) {
+        checkNotNull(from, "from");
+        checkNotNull(to, "to");
+        List<DataPatch.Operation> operations = new ArrayList<>();
+        if (!unchanged(from, to)) {
+            diffMap(DataQuery.of(), from, to, operations);
+        }
+        return DataPatch.of(operations);
+    }
+
+    private static void diffMap(DataQuery path, DataMap from, DataMap to, List<DataPatch.Operation> out) {
+        for (String key : from.getKeys()) {
+            if (to.getOrNull(key) == null) {
+                out.add(DataPatch.Operation.remove(path.then(key)));
+            }
+        }
+        for (String key : to.getKeys()) {
+            diffValue(path.then(key), from.getOrNull(key), to.getOrNull(key), out);
+        }
+    }
+
+    private static void diffList(DataQuery path, DataList from, DataList to, List<DataPatch.Operation> out) {
+        int fromSize = from.size();
+        int toSize = to.size();
+        int prefix = 0;
+        int max = Math.min(fromSize, toSize);
+        while (prefix < max && unchanged(from.getOrNull(prefix), to.getOrNull(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        max -= prefix;
+        while (suffix < max && unchanged(from.getOrNull(fromSize - 1 - suffix), to.getOrNull(toSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        int fromEnd = fromSize - suffix;
+        int toEnd = toSize - suffix;
+        if (fromEnd - prefix == toEnd - prefix) {
+            for (int i = prefix; i < toEnd; i++) {
+                diffValue(path.then(Integer.toString(i)), from.getOrNull(i), to.getOrNull(i), out);
+            }
+        } else {
+            // add() copies, the builder would adopt views out of the new tree
+            DataList values = MemoryDataList.builder(toEnd - prefix).build();
+            for (int i = prefix; i < toEnd; i++) {
+                values.add(to.getOrNull(i));
+            }
+            out.add(DataPatch.Operation.replaceRange(path, prefix, fromEnd, values));
+        }
+    }
+
+    private static void diffArray(DataQuery path, Object from, Object to, List<DataPatch.Operation> out) {
+        int fromLength = Array.getLength(from);
+        int toLength = Array.getLength(to);
+        int prefix = 0;
+        int max = Math.min(fromLength, toLength);
+        while (prefix < max && Objects.equals(Array.get(from, prefix), Array.get(to, prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        max -= prefix;
+        while (suffix < max && Objects.equals(Array.get(from, fromLength - 1 - suffix), Array.get(to, toLength - 1 - suffix))) {
+            suffix++;
+        }
+
+        int count = toLength - suffix - prefix;
+        if (count * 2 >= toLength) {
+            // replacing most of the array, just send the whole thing
+            out.add(DataPatch.Operation.set(path, to));
+            return;
+        }
+        Object values = Array.newInstance(to.getClass().getComponentType(), count);
+        System.arraycopy(to, prefix, values, 0, count);
+        out.add(DataPatch.Operation.replaceRange(path, prefix, fromLength - suffix, values));
+    }
+
+    private static void diffValue(DataQuery path, @Nullable Object from, Object to, List<DataPatch.Operation> out) {
+        if (unchanged(from, to)) {
+            return;
+        }
+        if (from instanceof DataMap && to instanceof DataMap) {
+            diffMap(path, (DataMap) from, (DataMap) to, out);
+        } else if (from instanceof DataList && to instanceof DataList) {
+            diffList(path, (DataList) from, (DataList) to, out);
+        } else if (from != null && from.getClass() == to.getClass() && DataType.of(to).isPrimitiveArray() && !(to instanceof String)) {
+            diffArray(path, from, to, out);
+        } else {
+            out.add(DataPatch.Operation.set(path, to));
+        }
+    }
+
+    /**
+     * Checks if two values are the same without walking subtrees when it can be avoided.
+     */
+    private static boolean unchanged(@Nullable Object from, @Nullable Object to) {
+        if (from == to) {
+            return true;
+        }
+        if (from == null || to == null || from.getClass() != to.getClass()) {
+            return false;
+        }
+        if (from instanceof DataMap || from instanceof DataList) {
+            // hashes are cached by the memory views, a mismatch is a cheap early out
+            return from.hashCode() == to.hashCode() && from.equals(to);
+        }
+        return Objects.deepEquals(from, to);
+    }
+}
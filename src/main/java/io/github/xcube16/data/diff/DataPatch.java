@@ -0,0 +1,404 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.diff;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import io.github.xcube16.data.Coerce2;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.DataSerializable;
+import io.github.xcube16.data.DataValue;
+import io.github.xcube16.data.DataView;
+import io.github.xcube16.data.MemoryDataList;
+import io.github.xcube16.data.MemoryDataMap;
+import io.github.xcube16.data.MemoryDataValue;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An ordered list of {@link Operation}s that turns one {@link DataMap} tree into another,
+ * usually created by {@link DataDiff#diff(DataMap, DataMap)}.
+ *
+ * <p>A patch is immutable, values are frozen when the patch is created so later changes
+ * to the source trees do not leak into it. Patches are {@link DataSerializable} and can be
+ * read back with {@link #fromContainer(DataValue)}, so they can be sent over BBJSON.</p>
+ */
+public final class DataPatch implements DataSerializable {
+
+    private static final DataPatch EMPTY = new DataPatch(ImmutableList.of());
+
+    private static final String OP = "op";
+    private static final String PATH = "path";
+    private static final String VALUE = "value";
+    private static final String START = "start";
+    private static final String END = "end";
+
+    private final ImmutableList<Operation> operations;
+
+    private DataPatch(ImmutableList<Operation> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Creates a patch from the given operations.
+     *
+     * @param operations The operations, in the order they are applied
+     * @return The patch
+     */
+    public static DataPatch of(List<Operation> operations) {
+        checkNotNull(operations, "operations");
+        return operations.isEmpty() ? EMPTY : new DataPatch(ImmutableList.copyOf(operations));
+    }
+
+    /**
+     * Gets the operations of this patch, in the order they are applied.
+     *
+     * @return The operations
+     */
+    public List<Operation> getOperations() {
+        return this.operations;
+    }
+
+    /**
+     * Checks if this patch changes anything.
+     *
+     * @return True if there are no operations
+     */
+    public boolean isEmpty() {
+        return this.operations.isEmpty();
+    }
+
+    /**
+     * Applies all operations of this patch to the given map.
+     *
+     * @param target The map to patch
+     * @return The target for chaining
+     * @throws IllegalArgumentException If a range operation does not find a list or array at its path
+     */
+    public DataMap apply(DataMap target) {
+        checkNotNull(target, "target");
+        for (Operation operation : this.operations) {
+            operation.apply(target);
+        }
+        return target;
+    }
+
+    @Override
+    public void toContainer(DataValue data) {
+        DataList list = data.createList();
+        for (Operation operation : this.operations) {
+            DataMap map = list.addMap();
+            map.set(OP, operation.type.name());
+            map.set(PATH, operation.path.getParts());
+            if (operation.type == Operation.Type.REPLACE_RANGE) {
+                map.set(START, operation.start);
+                map.set(END, operation.end);
+            }
+            if (operation.value != null) {
+                map.set(VALUE, operation.value);
+            }
+        }
+    }
+
+    /**
+     * Reads a patch written by {@link #toContainer(DataValue)}.
+     *
+     * @param data The data to read
+     * @return The patch
+     * @throws IllegalArgumentException If the data is not a patch
+     */
+    public static DataPatch fromContainer(DataValue data) {
+        checkNotNull(data, "data");
+        DataList list = data.getList().orElseThrow(() -> new IllegalArgumentException("A patch must be a list"));
+        List<Operation> operations = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            DataMap map = list.getMap(i).orElseThrow(() -> new IllegalArgumentException("A patch operation must be a map"));
+            Operation.Type type = map.getString(OP).flatMap(name -> Coerce2.asObject(name, Operation.Type.class))
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown patch operation: " + map.getOrNull(OP)));
+            DataList pathList = map.getList(PATH).orElseThrow(() -> new IllegalArgumentException("A patch operation must have a path"));
+            String[] parts = new String[pathList.size()];
+            for (int j = 0; j < parts.length; j++) {
+                parts[j] = pathList.getString(j).orElseThrow(() -> new IllegalArgumentException("Malformed patch path: " + pathList));
+            }
+            DataQuery path = DataQuery.of(parts);
+            Object value = map.getOrNull(VALUE);
+            switch (type) {
+                case SET:
+                    operations.add(Operation.set(path, checkNotNull(value, "value")));
+                    break;
+                case REMOVE:
+                    operations.add(Operation.remove(path));
+                    break;
+                case REPLACE_RANGE:
+                    operations.add(Operation.replaceRange(path, map.getIntOrThrow(START), map.getIntOrThrow(END),
+                            checkNotNull(value, "value")));
+                    break;
+            }
+        }
+        return DataPatch.of(operations);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof DataPatch && this.operations.equals(((DataPatch) obj).operations);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.operations.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("operations", this.operations)
+                .toString();
+    }
+
+    /**
+     * A single change at a {@link DataQuery} path.
+     */
+    public static final class Operation {
+
+        public enum Type {
+            /**
+             * Sets the value at the path, creating maps along the way as needed.
+             */
+            SET,
+            /**
+             * Removes the value at the path.
+             */
+            REMOVE,
+            /**
+             * Replaces the elements {@code [start, end)} of the list or array at the path
+             * with the elements of the value, which may be of a different length.
+             */
+            REPLACE_RANGE
+        }
+
+        private final Type type;
+        private final DataQuery path;
+        @Nullable private final Object value;
+        private final int start;
+        private final int end;
+
+        private Operation(Type type, DataQuery path, @Nullable Object value, int start, int end) {
+            this.type = type;
+            this.path = path;
+            this.value = value;
+            this.start = start;
+            this.end = end;
+        }
+
+        public static Operation set(DataQuery path, Object value) {
+            checkPath(path);
+            checkNotNull(value, "value");
+            return new Operation(Type.SET, path, snapshot(value), 0, 0);
+        }
+
+        public static Operation remove(DataQuery path) {
+            checkPath(path);
+            return new Operation(Type.REMOVE, path, null, 0, 0);
+        }
+
+        public static Operation replaceRange(DataQuery path, int start, int end, Object values) {
+            checkPath(path);
+            checkNotNull(values, "values");
+            checkArgument(start >= 0 && start <= end, "Invalid range [%s, %s)", start, end);
+            checkArgument(values instanceof DataList || values.getClass().isArray(), "values must be a DataList or an array");
+            return new Operation(Type.REPLACE_RANGE, path, snapshot(values), start, end);
+        }
+
+        private static void checkPath(DataQuery path) {
+            checkNotNull(path, "path");
+            checkArgument(!path.getParts().isEmpty(), "The path can not be empty");
+        }
+
+        /**
+         * Copies mutable values so the operation does not change after it was created.
+         */
+        private static Object snapshot(Object value) {
+            if (value instanceof DataMap) {
+                return ((DataMap) value).freeze();
+            } else if (value instanceof DataList) {
+                return ((DataList) value).freeze();
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+                System.arraycopy(value, 0, copy, 0, length);
+                return copy;
+            }
+            return value;
+        }
+
+        public Type getType() {
+            return this.type;
+        }
+
+        public DataQuery getPath() {
+            return this.path;
+        }
+
+        /**
+         * Gets the value set by a {@link Type#SET} or the replacement elements of a
+         * {@link Type#REPLACE_RANGE}. Arrays are shared, do not modify them.
+         *
+         * @return The value, null for {@link Type#REMOVE}
+         */
+        @Nullable
+        public Object getValue() {
+            return this.value;
+        }
+
+        public int getStart() {
+            return this.start;
+        }
+
+        public int getEnd() {
+            return this.end;
+        }
+
+        void apply(DataMap target) {
+            switch (this.type) {
+                case SET:
+                    target.set(this.path, this.value);
+                    break;
+                case REMOVE:
+                    target.remove(this.path);
+                    break;
+                case REPLACE_RANGE:
+                    this.replaceRange(target);
+                    break;
+            }
+        }
+
+        private void replaceRange(DataMap target) {
+            Object current = target;
+            for (String part : this.path.getParts()) {
+                current = current instanceof DataView ? get((DataView<?>) current, part) : null;
+            }
+            if (current instanceof DataList) {
+                this.replaceInList((DataList) current);
+            } else if (current != null && current.getClass().isArray()) {
+                target.set(this.path, this.replaceInArray(current));
+            } else {
+                throw new IllegalArgumentException("No list or array to patch at " + this.path);
+            }
+        }
+
+        @Nullable
+        private static <K> Object get(DataView<K> view, String key) {
+            return view.getOrNull(view.key(key));
+        }
+
+        private void replaceInList(DataList list) {
+            checkArgument(this.end <= list.size(), "Range [%s, %s) is out of bounds for %s at %s", this.start, this.end, list.size(), this.path);
+            DataList values = this.values();
+
+            // overwrite in place as far as the ranges overlap, then shift the tail once
+            int overlap = Math.min(this.end - this.start, values.size());
+            for (int i = 0; i < overlap; i++) {
+                list.set(this.start + i, values.getOrNull(i));
+            }
+            if (overlap == values.size() && overlap == this.end - this.start) {
+                return;
+            }
+            int from = this.start + overlap;
+            List<Object> tail = new ArrayList<>(list.size() - this.end);
+            for (int i = this.end; i < list.size(); i++) {
+                Object element = list.getOrNull(i);
+                // in-memory views are moved, anything else may be bound to its index so snapshot it before shifting
+                if (element instanceof DataMap && !isAdoptable(TrackedView.unwrap(element))) {
+                    element = ((DataMap) element).freeze();
+                } else if (element instanceof DataList && !isAdoptable(TrackedView.unwrap(element))) {
+                    element = ((DataList) element).freeze();
+                }
+                tail.add(element);
+            }
+            for (int i = list.size() - 1; i >= from; i--) {
+                list.remove(i);
+            }
+            for (int i = overlap; i < values.size(); i++) {
+                list.add(values.getOrNull(i));
+            }
+            for (Object element : tail) {
+                if (element instanceof DataView && isAdoptable(TrackedView.unwrap(element))) {
+                    list.adopt((DataView<?>) element);
+                } else {
+                    list.add(element);
+                }
+            }
+        }
+
+        private static boolean isAdoptable(Object view) {
+            return view instanceof MemoryDataMap || view instanceof MemoryDataList;
+        }
+
+        private Object replaceInArray(Object array) {
+            int length = Array.getLength(array);
+            checkArgument(this.end <= length, "Range [%s, %s) is out of bounds for %s at %s", this.start, this.end, length, this.path);
+            Object values = Coerce2.asObject(this.value, array.getClass())
+                    .orElseThrow(() -> new IllegalArgumentException("Can not patch a " + array.getClass().getSimpleName()
+                            + " with " + this.value));
+            int count = Array.getLength(values);
+            Object result = Array.newInstance(array.getClass().getComponentType(), length - (this.end - this.start) + count);
+            System.arraycopy(array, 0, result, 0, this.start);
+            System.arraycopy(values, 0, result, this.start, count);
+            System.arraycopy(array, this.end, result, this.start + count, length - this.end);
+            return result;
+        }
+
+        /**
+         * Gets the replacement elements as a list, arrays are viewed without copying.
+         */
+        private DataList values() {
+            if (this.value instanceof DataList) {
+                return (DataList) this.value;
+            }
+            return MemoryDataValue.of(this.value).getList()
+                    .orElseThrow(() -> new IllegalArgumentException("Can not patch a list with " + this.value));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Operation)) {
+                return false;
+            }
+            Operation other = (Operation) obj;
+            return this.type == other.type
+                    && this.start == other.start
+                    && this.end == other.end
+                    && this.path.equals(other.path)
+                    && Objects.deepEquals(this.value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(this.type, this.path, this.start, this.end) + Arrays.deepHashCode(new Object[] {this.value});
+        }
+
+        @Override
+        public String toString() {
+            MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this)
+                    .add("type", this.type)
+                    .add("path", this.path);
+            if (this.type == Type.REPLACE_RANGE) {
+                helper.add("start", this.start).add("end", this.end);
+            }
+            return helper.add("value", this.value).toString();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.diff;
+
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.DataView;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Records the paths changed in a tracked tree as a prefix tree. Marking a path
+ * drops everything below it, so the journal never holds more entries than there
+ * are distinct changed subtrees.
+ */
+final class DirtyJournal {
+
+    private final DataMap root;
+    private Node dirty = new Node();
+    private boolean empty = true;
+
+    DirtyJournal(DataMap root) {
+        this.root = root;
+    }
+
+    boolean isEmpty() {
+        return this.empty;
+    }
+
+    void clear() {
+        this.dirty = new Node();
+        this.empty = true;
+    }
+
+    /**
+     * Marks {@code key} in {@code view} as changed, or all of {@code view} if {@code key} is null.
+     */
+    void mark(TrackedView view, @Nullable Object key) {
+        // a view may have been moved (list elements shift) or removed since it was handed out
+        TrackedView target = view;
+        Object last = key;
+        for (TrackedView v = view; v.parent() != null; v = v.parent()) {
+            TrackedView parent = v.parent();
+            if (!parent.holds(v.key(), v.backing())) {
+                if (!(parent instanceof TrackedDataList)) {
+                    target = null; // removed from a map, the change is not part of the tree anymore
+                } else {
+                    // moved or removed, either way the list it was in is the closest known place
+                    target = parent;
+                    last = null;
+                }
+            }
+        }
+        if (target == null) {
+            return;
+        }
+
+        int depth = last == null ? 0 : 1;
+        for (TrackedView v = target; v.parent() != null; v = v.parent()) {
+            depth++;
+        }
+        String[] parts = new String[depth];
+        int i = depth;
+        if (last != null) {
+            parts[--i] = last.toString();
+        }
+        for (TrackedView v = target; v.parent() != null; v = v.parent()) {
+            parts[--i] = v.key().toString();
+        }
+        this.mark(parts);
+    }
+
+    private void mark(String[] parts) {
+        Node node = this.dirty;
+        for (String part : parts) {
+            if (node.dirty) {
+                return; // already covered by a changed parent
+            }
+            if (node.children == null) {
+                node.children = new HashMap<>();
+            }
+            node = node.children.computeIfAbsent(part, p -> new Node());
+        }
+        node.dirty = true;
+        node.children = null;
+        this.empty = false;
+    }
+
+    /**
+     * Calls {@code consumer} with each changed path and its current value, or null if it was removed.
+     */
+    void forEach(BiConsumer<DataQuery, Object> consumer) {
+        forEach(this.dirty, new String[0], 0, this.root, consumer);
+    }
+
+    private static void forEach(Node node, String[] parts, int depth, @Nullable Object value,
+            BiConsumer<DataQuery, Object> consumer) {
+        if (node.dirty) {
+            consumer.accept(DataQuery.of(Arrays.copyOf(parts, depth)), value);
+            return;
+        }
+        if (node.children == null) {
+            return;
+        }
+        if (parts.length == depth) {
+            parts = Arrays.copyOf(parts, depth + 4);
+        }
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            parts[depth] = entry.getKey();
+            forEach(entry.getValue(), parts, depth + 1, get(value, entry.getKey()), consumer);
+        }
+    }
+
+    @Nullable
+    private static Object get(@Nullable Object view, String key) {
+        return view instanceof DataView ? get((DataView<?>) view, key) : null;
+    }
+
+    @Nullable
+    private static <K> Object get(DataView<K> view, String key) {
+        return view.getOrNull(view.key(key));
+    }
+
+    private static final class Node {
+
+        boolean dirty;
+        @Nullable Map<String, Node> children;
+    }
+}
@@ -0,0 +1,226 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.diff;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.AbstractDataList;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataView;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataList} inside of a {@link TrackedDataMap}.
+ *
+ * <p>Replacing an element records the index of the element. Adding, removing or
+ * clearing shifts the elements, so those record the whole list.</p>
+ */
+public final class TrackedDataList extends AbstractDataList implements TrackedView {
+
+    private final DataList backing;
+    private final DirtyJournal journal;
+    private final TrackedView parent;
+    private final Object key;
+
+    TrackedDataList(DataList backing, DirtyJournal journal, TrackedView parent, Object key) {
+        this.backing = backing;
+        this.journal = journal;
+        this.parent = parent;
+        this.key = key;
+    }
+
+    @Override
+    public TrackedView parent() {
+        return this.parent;
+    }
+
+    @Override
+    public Object key() {
+        return this.key;
+    }
+
+    @Override
+    public DataView<?> backing() {
+        return this.backing;
+    }
+
+    @Override
+    public boolean holds(Object key, Object value) {
+        return TrackedView.isSame(this.backing.getOrNull((int) key), value);
+    }
+
+    @Nullable
+    private Object track(int index, @Nullable Object value) {
+        if (value instanceof DataMap) {
+            return new TrackedDataMap((DataMap) value, this.journal, this, index);
+        } else if (value instanceof DataList) {
+            return new TrackedDataList((DataList) value, this.journal, this, index);
+        }
+        return value;
+    }
+
+    /**
+     * Marks a single element if it is replaced, or the whole list if it is appended.
+     */
+    private void mark(int index) {
+        this.journal.mark(this, index < this.backing.size() ? index : null);
+    }
+
+    @Override
+    public int size() {
+        return this.backing.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.backing.isEmpty();
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+        return Optional.ofNullable(this.getOrNull((int) key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        return this.track(index, this.backing.getOrNull(index));
+    }
+
+    @Override
+    public int getInt(int index, int def) {
+        return this.backing.getInt(index, def);
+    }
+
+    @Override
+    public long getLong(int index, long def) {
+        return this.backing.getLong(index, def);
+    }
+
+    @Override
+    public double getDouble(int index, double def) {
+        return this.backing.getDouble(index, def);
+    }
+
+    @Override
+    protected void setRaw(Integer key, Object value) {
+        this.set(key, value);
+    }
+
+    @Override
+    protected void addRaw(Object value) {
+        this.add(value);
+    }
+
+    @Override
+    public DataList set(Integer key, Object value) {
+        checkNotNull(key, "key");
+        checkNotNull(value, "value");
+        this.mark(key);
+        this.backing.set(key, TrackedView.unwrap(value));
+        return this;
+    }
+
+    @Override
+    public DataList add(Object value) {
+        checkNotNull(value, "value");
+        this.journal.mark(this, null);
+        this.backing.add(TrackedView.unwrap(value));
+        return this;
+    }
+
+    @Override
+    public DataList adopt(Integer key, DataView<?> view) {
+        checkNotNull(key, "key");
+        checkNotNull(view, "view");
+        this.mark(key);
+        this.backing.adopt(key, (DataView<?>) TrackedView.unwrap(view));
+        return this;
+    }
+
+    @Override
+    public DataList adopt(DataView<?> view) {
+        checkNotNull(view, "view");
+        this.journal.mark(this, null);
+        this.backing.adopt((DataView<?>) TrackedView.unwrap(view));
+        return this;
+    }
+
+    @Override
+    public DataList remove(Integer key) {
+        checkNotNull(key, "key");
+        if (key >= 0 && key < this.backing.size()) {
+            this.journal.mark(this, null);
+            this.backing.remove(key);
+        }
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        checkNotNull(key, "key");
+        this.mark(key);
+        return new TrackedDataMap(this.backing.createMap(key), this.journal, this, key);
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        checkNotNull(key, "key");
+        this.mark(key);
+        return new TrackedDataList(this.backing.createList(key), this.journal, this, key);
+    }
+
+    @Override
+    public DataMap addMap() {
+        this.journal.mark(this, null);
+        DataMap map = this.backing.addMap();
+        return new TrackedDataMap(map, this.journal, this, this.backing.size() - 1);
+    }
+
+    @Override
+    public DataList addList() {
+        this.journal.mark(this, null);
+        DataList list = this.backing.addList();
+        return new TrackedDataList(list, this.journal, this, this.backing.size() - 1);
+    }
+
+    @Override
+    public void clear() {
+        this.journal.mark(this, null);
+        this.backing.clear();
+    }
+
+    @Override
+    public DataList freeze() {
+        return this.backing.freeze();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.backing.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof TrackedDataList && this.backing.equals(((TrackedDataList) obj).backing);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("list", this.backing)
+                .toString();
+    }
+}
@@ -0,0 +1,270 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.diff;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.AbstractDataMap;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.DataView;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataMap} that records which paths were changed since the last {@link #checkpoint()}.
+ *
+ * <p>All reads and writes go to the backing map. Maps and lists read from a tracked map
+ * are tracked as well, so changes deep inside the tree are recorded with their full path.
+ * Only the paths are recorded, not the values, so the journal stays small no matter how
+ * often the same value changes. Saving or replicating the changes with {@link #forEachDirty}
+ * or {@link #getPatch()} only costs as much as the changed subtrees.</p>
+ *
+ * <p>Adding or removing list elements shifts the elements after them, so those changes
+ * mark the whole list. Changes made to the backing map directly are not seen. This map
+ * is not thread safe.</p>
+ */
+public final class TrackedDataMap extends AbstractDataMap implements TrackedView {
+
+    private final DataMap backing;
+    private final DirtyJournal journal;
+    @Nullable private final TrackedView parent;
+    @Nullable private final Object key;
+
+    /**
+     * Starts tracking changes to {@code backing}.
+     *
+     * @param backing The map to track
+     */
+    public TrackedDataMap(DataMap backing) {
+        this.backing = checkNotNull(backing, "backing");
+        this.journal = new DirtyJournal(backing);
+        this.parent = null;
+        this.key = null;
+    }
+
+    TrackedDataMap(DataMap backing, DirtyJournal journal, TrackedView parent, Object key) {
+        this.backing = backing;
+        this.journal = journal;
+        this.parent = parent;
+        this.key = key;
+    }
+
+    /**
+     * Checks if anything in the tracked tree changed since the last {@link #checkpoint()}.
+     *
+     * @return True if there are changes
+     */
+    public boolean isDirty() {
+        return !this.journal.isEmpty();
+    }
+
+    /**
+     * Gets the changed paths of the tracked tree, relative to its root. No path is
+     * inside another one.
+     *
+     * @return The changed paths
+     */
+    public Set<DataQuery> getDirtyPaths() {
+        Set<DataQuery> paths = new LinkedHashSet<>();
+        this.journal.forEach((path, value) -> paths.add(path));
+        return paths;
+    }
+
+    /**
+     * Calls {@code consumer} with each changed path of the tracked tree and its
+     * current value, or null if the value was removed. Values are not copied.
+     *
+     * @param consumer The consumer
+     */
+    public void forEachDirty(BiConsumer<DataQuery, Object> consumer) {
+        checkNotNull(consumer, "consumer");
+        this.journal.forEach(consumer);
+    }
+
+    /**
+     * Creates a patch that applies the changes since the last {@link #checkpoint()}
+     * to a copy of the tree as it was at that checkpoint.
+     *
+     * @return The patch
+     */
+    public DataPatch getPatch() {
+        List<DataPatch.Operation> operations = new ArrayList<>();
+        this.journal.forEach((path, value) -> operations.add(value == null
+                ? DataPatch.Operation.remove(path)
+                : DataPatch.Operation.set(path, value)));
+        return DataPatch.of(operations);
+    }
+
+    /**
+     * Forgets all recorded changes of the tracked tree.
+     */
+    public void checkpoint() {
+        this.journal.clear();
+    }
+
+    /**
+     * Gets the map being tracked. Changes made to it directly are not recorded.
+     *
+     * @return The backing map
+     */
+    public DataMap getBacking() {
+        return this.backing;
+    }
+
+    @Nullable
+    @Override
+    public TrackedView parent() {
+        return this.parent;
+    }
+
+    @Override
+    public Object key() {
+        return this.key;
+    }
+
+    @Override
+    public DataView<?> backing() {
+        return this.backing;
+    }
+
+    @Override
+    public boolean holds(Object key, Object value) {
+        return TrackedView.isSame(this.backing.getOrNull((String) key), value);
+    }
+
+    /**
+     * Wraps maps and lists so changes to them are tracked.
+     */
+    @Nullable
+    private Object track(String key, @Nullable Object value) {
+        if (value instanceof DataMap) {
+            return new TrackedDataMap((DataMap) value, this.journal, this, key);
+        } else if (value instanceof DataList) {
+            return new TrackedDataList((DataList) value, this.journal, this, key);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.backing.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.backing.isEmpty();
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(this.backing.getKeys());
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> consumer) {
+        this.backing.forEachKey(consumer);
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        return Optional.ofNullable(this.getOrNull(key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(String key) {
+        return this.track(key, this.backing.getOrNull(key));
+    }
+
+    @Override
+    protected void setRaw(String key, Object value) {
+        this.set(key, value);
+    }
+
+    @Override
+    public DataMap set(String key, Object value) {
+        checkNotNull(key, "key");
+        checkNotNull(value, "value");
+        this.journal.mark(this, key);
+        this.backing.set(key, TrackedView.unwrap(value));
+        return this;
+    }
+
+    @Override
+    public DataMap adopt(String key, DataView<?> view) {
+        checkNotNull(key, "key");
+        checkNotNull(view, "view");
+        this.journal.mark(this, key);
+        this.backing.adopt(key, (DataView<?>) TrackedView.unwrap(view));
+        return this;
+    }
+
+    @Override
+    public DataMap remove(String key) {
+        checkNotNull(key, "key");
+        if (this.backing.getOrNull(key) != null) {
+            this.journal.mark(this, key);
+            this.backing.remove(key);
+        }
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(String key) {
+        checkNotNull(key, "key");
+        this.journal.mark(this, key);
+        return new TrackedDataMap(this.backing.createMap(key), this.journal, this, key);
+    }
+
+    @Override
+    public DataList createList(String key) {
+        checkNotNull(key, "key");
+        this.journal.mark(this, key);
+        return new TrackedDataList(this.backing.createList(key), this.journal, this, key);
+    }
+
+    @Override
+    public void clear() {
+        // mark the keys one by one, the root of the tree has no path to mark
+        this.backing.forEachKey(key -> this.journal.mark(this, key));
+        this.backing.clear();
+    }
+
+    @Override
+    public DataMap copy() {
+        return this.backing.copy();
+    }
+
+    @Override
+    public DataMap freeze() {
+        return this.backing.freeze();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.backing.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof TrackedDataMap && this.backing.equals(((TrackedDataMap) obj).backing);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("map", this.backing)
+                .toString();
+    }
+}
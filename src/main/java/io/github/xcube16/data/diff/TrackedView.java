@@ -0,0 +1,59 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.diff;
+
+import io.github.xcube16.data.DataView;
+import io.github.xcube16.data.PersistentDataList;
+import io.github.xcube16.data.PersistentDataMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link DataView} that reports its mutations to a {@link DirtyJournal}.
+ */
+interface TrackedView {
+
+    /**
+     * Gets the view this one was reached from, null for the root.
+     */
+    @Nullable
+    TrackedView parent();
+
+    /**
+     * Gets the key of this view in its {@link #parent()}.
+     */
+    Object key();
+
+    /**
+     * Gets the view being tracked.
+     */
+    DataView<?> backing();
+
+    /**
+     * Checks if {@code value} is still stored at {@code key}.
+     */
+    boolean holds(Object key, Object value);
+
+    /**
+     * Checks if {@code current}, read from a parent, is the view {@code value}.
+     *
+     * <p>Most views hand out the same instance every time. {@link PersistentDataMap} and
+     * {@link PersistentDataList} hand out a new view bound to the key instead, any of them
+     * sees (and writes) whatever is at that key, so they are the same view as long as the
+     * key holds the same kind of view.</p>
+     */
+    static boolean isSame(@Nullable Object current, Object value) {
+        if (current == value) {
+            return true;
+        }
+        return (current instanceof PersistentDataMap || current instanceof PersistentDataList)
+                && current.getClass() == value.getClass();
+    }
+
+    /**
+     * Unwraps tracked views so they are copied from their backing views directly.
+     */
+    static Object unwrap(Object value) {
+        return value instanceof TrackedView ? ((TrackedView) value).backing() : value;
+    }
+}
@@ -0,0 +1,226 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.index;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.CompiledQuery;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * An index over one field of the {@link DataMap} records in an {@link IndexedDataList}.
+ *
+ * <p>Keys are compared by value after numbers are normalized, so {@code 5}, {@code 5L}
+ * and {@code 5.0} are the same key. Strings and numbers are never equal to each other.
+ * Records whose field is missing, or is a map, list or array, are not indexed.
+ * Records with the same key are returned in the order they were indexed.</p>
+ */
+public abstract class DataIndex {
+
+    /**
+     * Stored for records that are in the list but have no usable key.
+     */
+    private static final Object NO_KEY = new Object();
+
+    private final DataQuery field;
+    private final CompiledQuery query;
+
+    /**
+     * The key every record in the list was indexed under, by identity.
+     */
+    private final Map<DataMap, Object> keys = new IdentityHashMap<>();
+
+    @Nullable IndexedDataList list;
+
+    DataIndex(IndexedDataList list, DataQuery field) {
+        this.list = list;
+        this.field = field;
+        this.query = field.compile();
+    }
+
+    /**
+     * Gets the table from normalized keys to a record, or an {@link ArrayList} of records.
+     */
+    abstract Map<Object, Object> table();
+
+    /**
+     * Gets the field this index is on.
+     *
+     * @return The path of the field inside each record
+     */
+    public DataQuery getField() {
+        return this.field;
+    }
+
+    /**
+     * Gets the records with the given key.
+     *
+     * @param key The key
+     * @return The records, empty if there are none
+     */
+    public List<DataMap> get(Object key) {
+        IndexedDataList list = this.checkList();
+        Object normalized = normalize(key);
+        return normalized == null ? Collections.emptyList() : list.records(this.table().get(normalized));
+    }
+
+    /**
+     * Gets the first record with the given key.
+     *
+     * @param key The key
+     * @return The record, if there is one
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<DataMap> getFirst(Object key) {
+        IndexedDataList list = this.checkList();
+        Object normalized = normalize(key);
+        Object records = normalized == null ? null : this.table().get(normalized);
+        if (records == null) {
+            return Optional.empty();
+        }
+        return Optional.of(list.record(records instanceof DataMap ? (DataMap) records : ((List<DataMap>) records).get(0)));
+    }
+
+    /**
+     * Checks if any record has the given key.
+     *
+     * @param key The key
+     * @return True if there is a record with the key
+     */
+    public boolean contains(Object key) {
+        this.checkList();
+        Object normalized = normalize(key);
+        return normalized != null && this.table().containsKey(normalized);
+    }
+
+    /**
+     * Gets the number of distinct keys.
+     *
+     * @return The number of keys
+     */
+    public int size() {
+        this.checkList();
+        return this.table().size();
+    }
+
+    private IndexedDataList checkList() {
+        checkState(this.list != null, "The index has been dropped");
+        return this.list;
+    }
+
+    void add(DataMap record) {
+        Object key = normalize(this.query.getOrNull(record));
+        this.keys.put(record, key == null ? NO_KEY : key);
+        if (key != null) {
+            this.put(key, record);
+        }
+    }
+
+    void remove(DataMap record) {
+        Object key = this.keys.remove(record);
+        if (key != null && key != NO_KEY) {
+            this.take(key, record);
+        }
+    }
+
+    /**
+     * Moves {@code record} if its key changed, records that are not in the list are ignored.
+     */
+    void update(DataMap record) {
+        Object old = this.keys.get(record);
+        if (old == null) {
+            return;
+        }
+        Object key = normalize(this.query.getOrNull(record));
+        if (key == null ? old == NO_KEY : key.equals(old)) {
+            return;
+        }
+        if (old != NO_KEY) {
+            this.take(old, record);
+        }
+        this.keys.put(record, key == null ? NO_KEY : key);
+        if (key != null) {
+            this.put(key, record);
+        }
+    }
+
+    void clear() {
+        this.keys.clear();
+        this.table().clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(Object key, DataMap record) {
+        Map<Object, Object> table = this.table();
+        Object records = table.putIfAbsent(key, record);
+        if (records instanceof DataMap) {
+            List<DataMap> list = new ArrayList<>(2);
+            list.add((DataMap) records);
+            list.add(record);
+            table.put(key, list);
+        } else if (records != null) {
+            ((List<DataMap>) records).add(record);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void take(Object key, DataMap record) {
+        Map<Object, Object> table = this.table();
+        Object records = table.get(key);
+        if (records == record) {
+            table.remove(key);
+        } else if (records instanceof List) {
+            List<DataMap> list = (List<DataMap>) records;
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) == record) {
+                    list.remove(i);
+                    break;
+                }
+            }
+            if (list.size() == 1) {
+                table.put(key, list.get(0));
+            }
+        }
+    }
+
+    /**
+     * Normalizes a field value or lookup key, null if it can not be indexed.
+     */
+    @Nullable
+    static Object normalize(@Nullable Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number)) {
+                return null;
+            }
+            // whole numbers become longs so 5 and 5.0 are the same key
+            long whole = (long) number;
+            return whole == number && whole != Long.MAX_VALUE && whole != Long.MIN_VALUE ? (Object) whole : (Object) number;
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof String || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Character) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("field", this.field)
+                .add("keys", this.list == null ? 0 : this.table().size())
+                .toString();
+    }
+}
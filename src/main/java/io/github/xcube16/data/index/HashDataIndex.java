@@ -0,0 +1,25 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.index;
+
+import io.github.xcube16.data.DataQuery;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link DataIndex} with constant time lookups.
+ */
+final class HashDataIndex extends DataIndex {
+
+    private final Map<Object, Object> table = new HashMap<>();
+
+    HashDataIndex(IndexedDataList list, DataQuery field) {
+        super(list, field);
+    }
+
+    @Override
+    Map<Object, Object> table() {
+        return this.table;
+    }
+}
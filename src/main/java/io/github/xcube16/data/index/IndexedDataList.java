@@ -0,0 +1,349 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.index;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.AbstractDataList;
+import io.github.xcube16.data.ConcurrentDataList;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.DataView;
+import io.github.xcube16.data.FrozenDataList;
+import io.github.xcube16.data.MemoryDataList;
+import io.github.xcube16.data.PersistentDataList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataList} of {@link DataMap} records that keeps {@link DataIndex}es on their fields.
+ *
+ * <p>All reads and writes go to the backing list. Records read from an indexed list, or
+ * returned by one of its indexes, are views that update the indexes when they are changed,
+ * so a record can be edited in place without being set back into the list. Each change
+ * only costs as much as the record's own index entries, no matter how long the list is.</p>
+ *
+ * <p>Elements that are not maps are kept but never indexed. Changes made to the backing
+ * list or its records directly are not seen. This list is not thread safe.</p>
+ *
+ * <p>Indexes hold on to the record instances of the backing list, so it has to be a list
+ * that stores its records, a {@link MemoryDataList}, {@link ConcurrentDataList} or
+ * {@link FrozenDataList}. Lists like {@link PersistentDataList} hand out a new view bound
+ * to a position on every read, which an index can not follow.</p>
+ */
+public final class IndexedDataList extends AbstractDataList {
+
+    private final DataList backing;
+    private final List<DataIndex> indexes = new ArrayList<>(2);
+
+    /**
+     * Wraps {@code backing} so indexes can be created on its records.
+     *
+     * @param backing The list of records
+     * @throws IllegalArgumentException If the list does not store its records
+     */
+    public IndexedDataList(DataList backing) {
+        checkNotNull(backing, "backing");
+        checkArgument(backing instanceof MemoryDataList || backing instanceof ConcurrentDataList
+                || backing instanceof FrozenDataList, "Records can not be indexed in a %s", backing.getClass().getSimpleName());
+        this.backing = backing;
+    }
+
+    /**
+     * Creates an index with constant time lookups on a field of the records.
+     *
+     * @param field The path of the field inside each record
+     * @return The index
+     */
+    public DataIndex createHashIndex(DataQuery field) {
+        return this.build(new HashDataIndex(this, checkField(field)));
+    }
+
+    /**
+     * Creates an index with logarithmic lookups and range queries on a field of the records.
+     *
+     * @param field The path of the field inside each record
+     * @return The index
+     */
+    public SortedDataIndex createSortedIndex(DataQuery field) {
+        return this.build(new SortedDataIndex(this, checkField(field)));
+    }
+
+    /**
+     * Stops maintaining an index, it can not be used afterwards.
+     *
+     * @param index The index to drop
+     * @throws IllegalArgumentException If the index does not belong to this list
+     */
+    public void dropIndex(DataIndex index) {
+        checkNotNull(index, "index");
+        checkArgument(index.list == this && this.indexes.remove(index), "The index does not belong to this list");
+        index.clear();
+        index.list = null;
+    }
+
+    /**
+     * Gets the indexes of this list.
+     *
+     * @return The indexes, in the order they were created
+     */
+    public List<DataIndex> getIndexes() {
+        return Collections.unmodifiableList(this.indexes);
+    }
+
+    /**
+     * Gets the list being indexed. Changes made to it directly are not seen by the indexes.
+     *
+     * @return The backing list
+     */
+    public DataList getBacking() {
+        return this.backing;
+    }
+
+    private static DataQuery checkField(DataQuery field) {
+        checkNotNull(field, "field");
+        checkArgument(field.size() > 0, "The field can not be empty");
+        return field;
+    }
+
+    private <T extends DataIndex> T build(T index) {
+        for (int i = 0; i < this.backing.size(); i++) {
+            Object element = this.backing.getOrNull(i);
+            if (element instanceof DataMap) {
+                index.add((DataMap) element);
+            }
+        }
+        this.indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Moves a record in every index after it was changed.
+     */
+    void reindex(DataMap record) {
+        for (int i = 0; i < this.indexes.size(); i++) {
+            this.indexes.get(i).update(record);
+        }
+    }
+
+    private void added(@Nullable Object element) {
+        if (element instanceof DataMap) {
+            for (int i = 0; i < this.indexes.size(); i++) {
+                this.indexes.get(i).add((DataMap) element);
+            }
+        }
+    }
+
+    private void removed(@Nullable Object element) {
+        if (element instanceof DataMap) {
+            for (int i = 0; i < this.indexes.size(); i++) {
+                this.indexes.get(i).remove((DataMap) element);
+            }
+        }
+    }
+
+    DataMap record(DataMap record) {
+        return new RecordMap(this, record, record);
+    }
+
+    /**
+     * Wraps an index table entry, a single record or a list of them.
+     */
+    @SuppressWarnings("unchecked")
+    List<DataMap> records(@Nullable Object entry) {
+        if (entry == null) {
+            return Collections.emptyList();
+        } else if (entry instanceof DataMap) {
+            return Collections.singletonList(this.record((DataMap) entry));
+        }
+        List<DataMap> records = (List<DataMap>) entry;
+        List<DataMap> wrapped = new ArrayList<>(records.size());
+        for (DataMap record : records) {
+            wrapped.add(this.record(record));
+        }
+        return wrapped;
+    }
+
+    /**
+     * Gets the backing view of a record view so it is not stored inside another list.
+     */
+    static Object unwrap(Object value) {
+        if (value instanceof RecordMap) {
+            return ((RecordMap) value).backing;
+        } else if (value instanceof RecordList) {
+            return ((RecordList) value).backing;
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.backing.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.backing.isEmpty();
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+        return Optional.ofNullable(this.getOrNull((int) key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        Object value = this.backing.getOrNull(index);
+        return value instanceof DataMap ? this.record((DataMap) value) : value;
+    }
+
+    @Override
+    public int getInt(int index, int def) {
+        return this.backing.getInt(index, def);
+    }
+
+    @Override
+    public long getLong(int index, long def) {
+        return this.backing.getLong(index, def);
+    }
+
+    @Override
+    public double getDouble(int index, double def) {
+        return this.backing.getDouble(index, def);
+    }
+
+    @Override
+    protected void setRaw(Integer key, Object value) {
+        this.set(key, value);
+    }
+
+    @Override
+    protected void addRaw(Object value) {
+        this.add(value);
+    }
+
+    @Override
+    public DataList set(Integer key, Object value) {
+        checkNotNull(key, "key");
+        checkNotNull(value, "value");
+        Object old = this.backing.getOrNull(key);
+        this.backing.set(key, unwrap(value));
+        this.removed(old);
+        this.added(this.backing.getOrNull(key));
+        return this;
+    }
+
+    @Override
+    public DataList add(Object value) {
+        checkNotNull(value, "value");
+        this.backing.add(unwrap(value));
+        this.added(this.backing.getOrNull(this.backing.size() - 1));
+        return this;
+    }
+
+    @Override
+    public DataList adopt(Integer key, DataView<?> view) {
+        checkNotNull(key, "key");
+        checkNotNull(view, "view");
+        Object old = this.backing.getOrNull(key);
+        this.backing.adopt(key, (DataView<?>) unwrap(view));
+        this.removed(old);
+        this.added(this.backing.getOrNull(key));
+        return this;
+    }
+
+    @Override
+    public DataList adopt(DataView<?> view) {
+        checkNotNull(view, "view");
+        this.backing.adopt((DataView<?>) unwrap(view));
+        this.added(this.backing.getOrNull(this.backing.size() - 1));
+        return this;
+    }
+
+    @Override
+    public DataList remove(Integer key) {
+        checkNotNull(key, "key");
+        Object old = this.backing.getOrNull(key);
+        this.backing.remove(key);
+        this.removed(old);
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        checkNotNull(key, "key");
+        Object old = this.backing.getOrNull(key);
+        DataMap map = this.backing.createMap(key);
+        this.removed(old);
+        this.added(map);
+        return this.record(map);
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        checkNotNull(key, "key");
+        Object old = this.backing.getOrNull(key);
+        DataList list = this.backing.createList(key);
+        this.removed(old);
+        return list;
+    }
+
+    @Override
+    public DataMap addMap() {
+        DataMap map = this.backing.addMap();
+        this.added(map);
+        return this.record(map);
+    }
+
+    @Override
+    public DataList addList() {
+        return this.backing.addList();
+    }
+
+    @Override
+    public void clear() {
+        for (DataIndex index : this.indexes) {
+            index.clear();
+        }
+        this.backing.clear();
+    }
+
+    @Override
+    public DataList freeze() {
+        return this.backing.freeze();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.backing.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof IndexedDataList && this.backing.equals(((IndexedDataList) obj).backing);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("list", this.backing)
+                .add("indexes", this.indexes)
+                .toString();
+    }
+}
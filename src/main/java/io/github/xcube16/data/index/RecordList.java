@@ -0,0 +1,194 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.index;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.AbstractDataList;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataView;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A list inside a record of an {@link IndexedDataList}. Every change re-indexes the record.
+ */
+final class RecordList extends AbstractDataList {
+
+    private final IndexedDataList list;
+    private final DataMap record;
+    final DataList backing;
+
+    RecordList(IndexedDataList list, DataMap record, DataList backing) {
+        this.list = list;
+        this.record = record;
+        this.backing = backing;
+    }
+
+    @Nullable
+    private Object wrap(@Nullable Object value) {
+        if (value instanceof DataMap) {
+            return new RecordMap(this.list, this.record, (DataMap) value);
+        } else if (value instanceof DataList) {
+            return new RecordList(this.list, this.record, (DataList) value);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.backing.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.backing.isEmpty();
+    }
+
+    @Override
+    public Optional<Object> get(Integer key) {
+        checkNotNull(key, "key");
+        return Optional.ofNullable(this.getOrNull((int) key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(Integer key) {
+        checkNotNull(key, "key");
+        return this.getOrNull((int) key);
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(int index) {
+        return this.wrap(this.backing.getOrNull(index));
+    }
+
+    @Override
+    public int getInt(int index, int def) {
+        return this.backing.getInt(index, def);
+    }
+
+    @Override
+    public long getLong(int index, long def) {
+        return this.backing.getLong(index, def);
+    }
+
+    @Override
+    public double getDouble(int index, double def) {
+        return this.backing.getDouble(index, def);
+    }
+
+    @Override
+    protected void setRaw(Integer key, Object value) {
+        this.set(key, value);
+    }
+
+    @Override
+    protected void addRaw(Object value) {
+        this.add(value);
+    }
+
+    @Override
+    public DataList set(Integer key, Object value) {
+        checkNotNull(key, "key");
+        checkNotNull(value, "value");
+        this.backing.set(key, IndexedDataList.unwrap(value));
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataList add(Object value) {
+        checkNotNull(value, "value");
+        this.backing.add(IndexedDataList.unwrap(value));
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataList adopt(Integer key, DataView<?> view) {
+        checkNotNull(key, "key");
+        checkNotNull(view, "view");
+        this.backing.adopt(key, (DataView<?>) IndexedDataList.unwrap(view));
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataList adopt(DataView<?> view) {
+        checkNotNull(view, "view");
+        this.backing.adopt((DataView<?>) IndexedDataList.unwrap(view));
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataList remove(Integer key) {
+        checkNotNull(key, "key");
+        this.backing.remove(key);
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(Integer key) {
+        checkNotNull(key, "key");
+        DataMap map = this.backing.createMap(key);
+        this.list.reindex(this.record);
+        return new RecordMap(this.list, this.record, map);
+    }
+
+    @Override
+    public DataList createList(Integer key) {
+        checkNotNull(key, "key");
+        DataList list = this.backing.createList(key);
+        this.list.reindex(this.record);
+        return new RecordList(this.list, this.record, list);
+    }
+
+    @Override
+    public DataMap addMap() {
+        DataMap map = this.backing.addMap();
+        this.list.reindex(this.record);
+        return new RecordMap(this.list, this.record, map);
+    }
+
+    @Override
+    public DataList addList() {
+        DataList list = this.backing.addList();
+        this.list.reindex(this.record);
+        return new RecordList(this.list, this.record, list);
+    }
+
+    @Override
+    public void clear() {
+        this.backing.clear();
+        this.list.reindex(this.record);
+    }
+
+    @Override
+    public DataList freeze() {
+        return this.backing.freeze();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.backing.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof RecordList && this.backing.equals(((RecordList) obj).backing);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("list", this.backing)
+                .toString();
+    }
+}
@@ -0,0 +1,155 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.index;
+
+import com.google.common.base.MoreObjects;
+import io.github.xcube16.data.AbstractDataMap;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataView;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A map inside a record of an {@link IndexedDataList}, or the record itself.
+ * Every change re-indexes the record.
+ */
+final class RecordMap extends AbstractDataMap {
+
+    private final IndexedDataList list;
+    private final DataMap record;
+    final DataMap backing;
+
+    RecordMap(IndexedDataList list, DataMap record, DataMap backing) {
+        this.list = list;
+        this.record = record;
+        this.backing = backing;
+    }
+
+    @Nullable
+    private Object wrap(@Nullable Object value) {
+        if (value instanceof DataMap) {
+            return new RecordMap(this.list, this.record, (DataMap) value);
+        } else if (value instanceof DataList) {
+            return new RecordList(this.list, this.record, (DataList) value);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.backing.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.backing.isEmpty();
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(this.backing.getKeys());
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> consumer) {
+        this.backing.forEachKey(consumer);
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        return Optional.ofNullable(this.getOrNull(key));
+    }
+
+    @Nullable
+    @Override
+    public Object getOrNull(String key) {
+        return this.wrap(this.backing.getOrNull(key));
+    }
+
+    @Override
+    protected void setRaw(String key, Object value) {
+        this.set(key, value);
+    }
+
+    @Override
+    public DataMap set(String key, Object value) {
+        checkNotNull(key, "key");
+        checkNotNull(value, "value");
+        this.backing.set(key, IndexedDataList.unwrap(value));
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataMap adopt(String key, DataView<?> view) {
+        checkNotNull(key, "key");
+        checkNotNull(view, "view");
+        this.backing.adopt(key, (DataView<?>) IndexedDataList.unwrap(view));
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataMap remove(String key) {
+        checkNotNull(key, "key");
+        this.backing.remove(key);
+        this.list.reindex(this.record);
+        return this;
+    }
+
+    @Override
+    public DataMap createMap(String key) {
+        checkNotNull(key, "key");
+        DataMap map = this.backing.createMap(key);
+        this.list.reindex(this.record);
+        return new RecordMap(this.list, this.record, map);
+    }
+
+    @Override
+    public DataList createList(String key) {
+        checkNotNull(key, "key");
+        DataList list = this.backing.createList(key);
+        this.list.reindex(this.record);
+        return new RecordList(this.list, this.record, list);
+    }
+
+    @Override
+    public void clear() {
+        this.backing.clear();
+        this.list.reindex(this.record);
+    }
+
+    @Override
+    public DataMap copy() {
+        return this.backing.copy();
+    }
+
+    @Override
+    public DataMap freeze() {
+        return this.backing.freeze();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.backing.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof RecordMap && this.backing.equals(((RecordMap) obj).backing);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("map", this.backing)
+                .toString();
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) all rights reserved
+// I am lazy right now, I will mess around with copyright/licensing later if need be.
+package io.github.xcube16.data.index;
+
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A {@link DataIndex} with logarithmic lookups that also answers range queries.
+ *
+ * <p>Keys are ordered booleans first, then numbers, then strings.</p>
+ */
+public final class SortedDataIndex extends DataIndex {
+
+    private static final Comparator<Object> ORDER = SortedDataIndex::compare;
+
+    private final NavigableMap<Object, Object> table = new TreeMap<>(ORDER);
+
+    SortedDataIndex(IndexedDataList list, DataQuery field) {
+        super(list, field);
+    }
+
+    @Override
+    Map<Object, Object> table() {
+        return this.table;
+    }
+
+    /**
+     * Gets the records with keys from {@code from} (inclusive) to {@code to} (exclusive),
+     * in key order.
+     *
+     * @param from The lowest key, or null for no lower bound
+     * @param to The key to stop before, or null for no upper bound
+     * @return The records
+     */
+    public List<DataMap> range(@Nullable Object from, @Nullable Object to) {
+        return this.range(from, true, to, false);
+    }
+
+    /**
+     * Gets the records with keys between {@code from} and {@code to}, in key order.
+     *
+     * @param from The lowest key, or null for no lower bound
+     * @param fromInclusive If records with the key {@code from} are included
+     * @param to The highest key, or null for no upper bound
+     * @param toInclusive If records with the key {@code to} are included
+     * @return The records
+     */
+    public List<DataMap> range(@Nullable Object from, boolean fromInclusive, @Nullable Object to, boolean toInclusive) {
+        IndexedDataList list = this.list;
+        checkState(list != null, "The index has been dropped");
+        NavigableMap<Object, Object> range = this.table;
+        if (from != null) {
+            Object key = normalize(from);
+            checkArgument(key != null, "%s can not be a key", from);
+            range = range.tailMap(key, fromInclusive);
+        }
+        if (to != null) {
+            Object key = normalize(to);
+            checkArgument(key != null, "%s can not be a key", to);
+            range = range.headMap(key, toInclusive);
+        }
+        List<DataMap> records = new ArrayList<>();
+        for (Object value : range.values()) {
+            records.addAll(list.records(value));
+        }
+        return records;
+    }
+
+    private static int compare(Object a, Object b) {
+        int rank = Integer.compare(rank(a), rank(b));
+        if (rank != 0) {
+            return rank;
+        }
+        if (a instanceof Long && b instanceof Long) {
+            return Long.compare((Long) a, (Long) b);
+        } else if (a instanceof Number) {
+            int order = Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            // a huge long can round to the same double as a fraction, they are still different keys
+            return order != 0 ? order : Boolean.compare(a instanceof Double, b instanceof Double);
+        } else if (a instanceof Boolean) {
+            return Boolean.compare((Boolean) a, (Boolean) b);
+        }
+        return ((String) a).compareTo((String) b);
+    }
+
+    private static int rank(Object key) {
+        return key instanceof Boolean ? 0 : key instanceof Number ? 1 : 2;
+    }
+}
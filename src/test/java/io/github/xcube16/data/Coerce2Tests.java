@@ -0,0 +1,98 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class Coerce2Tests {
+
+    @Test
+    public void ParseNumbers() {
+        assertEquals(Optional.of((byte) -128), Coerce2.asByte(" -128 "));
+        assertFalse(Coerce2.asByte("128").isPresent());
+        assertEquals(Optional.of((short) 12), Coerce2.asShort("12.9"));
+        assertEquals(Optional.of(1), Coerce2.asInteger("1.5e0d"));
+        assertEquals(Optional.of(Long.MIN_VALUE), Coerce2.asLong("-9223372036854775808"));
+        assertEquals(Optional.of(Long.MAX_VALUE), Coerce2.asLong("9223372036854775808"));
+        assertEquals(Optional.of(0.1f), Coerce2.asFloat("0.1"));
+        assertEquals(Optional.of(Double.NEGATIVE_INFINITY), Coerce2.asDouble("-Infinity"));
+        assertEquals(Optional.of(-0.0), Coerce2.asDouble("-0"));
+        assertEquals(Optional.of(4.9e-324), Coerce2.asDouble("4.9e-324"));
+
+        assertFalse(Coerce2.asDouble("1e").isPresent());
+        assertFalse(Coerce2.asDouble(".").isPresent());
+        assertFalse(Coerce2.asDouble("0x1p3").isPresent());
+        assertEquals(7, Coerce2.asInt(new StringBuilder("7"), -1));
+        assertEquals(-1, Coerce2.asInt("seven", -1));
+    }
+
+    @Test
+    public void ParseBooleans() {
+        assertEquals(Optional.of(true), Coerce2.asBoolean(" Yes"));
+        assertEquals(Optional.of(false), Coerce2.asBoolean("f"));
+        assertEquals(Optional.of(true), Coerce2.asBoolean("2"));
+        assertEquals(Optional.of(false), Coerce2.asBoolean("0.5"));
+        assertFalse(Coerce2.asBoolean("maybe").isPresent());
+    }
+
+    @Test
+    public void ArrayListView() {
+        int[] array = {1, 2, 3};
+        MemoryDataMap map = new MemoryDataMap();
+        map.set("a", array);
+
+        DataList list = map.getList("a").get();
+        assertEquals(2, list.getInt(1, -1));
+        assertSame(array, map.get("a").get()); // reading leaves the array alone
+
+        list.add(4);
+        assertEquals(4, list.size());
+        assertEquals(Optional.of(4), map.getList("a").get().getInt(3)); // now a real list
+    }
+
+    @Test
+    public void ArrayListViewsShareWrites() {
+        MemoryDataMap map = new MemoryDataMap();
+        map.set("arr", new int[] {1, 2, 3});
+        DataList first = map.getList("arr").get();
+        DataList second = map.getList("arr").get();
+        first.set(0, 100);
+        assertEquals(1, second.getInt(0, -1)); // reads stay on the array until the view is modified
+        second.set(1, 200);
+        assertEquals(100, second.getInt(0, -1));
+        assertEquals(200, first.getInt(1, -1));
+        assertSame(map.getOrNull("arr"), ((ArrayDataList) first).unwrap());
+        assertSame(map.getOrNull("arr"), ((ArrayDataList) second).unwrap());
+        assertEquals(Optional.of(100), map.getList("arr").get().getInt(0));
+        assertEquals(Optional.of(200), map.getList("arr").get().getInt(1));
+
+        // the same through a path
+        DataQuery path = DataQuery.of('.', "nested.arr");
+        map.set(path, new long[] {1, 2});
+        DataList byPath = map.getList(path).get();
+        DataList byKey = map.getMap("nested").get().getList("arr").get();
+        byKey.add(3L);
+        byPath.add(4L);
+        assertEquals(4, map.getList(path).get().size());
+
+        // and in a value
+        MemoryDataValue value = new MemoryDataValue();
+        value.set("abc");
+        DataList chars = value.getList().get();
+        value.getList().get().remove(0);
+        chars.add('d');
+        assertEquals(3, value.getList().get().size());
+        assertEquals(Optional.of('d'), value.getList().get().getCharacter(2));
+
+        // the copying overload converts right away
+        MemoryDataMap copied = new MemoryDataMap();
+        copied.set("arr", new byte[] {1, 2});
+        DataList list = Coerce2.asDataList(copied.getOrNull("arr"), "arr", copied::createList).get();
+        assertSame(list, copied.getOrNull("arr"));
+        assertEquals(Optional.of((byte) 2), list.getByte(1));
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentDataMapTests {
+
+    private static final int THREADS = 8;
+
+    private interface Task {
+
+        void run(int thread) throws Exception;
+    }
+
+    private static void race(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void ConcurrentPathWrites() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            ConcurrentDataMap map = new ConcurrentDataMap();
+            ConcurrentDataList list = new ConcurrentDataList();
+            // every thread creates the same parents, none of the subtrees may get lost
+            race(thread -> {
+                map.set(DataQuery.of('.', "a.b.t" + thread), thread);
+                map.set(DataQuery.of('.', "a.t" + thread), thread);
+                list.add(thread);
+            });
+
+            DataMap a = map.getMap("a").get();
+            assertTrue(a instanceof ConcurrentDataMap);
+            assertEquals(THREADS + 1, a.size());
+            assertEquals(THREADS, a.getMap("b").get().size());
+            for (int i = 0; i < THREADS; i++) {
+                assertEquals(i, map.getInt(DataQuery.of('.', "a.b.t" + i)).get().intValue());
+                assertEquals(i, a.getInt("t" + i).get().intValue());
+            }
+
+            assertEquals(THREADS, list.size());
+            Set<Object> added = new HashSet<>();
+            list.stream().forEach(added::add);
+            assertEquals(THREADS, added.size());
+        }
+    }
+
+    @Test
+    public void ReadWhileWriting() throws Exception {
+        ConcurrentDataMap map = new ConcurrentDataMap();
+        DataList list = map.createList("list");
+        race(thread -> {
+            for (int i = 0; i < 1000; i++) {
+                if (thread % 2 == 0) {
+                    map.set("k" + thread + "-" + i, i);
+                    map.remove("k" + thread + "-" + (i / 2));
+                    list.add(i);
+                } else {
+                    // readers never lock, throw or see a half built nested map
+                    map.forEachKey(map::getOrNull);
+                    map.set("nested" + thread, new MemoryDataMap().set("a", 1).set("b", 2));
+                    assertEquals(2, map.getMap("nested" + thread).get().size());
+                    assertTrue(list.stream().allMatch(value -> value instanceof Integer));
+                }
+            }
+        });
+        assertEquals(THREADS / 2 * 1000, list.size());
+        // each writer leaves its last 500 keys, each reader one nested map, plus the list
+        assertEquals(THREADS / 2 * 500 + THREADS / 2 + 1, map.size());
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DataQueryTests {
+
+    @Test
+    public void CompiledQuery() {
+        DataMap root = new MemoryDataMap();
+        root.createMap("world").createList("chunks")
+                .add(new int[] {4, 5, 6})
+                .addMap().set("height", 256).set("name", "spawn");
+
+        CompiledQuery height = DataQuery.of('.', "world.chunks.1.height").compile();
+        assertSame(height, height.getQuery().compile());
+        assertEquals(256, height.getInt(root, -1));
+        assertEquals(256L, height.getLong(root, -1));
+        assertEquals(Optional.of("spawn"), DataQuery.of('.', "world.chunks.1.name").compile().getString(root));
+
+        assertEquals(-1, DataQuery.of('.', "world.chunks.2.height").compile().getInt(root, -1));
+        assertEquals(-1, DataQuery.of('.', "world.chunks.-1.height").compile().getInt(root, -1));
+        assertEquals(-1, DataQuery.of('.', "world.chunks.x.height").compile().getInt(root, -1));
+        assertNull(DataQuery.of('.', "world.chunks.1.height.deeper").compile().getOrNull(root));
+        assertSame(root, DataQuery.of().compile().getOrNull(root));
+        assertEquals(Optional.of(256), root.getInt(DataQuery.of('.', "world.chunks.1.height")));
+    }
+
+    @Test
+    public void PlainReadsMatchCompiled() {
+        DataMap root = new MemoryDataMap();
+        root.createMap("world").createList("chunks")
+                .add(new int[] {4, 5, 6})
+                .addMap().set("height", 256).set("name", "spawn");
+
+        for (String path : new String[] {"world.chunks.1.height", "world.chunks.1.name", "world.chunks.0",
+                "world.chunks.2.height", "world.chunks.-1.height", "world.chunks.x.height",
+                "world.chunks.1.height.deeper", "missing", "world"}) {
+            DataQuery query = DataQuery.of('.', path);
+            assertEquals(path, query.compile().getString(root), root.getString(query));
+            assertEquals(path, query.compile().getInt(root, -1), (int) root.getInt(query).orElse(-1));
+        }
+        assertEquals(Optional.of(root), root.getMap(DataQuery.of()));
+        assertEquals(Optional.of(root.getMap("world").get()), root.getMap(DataQuery.of("world")));
+    }
+
+    @Test
+    public void BuildQueries() {
+        DataQuery query = DataQuery.of('/', "a//b/c//");
+        assertEquals(Arrays.asList("a", "", "b", "c"), query.getParts());
+        assertEquals(Collections.singletonList(""), DataQuery.of('.', "").getParts());
+        assertEquals(DataQuery.of(), DataQuery.of('.', ".."));
+
+        DataQuery child = query.then("d");
+        assertSame(query, child.pop());
+        assertEquals(DataQuery.of("a", "", "b", "c", "d"), child);
+        assertEquals(DataQuery.of("a", "", "b", "c", "d").hashCode(), child.hashCode());
+        assertEquals(DataQuery.of("", "b", "c", "d"), child.popFirst());
+        assertEquals(DataQuery.of("d"), child.last());
+        assertEquals(DataQuery.of("c", "d"), DataQuery.of("c").then(DataQuery.of("d")));
+        assertEquals("a..b.c.d", child.toString());
+
+        assertSame(child.intern(), DataQuery.of('.', "a..b.c.d").intern());
+    }
+
+    @Test
+    public void MultiQuery() {
+        DataMap root = new MemoryDataMap();
+        root.createMap("server").set("port", 25565).set("motd", "hi").createList("ops").add("bob");
+        root.set("version", 3);
+
+        MultiQuery query = MultiQuery.of(
+                DataQuery.of('.', "server.port"),
+                DataQuery.of('.', "server.ops.0"),
+                DataQuery.of('.', "server.missing"),
+                DataQuery.of('.', "version"),
+                DataQuery.of('.', "version.deeper"),
+                DataQuery.of('.', "server.port"));
+        Object[] values = query.extract(root);
+        assertArrayEquals(new Object[] {25565, "bob", null, 3, null, 25565}, values);
+
+        root.remove("version");
+        query.extract(root, values);
+        assertNull(values[3]);
+    }
+
+    @Test
+    public void Selector() {
+        DataMap root = new MemoryDataMap();
+        DataList entities = root.createList("entities");
+        entities.addMap().set("type", "zombie").set("hp", 5).set("pos", new int[] {1, 2, 3});
+        entities.addMap().set("type", "cow").set("hp", 10).set("pos", new int[] {4, 5, 6});
+        entities.addMap().set("type", "zombie").set("hp", 20).createMap("rider").set("type", "zombie").set("hp", 2);
+
+        assertEquals(2, DataSelector.parse("entities.*.pos").select(root).count());
+        assertEquals(Arrays.asList(5, 20), DataSelector.parse("entities.*[type=zombie].hp").select(root)
+                .collect(Collectors.toList()));
+        assertEquals(Arrays.asList(5, 2), DataSelector.parse("**.*[type='zombie'][hp<10].hp").select(root)
+                .collect(Collectors.toList()));
+        assertEquals(Arrays.asList(10, 20), DataSelector.parse("entities.*.hp[>=10]").select(root).parallel()
+                .collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("cow"), DataSelector.parse("entities.1.type").select(root)
+                .collect(Collectors.toList()));
+    }
+}
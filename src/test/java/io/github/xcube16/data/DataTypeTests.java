@@ -0,0 +1,92 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DataTypeTests {
+
+    private enum WithBody {
+        A {
+            @Override
+            public String toString() {
+                return "a";
+            }
+        }
+    }
+
+    @Test
+    public void Classify() {
+        assertEquals(DataType.BOOLEAN, DataType.of(true));
+        assertEquals(DataType.BYTE, DataType.of((byte) 1));
+        assertEquals(DataType.CHARACTER, DataType.of('c'));
+        assertEquals(DataType.SHORT, DataType.of((short) 1));
+        assertEquals(DataType.INTEGER, DataType.of(1));
+        assertEquals(DataType.LONG, DataType.of(1L));
+        assertEquals(DataType.FLOAT, DataType.of(1F));
+        assertEquals(DataType.DOUBLE, DataType.of(1D));
+        assertEquals(DataType.STRING, DataType.of("s"));
+
+        assertEquals(DataType.BOOLEAN_ARRAY, DataType.of(new boolean[0]));
+        assertEquals(DataType.BYTE_ARRAY, DataType.of(new byte[0]));
+        assertEquals(DataType.SHORT_ARRAY, DataType.of(new short[0]));
+        assertEquals(DataType.INT_ARRAY, DataType.of(new int[0]));
+        assertEquals(DataType.LONG_ARRAY, DataType.of(new long[0]));
+        assertEquals(DataType.FLOAT_ARRAY, DataType.of(new float[0]));
+        assertEquals(DataType.DOUBLE_ARRAY, DataType.of(new double[0]));
+
+        // every implementation of the structure types, not just the in-memory ones
+        assertEquals(DataType.DATA_MAP, DataType.of(new MemoryDataMap()));
+        assertEquals(DataType.DATA_MAP, DataType.of(new ShapedDataMap()));
+        assertEquals(DataType.DATA_MAP, DataType.of(new PersistentDataMap()));
+        assertEquals(DataType.DATA_MAP, DataType.of(new ConcurrentDataMap()));
+        assertEquals(DataType.DATA_LIST, DataType.of(new MemoryDataList()));
+        assertEquals(DataType.DATA_LIST, DataType.of(new PersistentDataList()));
+        assertEquals(DataType.DATA_LIST, DataType.of(new MemoryDataMap().set("a", new int[] {1}).getList("a").get()));
+        assertEquals(DataType.DATA_VALUE, DataType.of(new MemoryDataValue()));
+
+        assertEquals(DataType.ENUM, DataType.of(TimeUnit.SECONDS));
+        assertEquals(DataType.ENUM, DataType.of(WithBody.A)); // the constant has its own subclass
+        assertEquals(DataType.JAVA_MAP, DataType.of(new HashMap<>()));
+        assertEquals(DataType.JAVA_MAP, DataType.of(new LinkedHashMap<>()));
+        assertEquals(DataType.COLLECTION, DataType.of(new ArrayList<>()));
+        assertEquals(DataType.COLLECTION, DataType.of(new HashSet<>()));
+        assertEquals(DataType.SERIALIZABLE, DataType.of((DataSerializable) container -> {}));
+
+        assertEquals(DataType.UNSUPPORTED, DataType.of(new Object()));
+        assertEquals(DataType.UNSUPPORTED, DataType.of(new Object[0]));
+        assertEquals(DataType.UNSUPPORTED, DataType.of(new char[0]));
+        assertEquals(DataType.UNSUPPORTED, DataType.of(new int[0][0]));
+        assertEquals(DataType.UNSUPPORTED, DataType.of(new StringBuilder()));
+
+        // looking up the class gives the same answer as looking up an instance
+        for (Object value : new Object[] {1, "s", new int[0], new MemoryDataMap(), new ArrayList<>(), new Object()}) {
+            assertEquals(DataType.of(value), DataType.of(value.getClass()));
+        }
+    }
+
+    @Test
+    public void Categories() {
+        Set<DataType> primitive = EnumSet.range(DataType.BOOLEAN, DataType.STRING);
+        Set<DataType> arrays = EnumSet.range(DataType.BOOLEAN_ARRAY, DataType.DOUBLE_ARRAY);
+        arrays.add(DataType.STRING);
+
+        for (DataType type : DataType.values()) {
+            assertEquals(type.name(), primitive.contains(type), type.isPrimitive());
+            assertEquals(type.name(), arrays.contains(type), type.isPrimitiveArray());
+            assertEquals(type.name(), primitive.contains(type) || arrays.contains(type), type.isRaw());
+        }
+        assertTrue(DataType.STRING.isPrimitive() && DataType.STRING.isPrimitiveArray());
+        assertFalse(DataType.DATA_MAP.isRaw());
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FrozenDataListTests {
+
+    @Test
+    public void PrimitiveStorage() {
+        MemoryDataList ints = new MemoryDataList();
+        ConcurrentDataList boxed = new ConcurrentDataList();
+        for (int i = 0; i < 100; i++) {
+            ints.add(i);
+            boxed.add(i);
+        }
+
+        FrozenDataList frozen = FrozenDataList.of(ints);
+        assertNotNull(frozen.toIntArray()); // still an int[], nothing was boxed
+        assertNull(frozen.toLongArray());
+        assertEquals(100, frozen.size());
+        assertEquals(42, frozen.getInt(42, -1));
+        assertEquals(42, frozen.getOrNull(42));
+        assertEquals(42L, frozen.getLong(42, -1));
+        assertEquals(4950, frozen.intStream().sum());
+        assertEquals(4950, frozen.stream().mapToInt(o -> (Integer) o).sum());
+        assertArrayEquals(ints.toIntArray(), Coerce2.asIntArray(frozen).get());
+
+        // the same elements stored boxed are still equal, with the same hash
+        FrozenDataList frozenBoxed = FrozenDataList.of(boxed);
+        assertNull(frozenBoxed.toIntArray());
+        assertEquals(frozen, frozenBoxed);
+        assertEquals(frozenBoxed, frozen);
+        assertEquals(frozen.hashCode(), frozenBoxed.hashCode());
+        assertEquals(Arrays.asList(boxed.stream().toArray()).hashCode(), frozen.hashCode());
+
+        ints.set(0, 100); // frozen is a snapshot
+        assertEquals(0, frozen.getInt(0, -1));
+        FrozenDataMapTests.assertReadOnly(() -> frozen.add(1));
+
+        DataList longs = new MemoryDataList().add(1L).add(2L);
+        FrozenDataList frozenLongs = FrozenDataList.of(longs);
+        assertArrayEquals(new long[] {1, 2}, frozenLongs.toLongArray());
+        assertEquals(3, frozenLongs.longStream().sum());
+
+        DataList doubles = new MemoryDataList().add(0.5).add(1.5);
+        FrozenDataList frozenDoubles = FrozenDataList.of(doubles);
+        assertArrayEquals(new double[] {0.5, 1.5}, frozenDoubles.toDoubleArray(), 0);
+        assertEquals(2, frozenDoubles.doubleStream().sum(), 0);
+        assertEquals(1.5, frozenDoubles.getOrNull(1));
+
+        assertSame(FrozenDataList.EMPTY, FrozenDataList.of(new MemoryDataList()));
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FrozenDataMapTests {
+
+    @Test
+    public void Snapshot() {
+        MemoryDataMap map = new MemoryDataMap();
+        for (int i = 0; i < MemoryDataMap.COMPACT_THRESHOLD + 4; i++) { // big enough for the hash index
+            map.set("k" + i, i);
+        }
+        map.createMap("nested").set("x", 1);
+        map.createList("list").add("a");
+
+        DataMap frozen = map.freeze();
+        assertTrue(frozen instanceof FrozenDataMap);
+        assertSame(frozen, frozen.freeze());
+        assertTrue(frozen.getMap("nested").get() instanceof FrozenDataMap);
+        assertTrue(frozen.getList("list").get() instanceof FrozenDataList);
+        int hash = frozen.hashCode();
+
+        map.set("k0", "changed");
+        map.getMap("nested").get().set("x", 2);
+        map.getList("list").get().add("b");
+        assertEquals(0, frozen.getOrNull("k0"));
+        assertEquals(1, frozen.getInt(DataQuery.of('.', "nested.x")).get().intValue());
+        assertEquals(1, frozen.getList("list").get().size());
+        assertEquals(hash, frozen.hashCode());
+        for (int i = 0; i < MemoryDataMap.COMPACT_THRESHOLD + 4; i++) {
+            assertEquals(i == 0 ? 0 : i, frozen.getOrNull("k" + i));
+        }
+
+        assertReadOnly(() -> frozen.set("k0", 1));
+        assertReadOnly(() -> frozen.remove("k0"));
+        assertReadOnly(() -> frozen.createMap("new"));
+        assertReadOnly(() -> frozen.getMap("nested").get().set("x", 3));
+        assertReadOnly(() -> frozen.getList("list").get().add("c"));
+        assertReadOnly(frozen::clear);
+
+        DataMap thawed = frozen.copy();
+        thawed.set("k0", "thawed");
+        assertEquals(0, frozen.getOrNull("k0"));
+        assertEquals(frozen, map.set("k0", 0).remove("nested").remove("list")
+                .set("nested", new MemoryDataMap().set("x", 1)).set("list", new MemoryDataList().add("a")).freeze());
+    }
+
+    @Test
+    public void ArraysAreCopied() {
+        int[] array = {1, 2, 3};
+        MemoryDataMap map = new MemoryDataMap();
+        map.set("array", array);
+        map.createList("list").add(new long[] {4, 5});
+
+        DataMap frozen = map.freeze();
+        int hash = frozen.hashCode();
+        array[0] = 100; // the source array is copied when freezing
+        assertEquals(1, ((int[]) frozen.getOrNull("array"))[0]);
+
+        // and every getter hands out a new copy
+        ((int[]) frozen.getOrNull("array"))[1] = 100;
+        ((int[]) frozen.get("array").get())[1] = 100;
+        frozen.stream().filter(e -> e.getKey().equals("array")).forEach(e -> ((int[]) e.getValue())[1] = 100);
+        ((int[]) frozen.copy().getOrNull("array"))[1] = 100;
+        assertArrayEquals(new int[] {1, 2, 3}, (int[]) frozen.getOrNull("array"));
+        assertNotSame(frozen.getOrNull("array"), frozen.getOrNull("array"));
+
+        DataList list = frozen.getList("list").get();
+        ((long[]) list.getOrNull(0))[0] = 100;
+        list.stream().forEach(e -> ((long[]) e)[1] = 100);
+        assertArrayEquals(new long[] {4, 5}, (long[]) list.getOrNull(0));
+
+        assertEquals(hash, frozen.hashCode());
+        frozen.stream().map(Map.Entry::getValue).filter(int[].class::isInstance)
+                .forEach(value -> assertArrayEquals(new int[] {1, 2, 3}, (int[]) value));
+    }
+
+    static void assertReadOnly(Runnable write) {
+        try {
+            write.run();
+            fail("A frozen view must be read only");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+}
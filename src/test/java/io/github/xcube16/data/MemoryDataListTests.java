@@ -0,0 +1,127 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryDataListTests {
+
+    @Test
+    public void PrimitiveStorage() {
+        MemoryDataList list = new MemoryDataList();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+
+        assertEquals(100, list.size());
+        assertEquals(42, list.getInt(42).get().intValue());
+        assertEquals(99, Coerce2.asIntArray(list).get()[99]);
+
+        list.remove(0);
+        assertEquals(99, list.size());
+        assertEquals(1, list.getInt(0).get().intValue());
+    }
+
+    @Test
+    public void MixedFallback() {
+        MemoryDataList list = new MemoryDataList();
+        list.add(1).add(2).add("three").add(4L);
+
+        assertEquals(4, list.size());
+        assertEquals(2, list.getInt(1).get().intValue());
+        assertEquals("three", list.getString(2).get());
+        assertEquals(Long.valueOf(4L), list.get(3).get());
+
+        list.clear();
+        list.add(5L).add(6L);
+        assertArrayEquals(new long[] {5L, 6L}, Coerce2.asLongArray(list).get());
+    }
+
+    @Test
+    public void EqualsAcrossStorage() {
+        MemoryDataList ints = new MemoryDataList();
+        ints.add(1).add(2).add(3);
+
+        MemoryDataList objects = new MemoryDataList();
+        objects.add(1).add("x").add(3);
+        objects.set(1, 2);
+
+        assertEquals(ints, objects);
+        assertEquals(ints.hashCode(), objects.hashCode());
+        assertEquals(Arrays.asList(1, 2, 3).hashCode(), ints.hashCode());
+
+        objects.set(2, 4);
+        assertNotEquals(ints, objects);
+        assertFalse(ints.get(3).isPresent());
+    }
+
+    @Test
+    public void PrimitiveAccessors() {
+        MemoryDataList list = new MemoryDataList();
+        list.add(7).add(8).add(9);
+
+        assertEquals(8, list.getInt(1, -1));
+        assertEquals(9L, list.getLong(2, -1L));
+        assertEquals(7.0, list.getDouble(0, -1.0), 0.0);
+        assertEquals(-1, list.getInt(3, -1));
+        assertNull(list.getOrNull(-1));
+
+        list.add("10");
+        assertEquals(10, list.getInt(3, -1));
+        assertEquals(10, list.getIntOrThrow(3));
+        assertFalse(list.getOptionalInt(4).isPresent());
+    }
+
+    @Test
+    public void Builder() {
+        MemoryDataMap map = new MemoryDataMap();
+        map.set("a", 1);
+
+        MemoryDataList list = MemoryDataList.builder(3).add(1).add("two").add(map).build();
+        assertEquals(3, list.size());
+        assertEquals("two", list.getString(1).get());
+        assertSame(map, list.getMap(2).get()); // adopted, not copied
+    }
+
+    @Test
+    public void Streams() {
+        MemoryDataList list = new MemoryDataList();
+        for (int i = 0; i < 10000; i++) {
+            list.add(i);
+        }
+        assertEquals(49995000L, list.intStream().parallel().asLongStream().sum());
+        assertEquals(49995000L, list.parallelStream().mapToLong(o -> (Integer) o).sum());
+
+        Spliterator<Object> spliterator = list.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(5000, spliterator.trySplit().estimateSize());
+
+        list.add("10000").add(10001L);
+        assertEquals(50015001L, list.longStream().parallel().sum());
+        list.add("eleven");
+        try {
+            list.doubleStream().sum();
+            throw new AssertionError("should not coerce");
+        } catch (NoSuchElementException ignored) {
+        }
+
+        MemoryDataMap map = new MemoryDataMap();
+        for (int i = 0; i < 100; i++) {
+            map.set("k" + i, i);
+        }
+        assertEquals(4950, map.parallelStream().mapToInt(entry -> (Integer) entry.getValue()).sum());
+        assertEquals(map.getKeys(), map.freeze().stream().map(Map.Entry::getKey).collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.xcube16.data;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MemoryDataMapTests {
+
+    @Test
+    public void CompactThreshold() {
+        MemoryDataMap map = new MemoryDataMap();
+        Map<String, Object> expected = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i <= MemoryDataMap.COMPACT_THRESHOLD + 1; i++) {
+            String key = "k" + i;
+            map.set(key, i);
+            expected.put(key, i);
+            order.add(key);
+
+            // every size up to and past the switch keeps the insertion order and the content
+            assertEquals(order, ImmutableList.copyOf(map.getKeys()));
+            assertEquals(expected.size(), map.size());
+            for (Map.Entry<String, Object> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), map.getOrNull(entry.getKey()));
+            }
+        }
+
+        MemoryDataMap compact = new MemoryDataMap();
+        for (int i = MemoryDataMap.COMPACT_THRESHOLD + 1; i >= 0; i--) {
+            compact.set("k" + i, i);
+        }
+        assertEquals(compact, map);
+        assertEquals(compact.hashCode(), map.hashCode());
+
+        map.set("k3", "replaced").remove("k0");
+        assertEquals("replaced", map.getOrNull("k3"));
+        assertNull(map.getOrNull("k0"));
+        assertEquals(MemoryDataMap.COMPACT_THRESHOLD + 1, map.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        map.set("a", 1);
+        assertEquals(ImmutableList.of("a"), ImmutableList.copyOf(map.getKeys()));
+
+        compact.remove("k0").remove("k1");
+        assertFalse(compact.getKeys().contains("k0"));
+        assertEquals(MemoryDataMap.COMPACT_THRESHOLD, compact.size());
+
+        // a map that shrank back stays hashed, it still equals a compact one with the same content
+        MemoryDataMap small = new MemoryDataMap();
+        for (int i = 2; i <= MemoryDataMap.COMPACT_THRESHOLD + 1; i++) {
+            small.set("k" + i, i);
+        }
+        assertEquals(small, compact);
+        assertEquals(compact, small);
+        assertEquals(small.hashCode(), compact.hashCode());
+    }
+
+    @Test
+    public void Adopt() {
+        MemoryDataMap map = new MemoryDataMap();
+        MemoryDataList list = new MemoryDataList();
+        list.add(1);
+        map.adopt("list", list);
+        assertSame(list, map.getOrNull("list"));
+        list.add(2);
+        assertEquals(2, map.getList("list").get().size());
+
+        // already part of a view
+        MemoryDataMap other = new MemoryDataMap();
+        assertAdoptFails(other, list);
+        assertAdoptFails(map, list);
+
+        // detached again once it is removed
+        map.remove("list");
+        other.adopt("list", list);
+        assertSame(list, other.getOrNull("list"));
+
+        // cycles
+        assertAdoptFails(map, map);
+        DataMap child = map.createMap("child");
+        DataMap grandChild = child.createMap("grandChild");
+        assertAdoptFails(grandChild, map);
+        try {
+            ((MemoryDataMap) child).adopt("loop", child);
+            fail("A map must not adopt itself");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        // a view owned by a value is moved out of it
+        MemoryDataMap inValue = new MemoryDataMap();
+        MemoryDataValue value = new MemoryDataValue();
+        value.adopt(inValue);
+        map.adopt("moved", inValue);
+        assertSame(inValue, map.getOrNull("moved"));
+        assertFalse(value.get().isPresent());
+
+        // other kinds of views that store in-memory views own them too
+        ShapedDataMap shaped = new ShapedDataMap();
+        DataList shapedList = shaped.createList("list");
+        assertTrue(shapedList instanceof MemoryDataList);
+        assertAdoptFails(map, shapedList);
+        shaped.set("list", "replaced");
+        map.adopt("shaped", shapedList);
+        assertSame(shapedList, map.getOrNull("shaped"));
+
+        // anything that can't be owned is copied
+        ShapedDataMap notMemory = new ShapedDataMap();
+        notMemory.set("a", 1);
+        map.adopt("copied", notMemory);
+        assertNotSame(notMemory, map.getOrNull("copied"));
+        assertEquals(1, map.getInt(DataQuery.of('.', "copied.a")).get().intValue());
+    }
+
+    @Test
+    public void CachedHash() {
+        MemoryDataMap root = new MemoryDataMap();
+        DataMap child = root.createMap("child");
+        DataList list = child.createList("list");
+        DataMap leaf = list.addMap();
+        leaf.set("x", 1);
+
+        MemoryDataMap same = new MemoryDataMap();
+        same.set(DataQuery.of('.', "child.list"), new MemoryDataList().add(new MemoryDataMap().set("x", 1)));
+        int hash = root.hashCode(); // caches the hash at every level
+        assertEquals(same.hashCode(), hash);
+        assertEquals(same, root);
+
+        // a write deep down has to reach every cached hash above it
+        leaf.set("x", 2);
+        assertNotEquals(hash, root.hashCode());
+        assertNotEquals(same, root);
+        same.set(DataQuery.of('.', "child.list"), new MemoryDataList().add(new MemoryDataMap().set("x", 2)));
+        assertEquals(same.hashCode(), root.hashCode());
+        assertEquals(same, root);
+
+        list.add("more");
+        assertNotEquals(same.hashCode(), root.hashCode());
+        list.remove(1);
+        assertEquals(same.hashCode(), root.hashCode());
+
+        // a view moved somewhere else invalidates its new owners, not the old ones
+        hash = root.hashCode();
+        MemoryDataMap other = new MemoryDataMap();
+        int otherHash = other.hashCode();
+        MemoryDataMap moved = new MemoryDataMap();
+        other.adopt("moved", moved);
+        assertNotEquals(otherHash, other.hashCode());
+        otherHash = other.hashCode();
+        moved.set("y", 1);
+        assertNotEquals(otherHash, other.hashCode());
+        assertEquals(hash, root.hashCode());
+    }
+
+    @Test
+    public void ArrayContentEquality() {
+        List<Supplier<DataMap>> maps = ImmutableList.of(
+                MemoryDataMap::new, ShapedDataMap::new, ConcurrentDataMap::new, PersistentDataMap::new);
+        for (Supplier<DataMap> supplier : maps) {
+            DataMap first = supplier.get();
+            DataMap second = supplier.get();
+            String name = first.getClass().getSimpleName();
+            first.set("ints", new int[] {1, 2, 3}).set("bytes", new byte[] {1}).set("doubles", new double[] {0.5, Double.NaN});
+            second.set("ints", new int[] {1, 2, 3}).set("bytes", new byte[] {1}).set("doubles", new double[] {0.5, Double.NaN});
+            first.createMap("nested").set("longs", new long[] {4});
+            second.createMap("nested").set("longs", new long[] {4});
+
+            // different array instances with the same content are equal, with the same hash
+            assertEquals(name, first, second);
+            assertEquals(name, first.hashCode(), second.hashCode());
+
+            second.set("ints", new int[] {1, 2, 4});
+            assertNotEquals(name, first, second);
+            second.set("ints", new long[] {1, 2, 3}); // same numbers, different Allowed Type
+            assertNotEquals(name, first, second);
+        }
+
+        List<Supplier<DataList>> lists = ImmutableList.of(MemoryDataList::new, ConcurrentDataList::new, PersistentDataList::new);
+        for (Supplier<DataList> supplier : lists) {
+            DataList list = supplier.get();
+            DataList otherList = supplier.get();
+            String name = list.getClass().getSimpleName();
+            list.add(new short[] {1, 2}).add("a");
+            otherList.add(new short[] {1, 2}).add("a");
+            assertEquals(name, list, otherList);
+            assertEquals(name, list.hashCode(), otherList.hashCode());
+
+            otherList.set(0, new short[] {1, 3});
+            assertNotEquals(name, list, otherList);
+        }
+    }
+
+    private static void assertAdoptFails(DataMap container, DataView<?> view) {
+        try {
+            container.adopt("key", view);
+            fail("Adopting " + view + " must fail");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.xcube16.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class PersistentDataListTests {
+
+    @Test
+    public void MatchesArrayList() {
+        Random random = new Random(7);
+        List<Object> expected = new ArrayList<>();
+        PersistentDataList list = new PersistentDataList();
+        List<PersistentDataList> snapshots = new ArrayList<>();
+        List<List<Object>> snapshotsExpected = new ArrayList<>();
+
+        // big enough for a 3 level trie, removes hit the tail, the trie and the root shrinking
+        for (int i = 0; i < 4000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                list.add(i);
+                expected.add(i);
+            } else if (op < 8) {
+                int index = random.nextInt(expected.size());
+                list.set(index, -i);
+                expected.set(index, -i);
+            } else {
+                int index = random.nextInt(10) == 0 ? expected.size() - 1 : random.nextInt(expected.size());
+                list.remove(index);
+                expected.remove(index);
+            }
+            if (i % 500 == 0) {
+                snapshots.add(list.copy());
+                snapshotsExpected.add(new ArrayList<>(expected));
+            }
+        }
+        check(expected, list);
+        for (int i = 0; i < snapshots.size(); i++) {
+            check(snapshotsExpected.get(i), snapshots.get(i));
+        }
+
+        while (!expected.isEmpty()) {
+            int index = random.nextInt(expected.size());
+            list.remove(index);
+            expected.remove(index);
+        }
+        check(expected, list);
+    }
+
+    private static void check(List<Object> expected, PersistentDataList list) {
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), list.getOrNull(i));
+        }
+        assertEquals(expected.hashCode(), list.hashCode());
+    }
+
+    @Test
+    public void NestedViewsAfterRemove() {
+        PersistentDataList list = new PersistentDataList();
+        list.addMap().set("id", 0);
+        DataMap second = list.addMap();
+        second.set("id", 1);
+        PersistentDataList snapshot = list.copy();
+
+        // views are bound to an index, removing before them shifts what they see
+        list.remove(0);
+        try {
+            second.size();
+            fail("A view past the end of the list must not be usable");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(1, list.getMap(0).get().getOrNull("id"));
+
+        list.set(0, "not a map");
+        list.add("padding");
+        try {
+            second.set("id", 2);
+            fail("A view of a removed map must not be writable");
+        } catch (IllegalStateException expected) {
+        }
+        assertFalse(list.getMap(0).isPresent());
+
+        assertEquals(2, snapshot.size());
+        assertEquals(0, snapshot.getMap(0).get().getOrNull("id"));
+        assertEquals(1, snapshot.getMap(1).get().getOrNull("id"));
+    }
+}
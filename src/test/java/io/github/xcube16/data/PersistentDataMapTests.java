@@ -0,0 +1,164 @@
+package io.github.xcube16.data;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersistentDataMapTests {
+
+    @Test
+    public void SnapshotIsolation() {
+        PersistentDataMap map = new PersistentDataMap();
+        map.set("a", 1);
+        map.createMap("nested").set("x", "old");
+        map.createList("list").add(1).add(2);
+
+        PersistentDataMap snapshot = map.copy();
+        assertEquals(map, snapshot);
+        assertEquals(map.hashCode(), snapshot.hashCode());
+
+        map.set("a", 2).remove("list");
+        map.getMap("nested").get().set("x", "new");
+
+        assertEquals(1, snapshot.getOrNull("a"));
+        assertEquals("old", snapshot.getString(DataQuery.of('.', "nested.x")).get());
+        assertEquals(2, snapshot.getList("list").get().size());
+        assertNotEquals(map, snapshot);
+
+        // writes to the snapshot don't leak back either
+        snapshot.getList("list").get().add(3);
+        assertFalse(map.get("list").isPresent());
+        assertEquals("new", map.getString(DataQuery.of('.', "nested.x")).get());
+
+        // setting a persistent map stores a snapshot of it
+        PersistentDataMap other = new PersistentDataMap();
+        other.set("copied", snapshot);
+        snapshot.set("a", 100);
+        assertEquals(1, other.getInt(DataQuery.of('.', "copied.a")).get().intValue());
+        assertEquals(snapshot.copy().set("a", 1), other.getMap("copied").get());
+
+        assertEquals(map, PersistentDataMap.copyOf(map));
+        MemoryDataMap memory = new MemoryDataMap();
+        memory.set("a", 2);
+        memory.createMap("nested").set("x", "new");
+        assertEquals(map, PersistentDataMap.copyOf(memory));
+    }
+
+    @Test
+    public void HashCollisions() {
+        // "Aa" and "BB" have the same hash, so do all strings made of them
+        List<String> keys = new ArrayList<>();
+        keys.add("");
+        for (int i = 0; i < 5; i++) {
+            List<String> longer = new ArrayList<>();
+            for (String key : keys) {
+                longer.add(key + "Aa");
+                longer.add(key + "BB");
+            }
+            keys = longer;
+        }
+        assertEquals(1, keys.stream().mapToInt(String::hashCode).distinct().count());
+
+        PersistentDataMap map = new PersistentDataMap();
+        for (int i = 0; i < keys.size(); i++) {
+            map.set(keys.get(i), i);
+        }
+        map.set("other", -1); // a different hash next to the collisions
+        assertEquals(keys.size() + 1, map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, map.getOrNull(keys.get(i)));
+        }
+
+        PersistentDataMap snapshot = map.copy();
+        map.set(keys.get(3), "replaced");
+        assertEquals(keys.size() + 1, map.size());
+        assertEquals("replaced", map.getOrNull(keys.get(3)));
+        assertEquals(3, snapshot.getOrNull(keys.get(3)));
+
+        for (int i = 0; i < keys.size(); i += 2) {
+            map.remove(keys.get(i));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (i % 2 == 0) {
+                assertNull(map.getOrNull(keys.get(i)));
+            } else {
+                assertEquals(i == 3 ? "replaced" : i, map.getOrNull(keys.get(i)));
+            }
+        }
+        assertEquals(keys.size() / 2 + 1, map.size());
+        assertEquals(keys.size() + 1, snapshot.size());
+        assertEquals(keys.size() / 2 + 1, new HashSet<>(map.getKeys()).size());
+    }
+
+    @Test
+    public void MatchesHashMap() {
+        Random random = new Random(42);
+        Map<String, Object> expected = new HashMap<>();
+        PersistentDataMap map = new PersistentDataMap();
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.set(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.keySet(), ImmutableSet.copyOf(map.getKeys()));
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.getOrNull(entry.getKey()));
+        }
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void NestedViewsAfterRemove() {
+        PersistentDataMap map = new PersistentDataMap();
+        DataMap nested = map.createMap("nested");
+        nested.set("x", 1);
+        DataList list = map.createList("list");
+        list.add(1);
+
+        // views are bound to the key, not to what was there when they were created
+        map.remove("nested");
+        try {
+            nested.size();
+            fail("A view of a removed map must not be usable");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            nested.set("x", 2);
+            fail("A view of a removed map must not be writable");
+        } catch (IllegalStateException expected) {
+        }
+        assertFalse(map.get("nested").isPresent());
+
+        map.set("list", "not a list anymore");
+        try {
+            list.add(2);
+            fail("A view of a replaced list must not be writable");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals("not a list anymore", map.getOrNull("list"));
+
+        // a new map at the same key is picked up by the old view
+        map.createMap("nested").set("y", 3);
+        assertEquals(3, nested.getOrNull("y"));
+        assertTrue(map.getMap("nested").get().getKeys().contains("y"));
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.xcube16.data;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ShapedDataMapTests {
+
+    private static ShapedDataMap shaped(Object... keysAndValues) {
+        ShapedDataMap map = new ShapedDataMap();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.set((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    @Test
+    public void SharedShapes() {
+        ShapedDataMap a = new ShapedDataMap();
+        ShapedDataMap b = new ShapedDataMap();
+        a.set("x", 1).set("y", 2).set("z", 3);
+        b.set("x", 4).set("y", 5).set("z", 6);
+        assertSame(a.getShape(), b.getShape());
+        assertEquals(ImmutableList.of("x", "y", "z"), a.getShape().getKeys());
+
+        // removing lands on the same shape as building the rest from scratch
+        ShapedDataMap c = new ShapedDataMap();
+        c.set("x", 1).set("z", 3);
+        a.remove("y");
+        assertSame(c.getShape(), a.getShape());
+        assertEquals(c, a);
+        assertEquals(ImmutableList.of("x", "z"), ImmutableList.copyOf(a.getKeys()));
+
+        // key order does not matter for equals() and hashCode()
+        ShapedDataMap d = new ShapedDataMap();
+        d.set("z", 3).set("x", 1);
+        assertNotEquals(d.getShape(), c.getShape());
+        assertEquals(c, d);
+        assertEquals(c.hashCode(), d.hashCode());
+        d.set("x", 2);
+        assertNotEquals(c, d);
+
+        // lots of different keys from the same shape are all still shared
+        for (int i = 0; i < 200; i++) {
+            ShapedDataMap first = shaped("key" + i, i);
+            ShapedDataMap second = shaped("key" + i, -i);
+            assertSame(first.getShape(), second.getShape());
+        }
+    }
+
+    @Test
+    public void ReadWriteAndKeys() {
+        ShapedDataMap map = new ShapedDataMap();
+        for (int i = 0; i < 20; i++) { // past the point where shapes get a hash index
+            map.set("k" + i, i);
+        }
+        assertEquals(20, map.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, map.getOrNull("k" + i));
+        }
+        assertNull(map.getOrNull("missing"));
+        assertFalse(map.get("missing").isPresent());
+
+        map.set("k5", "five");
+        assertEquals("five", map.getOrNull("k5"));
+        assertEquals(20, map.size());
+
+        Iterator<String> keys = map.getKeys().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().equals("k0")) {
+                keys.remove();
+            }
+        }
+        assertFalse(map.getKeys().contains("k0"));
+        assertEquals("k1", map.getShape().getKeys().get(0));
+        assertEquals(1, map.getOrNull("k1"));
+
+        DataMap child = map.createMap("child");
+        assertTrue(child instanceof ShapedDataMap);
+        child.set("inner", true);
+        assertEquals(true, map.getBoolean(DataQuery.of('.', "child.inner")).get());
+
+        ShapedDataMap copy = (ShapedDataMap) map.copy();
+        assertEquals(map, copy);
+        assertSame(map.getShape(), copy.getShape());
+        copy.getMap("child").get().set("inner", false);
+        assertEquals(true, map.getBoolean(DataQuery.of('.', "child.inner")).get());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.getShape().size());
+    }
+
+    @Test
+    public void KeyCachesSlot() {
+        ShapedDataMap.Key key = new ShapedDataMap.Key("b");
+        ShapedDataMap first = shaped("a", 1, "b", 2);
+        ShapedDataMap second = shaped("a", 3, "b", 4);
+        ShapedDataMap other = shaped("b", 5);
+        ShapedDataMap without = shaped("a", 6);
+
+        assertEquals(2, key.get(first).get());
+        assertEquals(4, key.get(second).get());
+        assertEquals(5, key.get(other).get());
+        assertFalse(key.get(without).isPresent());
+        assertEquals(2, key.get(first).get());
+    }
+
+    @Test
+    public void ShapesInUseAreShared() {
+        String unique = "unique-" + System.nanoTime();
+        ShapedDataMap map = shaped("shared", 0, unique, 1);
+
+        // a shape in use keeps the path to it, so building the same keys again gets the same shape
+        System.gc();
+        assertSame(map.getShape(), shaped("shared", 0, unique, 2).getShape());
+    }
+
+    /**
+     * Best effort, skipped if the JVM ignores {@link System#gc()} or does not collect the shapes.
+     */
+    @Test
+    public void UnusedShapesAreCollected() throws InterruptedException {
+        ShapedDataMap map = shaped("shared", 0, "unique-" + System.nanoTime(), 1);
+        WeakReference<ShapedDataMap.Shape> shape = new WeakReference<>(map.getShape());
+        WeakReference<ShapedDataMap.Shape> parent = new WeakReference<>(shaped("shared", 0).getShape());
+
+        map = null;
+        for (int i = 0; i < 50 && (shape.get() != null || parent.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assumeTrue("The shapes were not collected", shape.get() == null && parent.get() == null);
+    }
+}
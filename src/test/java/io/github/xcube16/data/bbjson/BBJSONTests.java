@@ -6,7 +6,9 @@ import org.junit.Test;
 
 import java.io.*;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class BBJSONTests {
     private static final byte[] TEST_DATA = new byte[] {
@@ -77,4 +79,69 @@ public class BBJSONTests {
         assertEquals("pine-apple (apples that grow on pine trees)", list.getString(2).get());
     }
 
+    @Test
+    public void AllowedTypesRoundTrip() throws IOException {
+        DataValue value = new MemoryDataValue();
+        DataMap obj = value.createMap();
+        obj.set("boolean", true)
+                .set("byte", (byte) 1)
+                .set("char", 'c')
+                .set("short", (short) 2)
+                .set("int", 3)
+                .set("long", 4L)
+                .set("float", 5F)
+                .set("double", 6D)
+                .set("string", "s")
+                .set("booleans", new boolean[] {true, false})
+                .set("bytes", new byte[] {1, 2})
+                .set("shorts", new short[] {1, 2})
+                .set("ints", new int[] {1, 2})
+                .set("longs", new long[] {1, 2})
+                .set("floats", new float[] {1, 2})
+                .set("doubles", new double[] {1, 2});
+        obj.createList("mixed").add(1).add("two").add(3L);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BBJSON.encode(new DataOutputStream(bytes), value);
+        DataMap decoded = BBJSON.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))).getMap().get();
+
+        // every Allowed Type comes back as the same DataType, boolean arrays come back as lists
+        for (String key : obj.getKeys()) {
+            DataType expected = DataType.of(obj.getOrNull(key));
+            if (expected == DataType.BOOLEAN_ARRAY) {
+                expected = DataType.DATA_LIST;
+            }
+            assertEquals(key, expected, DataType.of(decoded.getOrNull(key)));
+        }
+        assertEquals('c', decoded.getOrNull("char"));
+        assertEquals(5F, decoded.getFloat("float").get(), 0);
+        assertArrayEquals(new long[] {1, 2}, (long[]) decoded.getOrNull("longs"));
+        assertArrayEquals(new double[] {1, 2}, (double[]) decoded.getOrNull("doubles"), 0);
+        assertEquals(false, decoded.getList("booleans").get().getBoolean(1).get());
+        DataList mixed = decoded.getList("mixed").get();
+        assertEquals(3, mixed.size());
+        assertEquals("two", mixed.getString(1).get());
+        assertEquals(3L, mixed.getLong(2).get().longValue());
+    }
+
+    @Test
+    public void BogusCounts() throws IOException {
+        // a count of Integer.MAX_VALUE followed by two elements, the input ends before the rest
+        byte[] list = {
+                (byte) '[', (byte) '#', (byte) 'i', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F,
+                (byte) 'B', 0x01,
+                (byte) 'B', 0x02
+        };
+        byte[] map = {
+                (byte) '{', (byte) '$', (byte) 'i', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F, (byte) 'B',
+                (byte) 'B', 0x01, (byte) 'a', 0x01
+        };
+        for (byte[] data : new byte[][] {list, map}) {
+            try {
+                BBJSON.decode(new DataInputStream(new ByteArrayInputStream(data)));
+                fail("Decoding truncated input must fail");
+            } catch (EOFException expected) {
+            }
+        }
+    }
 }
@@ -0,0 +1,192 @@
+package io.github.xcube16.data.configurate;
+
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.DataValue;
+import io.github.xcube16.data.MemoryDataMap;
+import io.github.xcube16.data.MemoryDataValue;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.ConfigurationOptions;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurateTests {
+
+    static ConfigurationNode load(String hocon) throws IOException {
+        return HoconConfigurationLoader.builder()
+                .setSource(() -> new BufferedReader(new StringReader(hocon)))
+                .build()
+                .load();
+    }
+
+    @Test
+    public void Decode() throws IOException {
+        DataValue value = Configurate.decode(load("server { name = lobby, port = 25565, motd = [hello, 2, 3.5] }\n"
+                + "deep { a { b { c { d = true } } } }"));
+        DataMap map = value.getMap().get();
+
+        assertEquals("lobby", map.getString(DataQuery.of("server", "name")).get());
+        assertEquals(25565, (int) map.getInt(DataQuery.of("server", "port")).get());
+        assertEquals(3, map.getList(DataQuery.of("server", "motd")).get().size());
+        assertEquals(3.5, map.getList(DataQuery.of("server", "motd")).get().getDouble(2, 0), 0);
+        assertEquals(true, map.getBoolean(DataQuery.of("deep", "a", "b", "c", "d")).get());
+
+        assertFalse(Configurate.decode(load("")).get().isPresent());
+    }
+
+    @Test
+    public void NodeViews() throws IOException {
+        ConfigurationNode node = load("server { name = lobby, ports = [25565, 25566] }\nworlds { a { seed = 1 } }");
+        NodeDataMap map = new NodeDataMap(node);
+
+        assertEquals(2, map.size());
+        DataMap server = map.getMap("server").get();
+        assertSame(server, map.getMap("server").get());
+        assertEquals(25566, (int) map.getInt(DataQuery.of("server", "ports", "1")).get());
+
+        server.set("name", "hub");
+        server.getList("ports").get().remove(0).add(25567);
+        map.set(DataQuery.of("worlds", "b", "seed"), 2L);
+        map.createList("admins").add("bob").add(new int[] {1, 2});
+        map.remove("worlds");
+
+        assertEquals("hub", node.getNode("server", "name").getString());
+        assertEquals(Arrays.asList(25566, 25567), node.getNode("server", "ports").getValue());
+        assertTrue(node.getNode("worlds").isVirtual());
+        assertEquals(Arrays.asList(1, 2), node.getNode("admins", 1).getValue());
+        assertEquals(map.copy(), Configurate.decode(node).getMap().get());
+    }
+
+    @Test
+    public void ReloadNotifiesChangedPaths() throws IOException {
+        Path file = Files.createTempFile("watched", ".conf");
+        Files.write(file, "server { port = 1, name = lobby }\nworlds = [a, b]".getBytes(StandardCharsets.UTF_8));
+        try (ConfigWatcher watcher = ConfigWatcher.builder(file).debounce(1, TimeUnit.HOURS).build()) {
+            List<List<DataQuery>> port = new ArrayList<>();
+            List<List<DataQuery>> worlds = new ArrayList<>();
+            List<List<DataQuery>> all = new ArrayList<>();
+            watcher.subscribe(DataQuery.of("server", "port"), (config, paths) -> port.add(paths));
+            watcher.subscribe(DataQuery.of("worlds"), (config, paths) -> worlds.add(paths));
+            watcher.subscribe(DataQuery.of(), (config, paths) -> all.add(paths));
+
+            Files.write(file, "server { port = 2, name = lobby }\nworlds = [a, b]".getBytes(StandardCharsets.UTF_8));
+            watcher.reload();
+            assertEquals(2, (int) watcher.get().getInt(DataQuery.of("server", "port")).get());
+            assertEquals(Collections.singletonList(Collections.singletonList(DataQuery.of("server", "port"))), port);
+            assertTrue(worlds.isEmpty());
+            assertEquals(1, all.size());
+
+            Files.write(file, "worlds = [a, c]".getBytes(StandardCharsets.UTF_8));
+            watcher.reload();
+            assertEquals(2, port.size());
+            assertEquals(1, worlds.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void WatcherDebouncesWrites() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("watched");
+        Path file = directory.resolve("watched.conf");
+        Path other = directory.resolve("other.conf");
+        Files.write(file, "port = 1".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch changed = new CountDownLatch(1);
+        CountDownLatch failed = new CountDownLatch(1);
+        try (ConfigWatcher watcher = ConfigWatcher.builder(file)
+                .loader(path -> {
+                    loads.incrementAndGet();
+                    return HoconConfigurationLoader.builder().setPath(path).build();
+                })
+                .debounce(200, TimeUnit.MILLISECONDS)
+                .onError(e -> failed.countDown())
+                .build()) {
+            watcher.subscribe(DataQuery.of(), (config, paths) -> {
+                calls.incrementAndGet();
+                changed.countDown();
+            });
+            assertEquals(1, loads.get());
+
+            // other files in the directory are ignored
+            Files.write(other, "port = 5".getBytes(StandardCharsets.UTF_8));
+            Thread.sleep(600);
+            assertEquals(1, loads.get());
+
+            // each write pushes the reload back, so the last one is read once
+            for (int port = 2; port <= 4; port++) {
+                Files.write(file, ("port = " + port).getBytes(StandardCharsets.UTF_8));
+                Thread.sleep(20);
+            }
+            assertTrue(changed.await(30, TimeUnit.SECONDS));
+            Thread.sleep(600);
+            assertEquals(1, calls.get());
+            assertEquals(2, loads.get());
+            assertEquals(4, (int) watcher.get().getInt("port").get());
+
+            // a broken file is reported and the last good configuration is kept
+            Files.write(file, "port = {".getBytes(StandardCharsets.UTF_8));
+            assertTrue(failed.await(30, TimeUnit.SECONDS));
+            assertEquals(4, (int) watcher.get().getInt("port").get());
+            assertEquals(1, calls.get());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(other);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void EncodeAndWrite() throws IOException {
+        DataMap map = new MemoryDataMap();
+        map.set("name", "say \"hi\"\n\tback\\slash").set("a.b", true).set("", 1.5).set("big", Long.MAX_VALUE);
+        map.set("include", "not a file").set("true", false).set("null", 0);
+        map.createMap("nested").set("ints", new int[] {1, 2, 3}).set("include", 2).createMap("empty");
+        DataList worlds = map.createList("worlds");
+        worlds.addMap().set("seed", 7);
+        worlds.addList().add("x").add('y');
+
+        ConfigurationNode node = Configurate.encode(MemoryDataValue.of(map), ConfigurationOptions.defaults());
+        assertTrue(node.getNode("nested", "empty").hasMapChildren());
+        assertEquals(7, node.getNode("worlds", 0, "seed").getInt());
+        assertEquals(Arrays.asList(1, 2, 3), node.getNode("nested", "ints").getValue());
+        assertEquals("y", node.getNode("worlds", 1, 1).getValue());
+
+        StringWriter out = new StringWriter();
+        HoconWriter.write(map, out);
+        DataMap read = Configurate.decode(load(out.toString())).getMap().get();
+        assertEquals(Configurate.decode(node).getMap().get(), read);
+        assertEquals(map.getString("name").get(), read.getString("name").get());
+        assertEquals(true, read.getBoolean("a.b").get());
+        assertEquals(Long.MAX_VALUE, (long) read.getLong("big").get());
+        assertEquals(3, read.getList(DataQuery.of("nested", "ints")).get().size());
+        assertEquals(1.5, read.getDouble("").get(), 0);
+        assertEquals("not a file", read.getString("include").get());
+        assertEquals(2, (int) read.getInt(DataQuery.of("nested", "include")).get());
+        assertEquals(false, read.getBoolean("true").get());
+        assertEquals(0, (int) read.getInt("null").get());
+        assertEquals(map.size(), read.size());
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.xcube16.data.diff;
+
+import io.github.xcube16.data.ConcurrentDataMap;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.DataValue;
+import io.github.xcube16.data.MemoryDataMap;
+import io.github.xcube16.data.MemoryDataValue;
+import io.github.xcube16.data.PersistentDataMap;
+import io.github.xcube16.data.bbjson.BBJSON;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataDiffTests {
+
+    @Test
+    public void DiffAndPatch() throws IOException {
+        DataMap from = new MemoryDataMap();
+        from.set("name", "toaster")
+                .set("slots", new int[] {1, 2, 3, 4, 5, 6, 7, 8})
+                .createMap("settings")
+                    .set("crispy", true)
+                    .set("timer", 90);
+        from.createList("log").add("on").add("off").add("on");
+        from.set("unchanged", "yes");
+
+        DataMap to = from.copy();
+        to.set("slots", new int[] {1, 2, 3, 4, 42, 6, 7, 8});
+        to.getMap("settings").get().set("timer", 120);
+        to.getList("log").get().set(1, "burnt").add("off");
+        to.remove("name");
+
+        assertTrue(DataDiff.diff(from, from.copy()).isEmpty());
+
+        DataPatch patch = DataDiff.diff(from, to);
+        assertEquals(to, patch.apply(from.copy()));
+        assertEquals(DataPatch.Operation.Type.REPLACE_RANGE, patch.getOperations().stream()
+                .filter(op -> op.getPath().equals(DataQuery.of("slots")))
+                .findFirst().get().getType());
+
+        DataValue value = MemoryDataValue.of(patch);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BBJSON.encode(new DataOutputStream(out), value);
+        DataPatch decoded = DataPatch.fromContainer(BBJSON.decode(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))));
+        assertEquals(to, decoded.apply(from.copy()));
+    }
+
+    @Test
+    public void PatchEveryTarget() {
+        DataMap from = new MemoryDataMap();
+        DataList list = from.createList("list").add("gone");
+        list.addMap().set("x", 1);
+        list.addList().add(2);
+        list.add("end");
+
+        DataMap to = from.copy();
+        to.getList("list").get().remove(0);
+        DataPatch patch = DataDiff.diff(from, to);
+        assertEquals(DataPatch.Operation.Type.REPLACE_RANGE, patch.getOperations().get(0).getType());
+
+        for (DataMap target : new DataMap[] {from.copy(), new TrackedDataMap(from.copy()),
+                new ConcurrentDataMap(), PersistentDataMap.copyOf(from)}) {
+            if (target.isEmpty()) {
+                target.set("list", list);
+            }
+            DataMap patched = patch.apply(target);
+            assertTrue(target.getClass().getSimpleName(), DataDiff.diff(to, patched).isEmpty());
+        }
+    }
+}
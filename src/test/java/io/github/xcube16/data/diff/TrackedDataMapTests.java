@@ -0,0 +1,97 @@
+package io.github.xcube16.data.diff;
+
+import com.google.common.collect.ImmutableSet;
+import io.github.xcube16.data.ConcurrentDataMap;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.MemoryDataMap;
+import io.github.xcube16.data.PersistentDataMap;
+import io.github.xcube16.data.ShapedDataMap;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrackedDataMapTests {
+
+    private static final Supplier<?>[] BACKINGS = {
+            MemoryDataMap::new,
+            ConcurrentDataMap::new,
+            ShapedDataMap::new,
+            PersistentDataMap::new
+    };
+
+    @Test
+    public void TrackChanges() {
+        DataMap backing = new MemoryDataMap();
+        backing.createMap("players").createMap("bob").set("hp", 20).set("xp", 5);
+        backing.createList("chunks").add(1).add(2).add(3);
+        backing.set("seed", 42L);
+
+        TrackedDataMap tracked = new TrackedDataMap(backing);
+        DataMap saved = backing.copy();
+        assertFalse(tracked.isDirty());
+
+        DataMap bob = tracked.getMap("players").get().getMap("bob").get();
+        bob.set("hp", 19);
+        bob.set("hp", 18);
+        tracked.getList("chunks").get().set(1, 7);
+        tracked.set(DataQuery.of("players", "alice", "hp"), 20);
+
+        assertTrue(tracked.isDirty());
+        assertEquals(ImmutableSet.of(
+                DataQuery.of("players", "bob", "hp"),
+                DataQuery.of("chunks", "1"),
+                DataQuery.of("players", "alice")), tracked.getDirtyPaths());
+        assertEquals(backing, tracked.getPatch().apply(saved.copy()));
+
+        tracked.checkpoint();
+        saved = backing.copy();
+        tracked.getList("chunks").get().remove(0);
+        bob.remove("xp");
+        assertEquals(ImmutableSet.of(DataQuery.of("chunks"), DataQuery.of("players", "bob", "xp")), tracked.getDirtyPaths());
+        assertEquals(backing, tracked.getPatch().apply(saved));
+    }
+
+    @Test
+    public void EveryBacking() {
+        for (Supplier<?> supplier : BACKINGS) {
+            DataMap backing = (DataMap) supplier.get();
+            backing.createMap("a").set("x", 1);
+            backing.createList("list").addMap().set("y", 1);
+            String name = backing.getClass().getSimpleName();
+
+            TrackedDataMap tracked = new TrackedDataMap(backing);
+            DataMap saved = backing.copy();
+            tracked.getMap("a").get().set("x", 2);
+            DataMap element = tracked.getList("list").get().getMap(0).get();
+            element.set("y", 2);
+            assertEquals(name, ImmutableSet.of(DataQuery.of("a", "x"), DataQuery.of("list", "0", "y")), tracked.getDirtyPaths());
+            assertEquals(name, 2, backing.getInt(DataQuery.of("a", "x")).get().intValue());
+            assertEquals(name, backing, tracked.getPatch().apply(saved));
+
+        }
+    }
+
+    @Test
+    public void RemovedViews() {
+        TrackedDataMap tracked = new TrackedDataMap(new MemoryDataMap());
+        DataMap a = tracked.createMap("a");
+        tracked.checkpoint();
+
+        // changes to a map that is not part of the tree anymore are not recorded
+        tracked.remove("a");
+        tracked.checkpoint();
+        a.set("x", 1);
+        assertFalse(tracked.isDirty());
+
+        tracked.createMap("a");
+        tracked.checkpoint();
+        a.set("x", 2);
+        assertFalse(tracked.isDirty());
+        assertFalse(tracked.getMap("a").get().get("x").isPresent());
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.xcube16.data.index;
+
+import com.google.common.collect.ImmutableList;
+import io.github.xcube16.data.ConcurrentDataList;
+import io.github.xcube16.data.DataList;
+import io.github.xcube16.data.DataMap;
+import io.github.xcube16.data.DataQuery;
+import io.github.xcube16.data.MemoryDataList;
+import io.github.xcube16.data.MemoryDataMap;
+import io.github.xcube16.data.PersistentDataList;
+import io.github.xcube16.data.diff.TrackedDataMap;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IndexedDataListTests {
+
+    @Test
+    public void LookupAndMaintain() {
+        IndexedDataList players = new IndexedDataList(new MemoryDataList());
+        players.addMap().set("name", "bob").set("level", 5);
+        players.addMap().set("name", "alice").set("level", 12);
+        players.add("not a record");
+
+        DataIndex byName = players.createHashIndex(DataQuery.of("name"));
+        SortedDataIndex byLevel = players.createSortedIndex(DataQuery.of("level"));
+        players.addMap().set("name", "carol").set("level", 5.0).createMap("stats").set("hp", 20);
+
+        assertEquals(12, (int) byName.getFirst("alice").get().getInt("level").get());
+        assertEquals(2, byLevel.get(5).size());
+        assertEquals(ImmutableList.of("bob", "carol", "alice"), names(byLevel.range(null, null)));
+        assertEquals(ImmutableList.of("alice"), names(byLevel.range(6, true, 12, true)));
+
+        // edits through records, lookups and the list keep the indexes current
+        byName.getFirst("bob").get().set("name", "robert").set("level", 20);
+        assertFalse(byName.contains("bob"));
+        assertEquals(ImmutableList.of("carol", "alice", "robert"), names(byLevel.range(null, null)));
+
+        players.remove(1);
+        players.set(0, players.getBacking().getMap(2).get().copy().set("name", "dave"));
+        assertFalse(byName.contains("alice"));
+        assertFalse(byName.contains("robert"));
+        assertEquals(2, byName.size());
+        assertTrue(byLevel.range(6, null).isEmpty());
+
+        IndexedDataList built = new IndexedDataList(players.getBacking());
+        DataIndex byHp = built.createHashIndex(DataQuery.of("stats", "hp"));
+        assertEquals(2, byHp.get(20).size());
+        built.dropIndex(byHp);
+        assertTrue(built.getIndexes().isEmpty());
+    }
+
+    @Test
+    public void Backings() {
+        for (DataList backing : new DataList[] {new MemoryDataList(), new ConcurrentDataList()}) {
+            IndexedDataList records = new IndexedDataList(backing);
+            DataIndex byId = records.createHashIndex(DataQuery.of("id"));
+            records.addMap().set("id", 0);
+            records.addMap().set("id", 1);
+            records.addMap().set("id", 2);
+            records.getMap(0).get().set("id", 5);
+            records.remove(1);
+
+            assertFalse(byId.contains(1));
+            assertEquals(ImmutableList.of(2), ids(byId.get(2)));
+            assertEquals(ImmutableList.of(5), ids(byId.get(5)));
+            assertEquals(2, byId.size());
+        }
+
+        MemoryDataList frozen = new MemoryDataList();
+        frozen.addMap().set("id", 7);
+        assertEquals(ImmutableList.of(7), ids(new IndexedDataList(frozen.freeze()).createHashIndex(DataQuery.of("id")).get(7)));
+
+        for (DataList backing : new DataList[] {new PersistentDataList(), new TrackedDataMap(new MemoryDataMap()).createList("list"),
+                new IndexedDataList(new MemoryDataList())}) {
+            try {
+                new IndexedDataList(backing);
+                fail(backing.getClass().getSimpleName());
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    private static List<Integer> ids(List<DataMap> records) {
+        return records.stream().map(record -> record.getInt("id").get()).collect(Collectors.toList());
+    }
+
+    private static List<String> names(List<DataMap> records) {
+        return records.stream().map(record -> record.getString("name").get()).collect(Collectors.toList());
+    }
+}